@@ -21,11 +21,13 @@ import static com.google.common.collect.ImmutableList.toImmutableList;
 
 import com.google.auto.value.AutoValue;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.MoreObjects;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Streams;
 import com.google.common.io.ByteSink;
 import com.google.common.io.CharSource;
 import com.google.errorprone.annotations.CanIgnoreReturnValue;
@@ -50,8 +52,10 @@ import com.google.template.soy.incrementaldomsrc.SoyIncrementalDomSrcOptions;
 import com.google.template.soy.javagencode.GenerateBuildersVisitor;
 import com.google.template.soy.javagencode.GenerateParseInfoVisitor;
 import com.google.template.soy.jbcsrc.BytecodeCompiler;
+import com.google.template.soy.jbcsrc.CompiledClassCache;
 import com.google.template.soy.jbcsrc.api.SoySauce;
 import com.google.template.soy.jbcsrc.api.SoySauceImpl;
+import com.google.template.soy.jbcsrc.api.TemplateProfiler;
 import com.google.template.soy.jbcsrc.shared.CompiledTemplates;
 import com.google.template.soy.jssrc.SoyJsSrcOptions;
 import com.google.template.soy.jssrc.internal.JsSrcMain;
@@ -99,12 +103,14 @@ import com.google.template.soy.types.SoyTypeRegistryBuilder;
 import java.io.File;
 import java.io.IOException;
 import java.net.URL;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Executor;
 import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -152,6 +158,14 @@ public final class SoyFileSet {
     /** Optional AST cache. */
     private SoyAstCache cache = null;
 
+    /** Optional executor for per-file compilation work. */
+    @Nullable private Executor compilationExecutor = null;
+
+    /** Optional directory for caching generated jbcsrc classes. */
+    @Nullable private Path classCacheDirectory = null;
+
+    @Nullable private TemplateProfiler templateProfiler = null;
+
     /** The general compiler options. */
     private SoyGeneralOptions lazyGeneralOptions = null;
 
@@ -248,6 +262,9 @@ public final class SoyFileSet {
           compilationUnitsBuilder.build(),
           getGeneralOptions(),
           cache,
+          compilationExecutor,
+          classCacheDirectory,
+          templateProfiler,
           conformanceConfig,
           warningSink,
           pluginRuntimeJars,
@@ -457,6 +474,66 @@ public final class SoyFileSet {
       return this;
     }
 
+    /**
+     * Configures an executor used to parallelize per-file compilation work: parsing, the parse
+     * passes and jbcsrc bytecode generation.
+     *
+     * <p>The result of compilation, including node ids, the order of reported errors and the
+     * contents of generated jars, does not depend on whether an executor is set. By default all
+     * work happens on the calling thread.
+     *
+     * <p>Note that when an executor is set, {@link #compileTemplates()} generates every class
+     * eagerly rather than on first use. A {@link java.util.concurrent.ForkJoinPool} is a good fit
+     * for this.
+     *
+     * @param executor The executor to use, or null to compile on the calling thread.
+     * @return This builder.
+     */
+    @CanIgnoreReturnValue
+    public Builder setCompilationExecutor(@Nullable Executor executor) {
+      this.compilationExecutor = executor;
+      return this;
+    }
+
+    /**
+     * Configures a directory in which {@link #compileTemplates()} caches the classes it generates,
+     * keyed by a hash of each file's content, the compiler options and the signatures of what the
+     * file imports. On later compiles, classes for unchanged files are loaded from the cache rather
+     * than generated again. Parsing and checking still happen on every compile.
+     *
+     * <p>Setting a cache directory means all classes are loaded up front rather than on first
+     * use. The cache does not track changes to the compiler itself or to plugin implementations, so
+     * use a fresh directory when upgrading either.
+     *
+     * @param directory The cache directory, or null to disable caching.
+     * @return This builder.
+     */
+    @CanIgnoreReturnValue
+    public Builder setClassCacheDirectory(@Nullable Path directory) {
+      this.classCacheDirectory = directory;
+      return this;
+    }
+
+    /**
+     * Compiles every template with probes that report when it starts and stops rendering, and
+     * installs the given profiler in the {@link SoySauce} returned by {@link #compileTemplates()}.
+     * The profiler can then be read at any time to find which templates renders spend their time
+     * in.
+     *
+     * <p>The probes cost a few calls per template call, so this is meant for investigations rather
+     * than for production. Jars written by the jbcsrc compiler also contain the probes when a
+     * profiler is set; use {@code SoySauceBuilder.withTemplateProfiler} to install one when loading
+     * them.
+     *
+     * @param profiler The profiler to report to, or null to compile without probes.
+     * @return This builder.
+     */
+    @CanIgnoreReturnValue
+    public Builder setTemplateProfiler(@Nullable TemplateProfiler profiler) {
+      this.templateProfiler = profiler;
+      return this;
+    }
+
     /**
      * Sets experimental features. These features are unreleased and are not generally available.
      *
@@ -608,6 +685,15 @@ public final class SoyFileSet {
   /** Optional soy tree cache for faster recompile times. */
   @Nullable private final SoyAstCache cache;
 
+  /** Optional executor for per-file compilation work. */
+  @Nullable private final Executor compilationExecutor;
+
+  /** Optional directory for caching generated jbcsrc classes. */
+  @Nullable private final Path classCacheDirectory;
+
+  /** Optional profiler, templates are compiled with profiling probes when set. */
+  @Nullable private final TemplateProfiler templateProfiler;
+
   private final SoyGeneralOptions generalOptions;
 
   private final ValidatedConformanceConfig conformanceConfig;
@@ -642,6 +728,9 @@ public final class SoyFileSet {
       ImmutableList<CompilationUnitAndKind> compilationUnits,
       SoyGeneralOptions generalOptions,
       @Nullable SoyAstCache cache,
+      @Nullable Executor compilationExecutor,
+      @Nullable Path classCacheDirectory,
+      @Nullable TemplateProfiler templateProfiler,
       ValidatedConformanceConfig conformanceConfig,
       @Nullable Appendable warningSink,
       ImmutableList<File> pluginRuntimeJars,
@@ -656,6 +745,9 @@ public final class SoyFileSet {
     this.soyFileSuppliers = soyFileSuppliers;
     this.compilationUnits = compilationUnits;
     this.cache = cache;
+    this.compilationExecutor = compilationExecutor;
+    this.classCacheDirectory = classCacheDirectory;
+    this.templateProfiler = templateProfiler;
     this.generalOptions = generalOptions.clone();
     this.soyFunctions = InternalPlugins.filterDuplicateFunctions(soyFunctions);
     this.printDirectives = InternalPlugins.filterDuplicateDirectives(printDirectives);
@@ -945,6 +1037,11 @@ public final class SoyFileSet {
    * compiler. This will allow applications to avoid invoking the soy compiler at runtime which can
    * be relatively slow.
    *
+   * <p>Unless a compilation executor or class cache directory is configured, the returned {@link
+   * SoySauce} is available as soon as the templates are checked, and each file's classes are
+   * generated the first time one of its templates is rendered. Use {@link SoySauce#prewarm} to
+   * generate the classes for commonly rendered templates in the background.
+   *
    * @return A set of compiled templates
    * @throws SoyCompilationException If compilation fails.
    */
@@ -962,6 +1059,11 @@ public final class SoyFileSet {
    * compiler. This will allow applications to avoid invoking the soy compiler at runtime which can
    * be relatively slow.
    *
+   * <p>Unless a compilation executor or class cache directory is configured, the returned {@link
+   * SoySauce} is available as soon as the templates are checked, and each file's classes are
+   * generated the first time one of its templates is rendered. Use {@link SoySauce#prewarm} to
+   * generate the classes for commonly rendered templates in the background.
+   *
    * @return A set of compiled templates
    * @throws SoyCompilationException If compilation fails.
    */
@@ -991,7 +1093,13 @@ public final class SoyFileSet {
           ServerCompilationPrimitives primitives = compileForServerRendering();
           try {
             BytecodeCompiler.compileToJar(
-                primitives.soyTree, errorReporter, typeRegistry, jarTarget, primitives.registry);
+                primitives.soyTree,
+                errorReporter,
+                typeRegistry,
+                jarTarget,
+                primitives.registry,
+                compilationExecutor,
+                /* profileTemplates= */ templateProfiler != null);
             if (srcJarTarget.isPresent()) {
               BytecodeCompiler.writeSrcJar(
                   primitives.soyTree, soyFileSuppliers, srcJarTarget.get());
@@ -1007,11 +1115,46 @@ public final class SoyFileSet {
       ServerCompilationPrimitives primitives, PluginInstances pluginInstances) {
     Optional<CompiledTemplates> templates =
         BytecodeCompiler.compile(
-            primitives.registry, primitives.soyTree, errorReporter, soyFileSuppliers, typeRegistry);
+            primitives.registry,
+            primitives.soyTree,
+            errorReporter,
+            soyFileSuppliers,
+            typeRegistry,
+            compilationExecutor,
+            classCacheDirectory == null
+                ? null
+                : CompiledClassCache.create(classCacheDirectory, classCacheFingerprint()),
+            /* profileTemplates= */ templateProfiler != null);
 
     throwIfErrorsPresent();
 
-    return new SoySauceImpl(templates.get(), soyFunctions, printDirectives, pluginInstances);
+    return new SoySauceImpl(
+        templates.get(),
+        soyFunctions,
+        printDirectives,
+        pluginInstances,
+        /* renderMetricsListener= */ null,
+        templateProfiler,
+        /* bufferPool= */ null);
+  }
+
+  /** Describes the options that can affect the classes generated for a file. */
+  private String classCacheFingerprint() {
+    return MoreObjects.toStringHelper("ClassCache")
+        .add("generalOptions", generalOptions)
+        .add("optimize", optimize)
+        .add("profileTemplates", templateProfiler != null)
+        .add(
+            "plugins",
+            Streams.concat(
+                    soyFunctions.stream(),
+                    printDirectives.stream(),
+                    soySourceFunctions.stream().map(SoySourceFunctionDescriptor::soySourceFunction),
+                    soyMethods.stream())
+                .map(p -> p.getClass().getName())
+                .sorted()
+                .collect(toImmutableList()))
+        .toString();
   }
 
   /**
@@ -1251,6 +1394,7 @@ public final class SoyFileSet {
   private ParseResult parse(PassManager.Builder builder, SoyTypeRegistry typeRegistry) {
     return SoyFileSetParser.newBuilder()
         .setCache(cache)
+        .setExecutor(compilationExecutor)
         .setSoyFileSuppliers(soyFileSuppliers)
         .setCompilationUnits(compilationUnits)
         .setCssRegistry(cssRegistry)
@@ -17,6 +17,7 @@
 package com.google.template.soy;
 
 import com.google.auto.value.AutoValue;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.template.soy.base.SourceFilePath;
@@ -40,7 +41,13 @@ import com.google.template.soy.soytree.SoyTreeUtils;
 import com.google.template.soy.types.SoyTypeRegistry;
 import java.io.IOException;
 import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import javax.annotation.Nullable;
 
 /**
@@ -51,6 +58,14 @@ import javax.annotation.Nullable;
 @AutoValue
 public abstract class SoyFileSetParser {
 
+  // Use a fixed id generator for parsing.  This ensures that the ids assigned to nodes are not
+  // dependent on whether or not there was a cache hit, or on the order in which files are parsed.
+  // So we parse with fixed ids and then assign ids later.
+  // TODO(lukes): this is a good argument for eliminating the id system.  They are only used to
+  // help with assigning unique names in the js and python backends.  We should just move this
+  // into those backends
+  private static final FixedIdGenerator FIXED_ID_GENERATOR = new FixedIdGenerator(-1);
+
   /** A simple tuple for the result of a parse operation. */
   public static class ParseResult {
     private final SoyFileSetNode soyTree;
@@ -103,6 +118,13 @@ public abstract class SoyFileSetParser {
   @Nullable
   abstract SoyAstCache cache();
 
+  /**
+   * Optional executor used to parse files and run the parse passes in parallel. If absent all files
+   * are parsed on the calling thread.
+   */
+  @Nullable
+  abstract Executor executor();
+
   /** Files to parse. Each must have a unique file name. */
   public abstract ImmutableMap<SourceLogicalPath, SoyFileSupplier> soyFileSuppliers();
 
@@ -123,6 +145,8 @@ public abstract class SoyFileSetParser {
   public abstract static class Builder {
     public abstract Builder setCache(SoyAstCache cache);
 
+    public abstract Builder setExecutor(@Nullable Executor executor);
+
     public abstract Builder setSoyFileSuppliers(
         ImmutableMap<SourceLogicalPath, SoyFileSupplier> soyFileSuppliers);
 
@@ -160,32 +184,13 @@ public abstract class SoyFileSetParser {
   private ParseResult parseWithVersions() throws IOException {
     SoyFileSetNode soyTree = new SoyFileSetNode(new IncrementingIdGenerator());
     boolean filesWereSkipped = false;
-    // Use a fixed id generator for parsing.  This ensures that the ids assigned to nodes are not
-    // dependent on whether or not there was a cache hit.  So we parse with fixed ids and then
-    // assign ids later.
-    // TODO(lukes): this is a good argument for eliminating the id system.  They are only used to
-    // help with assigning unique names in the js and python backends.  We should just move this
-    // into those backends
-    FixedIdGenerator fixedIdGenerator = new FixedIdGenerator(-1);
-    for (SoyFileSupplier fileSupplier : soyFileSuppliers().values()) {
-      SoyFileSupplier.Version version = fileSupplier.getVersion();
-      SoyFileNode node =
-          cache() != null ? cache().get(fileSupplier.getFilePath().asLogicalPath(), version) : null;
+    for (SoyFileNode node : parseFiles()) {
+      // TODO(b/19269289): implement error recovery and keep on trucking in order to display
+      // as many errors as possible. Currently, the later passes just spew NPEs if run on
+      // a malformed parse tree.
       if (node == null) {
-        node = parseSoyFileHelper(fileSupplier, fixedIdGenerator);
-        // TODO(b/19269289): implement error recovery and keep on trucking in order to display
-        // as many errors as possible. Currently, the later passes just spew NPEs if run on
-        // a malformed parse tree.
-        if (node == null) {
-          filesWereSkipped = true;
-          continue;
-        }
-        // Run passes that are considered part of initial parsing.
-        passManager().runParsePasses(node, fixedIdGenerator);
-        // Run passes that check the tree.
-        if (cache() != null) {
-          cache().put(fileSupplier.getFilePath().asLogicalPath(), version, node);
-        }
+        filesWereSkipped = true;
+        continue;
       }
       // Make a copy here and assign ids.
       // We need to make a copy because we may have stored a version in the cache or taken a version
@@ -193,6 +198,7 @@ public abstract class SoyFileSetParser {
       // Also, we need to assign ids because we performed all parsing with the fixed id generator.
       // In theory we could optimize the no cache case and avoid this copy, but that is an
       // increasingly uncommon configuration.
+      // This always happens on the calling thread and in input order so that ids are deterministic.
       node = SoyTreeUtils.cloneWithNewIds(node, soyTree.getNodeIdGenerator());
       soyTree.addChild(node);
     }
@@ -212,14 +218,91 @@ public abstract class SoyFileSetParser {
     return ParseResult.create(soyTree, Optional.ofNullable(finalFileSetMetadata), cssRegistry());
   }
 
+  /**
+   * Parses all the files and runs the parse passes on them, returning the nodes in input order. A
+   * null entry indicates that the corresponding file could not be parsed.
+   */
+  private List<SoyFileNode> parseFiles() throws IOException {
+    ImmutableList<SoyFileSupplier> fileSuppliers = soyFileSuppliers().values().asList();
+    List<SoyFileNode> nodes = new ArrayList<>(fileSuppliers.size());
+    if (executor() == null || fileSuppliers.size() < 2) {
+      for (SoyFileSupplier fileSupplier : fileSuppliers) {
+        nodes.add(parseAndRunParsePasses(fileSupplier, errorReporter()));
+      }
+      return nodes;
+    }
+    // Each file reports to its own ErrorReporter, the reports are then copied into the real one in
+    // input order so that the errors are reported in the same order as a sequential parse.
+    List<ErrorReporter> reporters = new ArrayList<>(fileSuppliers.size());
+    List<CompletableFuture<SoyFileNode>> futures = new ArrayList<>(fileSuppliers.size());
+    for (SoyFileSupplier fileSupplier : fileSuppliers) {
+      ErrorReporter reporter = ErrorReporter.create();
+      reporters.add(reporter);
+      futures.add(
+          CompletableFuture.supplyAsync(
+              () -> {
+                try {
+                  return parseAndRunParsePasses(fileSupplier, reporter);
+                } catch (IOException e) {
+                  throw new UncheckedIOException(e);
+                }
+              },
+              executor()));
+    }
+    for (int i = 0; i < futures.size(); i++) {
+      SoyFileNode node;
+      try {
+        node = futures.get(i).join();
+      } catch (CompletionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof UncheckedIOException) {
+          throw ((UncheckedIOException) cause).getCause();
+        }
+        Throwables.throwIfUnchecked(cause);
+        throw new IllegalStateException(cause);
+      }
+      reporters.get(i).copyTo(errorReporter());
+      nodes.add(node);
+    }
+    return nodes;
+  }
+
+  /**
+   * Parses a single file, or fetches it from the cache, and runs the parse passes on it.
+   *
+   * @return The parsed file, or null if the file could not be parsed.
+   */
+  @Nullable
+  private SoyFileNode parseAndRunParsePasses(
+      SoyFileSupplier fileSupplier, ErrorReporter errorReporter) throws IOException {
+    SoyFileSupplier.Version version = fileSupplier.getVersion();
+    SoyFileNode node =
+        cache() != null ? cache().get(fileSupplier.getFilePath().asLogicalPath(), version) : null;
+    if (node == null) {
+      node = parseSoyFileHelper(fileSupplier, FIXED_ID_GENERATOR, errorReporter);
+      if (node == null) {
+        return null;
+      }
+      // Run passes that are considered part of initial parsing.
+      passManager().runParsePasses(node, FIXED_ID_GENERATOR, errorReporter);
+      // Run passes that check the tree.
+      if (cache() != null) {
+        cache().put(fileSupplier.getFilePath().asLogicalPath(), version, node);
+      }
+    }
+    return node;
+  }
+
   /**
    * Private helper for {@code parseWithVersions()} to parse one Soy file.
    *
    * @param soyFileSupplier Supplier of the Soy file content and path.
    * @param nodeIdGen The generator of node ids.
+   * @param errorReporter The reporter for parse errors.
    * @return The resulting parse tree for one Soy file and the version from which it was parsed.
    */
-  private SoyFileNode parseSoyFileHelper(SoyFileSupplier soyFileSupplier, IdGenerator nodeIdGen)
+  private static SoyFileNode parseSoyFileHelper(
+      SoyFileSupplier soyFileSupplier, IdGenerator nodeIdGen, ErrorReporter errorReporter)
       throws IOException {
     try (Reader soyFileReader = soyFileSupplier.open()) {
       String filePath = soyFileSupplier.getFilePath().path();
@@ -236,7 +319,7 @@ public abstract class SoyFileSetParser {
               nodeIdGen,
               soyFileReader,
               SourceFilePath.create(filePath, soyFileSupplier.getFilePath().realPath()),
-              errorReporter())
+              errorReporter)
           .parseSoyFile();
     }
   }
@@ -18,8 +18,10 @@ package com.google.template.soy;
 
 import com.google.common.io.ByteSink;
 import com.google.common.io.Files;
+import com.google.template.soy.jbcsrc.api.TemplateProfiler;
 import java.io.File;
 import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
 import org.kohsuke.args4j.Option;
 
 /** Executable for compiling a set of Soy files into corresponding Java class files in a jar. */
@@ -43,6 +45,24 @@ public final class SoyToJbcSrcCompiler extends AbstractSoyCompiler {
   )
   private File outputSrcJar;
 
+  @Option(
+    name = "--numThreads",
+    required = false,
+    usage =
+        "[Optional] The number of threads to use for parsing and code generation.  Defaults to 1,"
+            + " the output does not depend on this value."
+  )
+  private int numThreads = 1;
+
+  @Option(
+    name = "--profileTemplates",
+    required = false,
+    usage =
+        "[Optional] Whether to compile templates with profiling probes.  Renders of the generated"
+            + " classes report to the profiler set with SoySauceBuilder.withTemplateProfiler."
+  )
+  private boolean profileTemplates = false;
+
   SoyToJbcSrcCompiler(PluginLoader loader, SoyInputCache cache) {
     super(loader, cache);
   }
@@ -55,7 +75,21 @@ public final class SoyToJbcSrcCompiler extends AbstractSoyCompiler {
     if (outputSrcJar != null) {
       srcJarSink = Optional.of(Files.asByteSink(outputSrcJar));
     }
-    compile(sfsBuilder.build(), Files.asByteSink(output), srcJarSink);
+    if (profileTemplates) {
+      // Only the presence of a profiler matters when compiling to a jar.
+      sfsBuilder.setTemplateProfiler(TemplateProfiler.create());
+    }
+    if (numThreads <= 1) {
+      compile(sfsBuilder.build(), Files.asByteSink(output), srcJarSink);
+      return;
+    }
+    ForkJoinPool pool = new ForkJoinPool(numThreads);
+    try {
+      compile(
+          sfsBuilder.setCompilationExecutor(pool).build(), Files.asByteSink(output), srcJarSink);
+    } finally {
+      pool.shutdown();
+    }
   }
 
   /**
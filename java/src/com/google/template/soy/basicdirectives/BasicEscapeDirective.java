@@ -64,6 +64,7 @@ public abstract class BasicEscapeDirective
 
   @LazyInit private IdentityHashMap<Class<?>, MethodRef> javaSanitizerByParamType;
   @LazyInit private MethodRef javaStreamingSanitizer;
+  @LazyInit private IdentityHashMap<Class<?>, MethodRef> javaAppendingSanitizerByParamType;
 
   /** @param name E.g. {@code |escapeUri}. */
   public BasicEscapeDirective(String name) {
@@ -164,6 +165,37 @@ public abstract class BasicEscapeDirective
     }
   }
 
+  /**
+   * Default implementation for {@link AppendsDirectly}.
+   *
+   * <p>Subclasses can simply add {@code implements AppendsDirectly} if they have implementations in
+   * Sanitizers.<name>(LoggingAdvisingAppendable, SoyValue|String). If they don't, this method will
+   * throw while trying to find them.
+   */
+  public final Expression applyForJbcSrcAndAppend(
+      JbcSrcPluginContext context,
+      SoyExpression value,
+      Expression appendable,
+      List<SoyExpression> args) {
+    // Like applyForJbcSrc, prefer the String version if the value is already unboxed.
+    if (!value.isBoxed()) {
+      return javaAppendingSanitizer(String.class).invoke(appendable, value.coerceToString());
+    }
+    return javaAppendingSanitizer(SoyValue.class).invoke(appendable, value);
+  }
+
+  private synchronized MethodRef javaAppendingSanitizer(Class<?> paramType) {
+    if (javaAppendingSanitizerByParamType == null) {
+      javaAppendingSanitizerByParamType = new IdentityHashMap<>();
+    }
+    return javaAppendingSanitizerByParamType.computeIfAbsent(
+        paramType,
+        type ->
+            MethodRef.createNonPure(
+                    Sanitizers.class, name.substring(1), LoggingAdvisingAppendable.class, type)
+                .asNonJavaNullable());
+  }
+
   // -----------------------------------------------------------------------------------------------
   // Concrete subclasses.
 
@@ -214,7 +246,8 @@ public abstract class BasicEscapeDirective
 
   /** Implements the |escapeHtmlRcdata directive. */
   @SoyPurePrintDirective
-  static final class EscapeHtmlRcdata extends BasicEscapeDirective implements Streamable {
+  static final class EscapeHtmlRcdata extends BasicEscapeDirective
+      implements Streamable, AppendsDirectly {
 
     EscapeHtmlRcdata() {
       super("|escapeHtmlRcdata");
@@ -228,7 +261,8 @@ public abstract class BasicEscapeDirective
 
   /** Implements the |escapeHtmlAttribute directive. */
   @SoyPurePrintDirective
-  static final class EscapeHtmlAttribute extends BasicEscapeDirective implements Streamable {
+  static final class EscapeHtmlAttribute extends BasicEscapeDirective
+      implements Streamable, AppendsDirectly {
 
     EscapeHtmlAttribute() {
       super("|escapeHtmlAttribute");
@@ -261,7 +295,8 @@ public abstract class BasicEscapeDirective
 
   /** Implements the |escapeHtmlAttributeNospace directive. */
   @SoyPurePrintDirective
-  static final class EscapeHtmlAttributeNospace extends BasicEscapeDirective implements Streamable {
+  static final class EscapeHtmlAttributeNospace extends BasicEscapeDirective
+      implements Streamable, AppendsDirectly {
 
     EscapeHtmlAttributeNospace() {
       super("|escapeHtmlAttributeNospace");
@@ -396,7 +431,7 @@ public abstract class BasicEscapeDirective
 
   /** Implements the |filterNormalizeUri directive. */
   @SoyPurePrintDirective
-  static final class FilterNormalizeUri extends BasicEscapeDirective {
+  static final class FilterNormalizeUri extends BasicEscapeDirective implements AppendsDirectly {
 
     FilterNormalizeUri() {
       super("|filterNormalizeUri");
@@ -62,6 +62,41 @@ public final class CoreDirectivesRuntime {
         EscapingConventions.EscapeHtml.INSTANCE.escape(value), SanitizedContent.ContentKind.HTML);
   }
 
+  /**
+   * Appends {@link #escapeHtml(SoyValue)} of the value to {@code out}, escaping as it writes rather
+   * than into an intermediate string.
+   */
+  @CanIgnoreReturnValue
+  public static LoggingAdvisingAppendable escapeHtml(LoggingAdvisingAppendable out, SoyValue value)
+      throws IOException {
+    if (value == null) {
+      // jbcsrc uses null as null.
+      value = NullData.INSTANCE;
+    }
+    Dir valueDir = null;
+    if (value instanceof SanitizedContent) {
+      SanitizedContent sanitizedContent = (SanitizedContent) value;
+      if (sanitizedContent.getContentKind() == SanitizedContent.ContentKind.HTML) {
+        sanitizedContent.render(out);
+        return out;
+      }
+      valueDir = sanitizedContent.getContentDirection();
+    }
+    EscapingConventions.EscapeHtml.INSTANCE.escapeOnto(
+        value.coerceToString(),
+        out.setKindAndDirectionality(SanitizedContent.ContentKind.HTML, valueDir));
+    return out;
+  }
+
+  /** Appends {@link #escapeHtml(String)} of the value to {@code out}, escaping as it writes. */
+  @CanIgnoreReturnValue
+  public static LoggingAdvisingAppendable escapeHtml(LoggingAdvisingAppendable out, String value)
+      throws IOException {
+    EscapingConventions.EscapeHtml.INSTANCE.escapeOnto(
+        value, out.setKindAndDirectionality(SanitizedContent.ContentKind.HTML, null));
+    return out;
+  }
+
   @Nonnull
   public static LoggingAdvisingAppendable streamingEscapeHtml(LoggingAdvisingAppendable delegate) {
     return new StreamingHtmlEscaper(delegate);
@@ -44,6 +44,7 @@ public class EscapeHtmlDirective
         SoyLibraryAssistedJsSrcPrintDirective,
         SoyPySrcPrintDirective,
         SoyJbcSrcPrintDirective.Streamable,
+        SoyJbcSrcPrintDirective.AppendsDirectly,
         ShortCircuitable {
 
   public static final String NAME = "|escapeHtml";
@@ -76,6 +77,20 @@ public class EscapeHtmlDirective
     static final MethodRef STREAMING_ESCAPE_HTML =
         MethodRef.createNonPure(
             CoreDirectivesRuntime.class, "streamingEscapeHtml", LoggingAdvisingAppendable.class);
+    static final MethodRef APPEND_ESCAPE_HTML =
+        MethodRef.createNonPure(
+                CoreDirectivesRuntime.class,
+                "escapeHtml",
+                LoggingAdvisingAppendable.class,
+                SoyValue.class)
+            .asNonJavaNullable();
+    static final MethodRef APPEND_ESCAPE_HTML_STRING =
+        MethodRef.createNonPure(
+                CoreDirectivesRuntime.class,
+                "escapeHtml",
+                LoggingAdvisingAppendable.class,
+                String.class)
+            .asNonJavaNullable();
   }
 
   @Override
@@ -95,6 +110,17 @@ public class EscapeHtmlDirective
         JbcSrcMethods.STREAMING_ESCAPE_HTML.invoke(delegateAppendable));
   }
 
+  @Override
+  public Expression applyForJbcSrcAndAppend(
+      JbcSrcPluginContext context,
+      SoyExpression value,
+      Expression appendable,
+      List<SoyExpression> args) {
+    return value.isBoxed()
+        ? JbcSrcMethods.APPEND_ESCAPE_HTML.invoke(appendable, value)
+        : JbcSrcMethods.APPEND_ESCAPE_HTML_STRING.invoke(appendable, value.coerceToString());
+  }
+
   @Override
   public JsExpr applyForJsSrc(JsExpr value, List<JsExpr> args) {
     return new JsExpr("soy.$$escapeHtml(" + value.getText() + ")", Integer.MAX_VALUE);
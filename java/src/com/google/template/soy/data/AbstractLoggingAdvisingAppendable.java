@@ -18,6 +18,7 @@ package com.google.template.soy.data;
 import com.google.common.collect.ImmutableList;
 import com.google.errorprone.annotations.CanIgnoreReturnValue;
 import com.google.errorprone.annotations.ForOverride;
+import com.google.template.soy.jbcsrc.api.PreEncodedText;
 import java.io.IOException;
 import java.util.function.Function;
 
@@ -72,6 +73,16 @@ public abstract class AbstractLoggingAdvisingAppendable extends LoggingAdvisingA
     return this;
   }
 
+  @CanIgnoreReturnValue
+  @Override
+  public final AbstractLoggingAdvisingAppendable appendPreEncoded(PreEncodedText text)
+      throws IOException {
+    if (!isLogOnly()) {
+      doAppendPreEncoded(text);
+    }
+    return this;
+  }
+
   /** Called whenever a logging function is being rendered. */
   @CanIgnoreReturnValue
   @Override
@@ -122,6 +133,12 @@ public abstract class AbstractLoggingAdvisingAppendable extends LoggingAdvisingA
   @ForOverride
   protected abstract void doAppend(char c) throws IOException;
 
+  /** Appends pre-encoded text, by default by appending the text itself. */
+  @ForOverride
+  protected void doAppendPreEncoded(PreEncodedText text) throws IOException {
+    doAppend(text.toString());
+  }
+
   @ForOverride
   protected abstract void doEnterLoggableElement(LogStatement statement);
 
@@ -135,6 +135,14 @@ public abstract class BaseSoyTemplateImpl implements SoyTemplate {
       this.data = new ParamStore(/* size= */ numParams);
     }
 
+    /**
+     * Lays the params out in {@code slots}, which lists the params in the order of the template
+     * signature, so that the template reads each of them straight from its slot.
+     */
+    protected AbstractBuilder(ImmutableList<RecordProperty> slots) {
+      this.data = new ParamStore(slots);
+    }
+
     @CheckReturnValue
     @Override
     public final T build() {
@@ -232,6 +240,16 @@ public abstract class BaseSoyTemplateImpl implements SoyTemplate {
     // generated code more succinct and less error prone.
     //
 
+    /** Returns the slots for {@link #AbstractBuilder(ImmutableList)} for the given param names. */
+    protected static ImmutableList<RecordProperty> paramSlots(String... names) {
+      ImmutableList.Builder<RecordProperty> slots =
+          ImmutableList.builderWithExpectedSize(names.length);
+      for (String name : names) {
+        slots.add(RecordProperty.get(name));
+      }
+      return slots.build();
+    }
+
     /** Converts any Iterable to a Collection. Used by ListJavaType. */
     protected static <T> SoyList asList(
         Iterable<T> iterable, Function<? super T, ? extends SoyValueProvider> mapper) {
@@ -243,6 +261,25 @@ public abstract class BaseSoyTemplateImpl implements SoyTemplate {
       return iterable == null ? NullData.INSTANCE : asList(iterable, mapper);
     }
 
+    /**
+     * Like {@link #asList} but converts each element when it is first read, for element types
+     * whose conversion can't fail. The elements are still copied, unless they are already in an
+     * {@link ImmutableList}, so later changes to {@code iterable} aren't seen.
+     *
+     * @throws NullPointerException if any element is null.
+     */
+    @SuppressWarnings("unchecked")
+    protected static <T> SoyList asLazyList(
+        Iterable<T> iterable, Function<? super T, ? extends SoyValueProvider> mapper) {
+      return ListImpl.forLazyList(
+          ImmutableList.copyOf(iterable), (Function<Object, ? extends SoyValueProvider>) mapper);
+    }
+
+    protected static <T> SoyValue asNullableLazyList(
+        @Nullable Iterable<T> iterable, Function<? super T, ? extends SoyValueProvider> mapper) {
+      return iterable == null ? NullData.INSTANCE : asLazyList(iterable, mapper);
+    }
+
     protected static SoyProtoValue asProto(Message proto) {
       return SoyProtoValue.create(proto);
     }
@@ -443,6 +480,24 @@ public abstract class BaseSoyTemplateImpl implements SoyTemplate {
       return map == null ? NullData.INSTANCE : asLegacyObjectMap(map, valueMapper);
     }
 
+    /**
+     * Like {@link #asLegacyObjectMap} but converts each value when it is first read, for value
+     * types whose conversion can't fail. See {@link #asLazyList}.
+     *
+     * @throws NullPointerException if any value is null.
+     */
+    @SuppressWarnings("unchecked")
+    protected static <V> SoyLegacyObjectMap asLazyLegacyObjectMap(
+        Map<String, V> map, Function<? super V, ? extends SoyValueProvider> valueMapper) {
+      return SoyLegacyObjectMapImpl.forLazyMap(
+          ImmutableMap.copyOf(map), (Function<Object, ? extends SoyValueProvider>) valueMapper);
+    }
+
+    protected static <V> SoyValue asNullableLazyLegacyObjectMap(
+        @Nullable Map<String, V> map, Function<? super V, ? extends SoyValueProvider> valueMapper) {
+      return map == null ? NullData.INSTANCE : asLazyLegacyObjectMap(map, valueMapper);
+    }
+
     protected static SoyValueProvider asSoyValue(@Nullable Object object) {
       return SoyValueConverter.INSTANCE.convert(object);
     }
@@ -475,7 +530,7 @@ public abstract class BaseSoyTemplateImpl implements SoyTemplate {
       ImmutableList<SoyTemplateParam<?>> params = allParams().asList();
       for (int i = 0; i < params.size(); i++) {
         SoyTemplateParam<?> param = params.get(i);
-        if (param.isRequired() && !param.isIndirect() && !data.containsKey(param.getSymbol())) {
+        if (param.isRequired() && !param.isIndirect() && !data.hasField(param.getSymbol())) {
           if (missing.isEmpty()) {
             missing = new ArrayList<>();
           }
@@ -504,6 +559,10 @@ public abstract class BaseSoyTemplateImpl implements SoyTemplate {
       super(numParams);
     }
 
+    protected AbstractBuilderWithAccumulatorParameters(ImmutableList<RecordProperty> slots) {
+      super(slots);
+    }
+
     @Override
     void prepareDataForBuild() {
       accummulatorData.forEach((k, v) -> setParamInternal(k, ListImpl.forProviderList(v)));
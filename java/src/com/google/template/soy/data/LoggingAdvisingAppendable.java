@@ -27,6 +27,7 @@ import com.google.errorprone.annotations.Immutable;
 import com.google.template.soy.data.SanitizedContent.ContentKind;
 import com.google.template.soy.data.restricted.StringData;
 import com.google.template.soy.jbcsrc.api.AdvisingAppendable;
+import com.google.template.soy.jbcsrc.api.PreEncodedText;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
@@ -130,6 +131,13 @@ public abstract class LoggingAdvisingAppendable implements AdvisingAppendable {
   @Nonnull
   public abstract LoggingAdvisingAppendable append(char c) throws IOException;
 
+  @CanIgnoreReturnValue
+  @Override
+  @Nonnull
+  public LoggingAdvisingAppendable appendPreEncoded(PreEncodedText text) throws IOException {
+    return append(text.toString());
+  }
+
   /** Called whenever a loggable element is entered. */
   @Nonnull
   public abstract LoggingAdvisingAppendable enterLoggableElement(LogStatement statement);
@@ -312,19 +320,29 @@ public abstract class LoggingAdvisingAppendable implements AdvisingAppendable {
 
     @Override
     public String toString() {
-      StringBuilder builder = new StringBuilder();
+      StringBuilder builder = new StringBuilder(BufferingAppendable.stringLength(commands));
       BufferingAppendable.appendCommandsToBuilder(commands, builder);
       return builder.toString();
     }
   }
 
-  /** A {@link LoggingAdvisingAppendable} that renders to a string builder. */
+  /**
+   * A {@link LoggingAdvisingAppendable} that renders to a string builder.
+   *
+   * <p>The buffer is a rope: appended strings of at least {@link #MIN_SHARED_STRING_LENGTH} chars
+   * are kept by reference rather than copied. Since buffered content is replayed string by string,
+   * content that is buffered at several nesting levels, such as {@code let} blocks printed into
+   * other {@code let} blocks, is only copied when it is finally flattened into a single string.
+   */
   public static class BufferingAppendable extends DelegatingToAppendable<StringBuilder> {
+    /** Appended strings at least this long are shared rather than copied into the builder. */
+    private static final int MIN_SHARED_STRING_LENGTH = 256;
 
     private static final Object EXIT_LOG_STATEMENT_MARKER = new Object();
     // lazily allocated list that contains one of 7 types of objects, each which corresponds to one
     // of the callback methods.
-    // - String literal string content -> corresponds to a contiguous sequence of append calls
+    // - String literal string content -> corresponds to a contiguous sequence of append calls, or
+    //   to a single long appended string
     // - LogStatement -> corresponds to enterLoggableElement
     // - EXIT_LOG_STATEMENT_MARKER -> corresponds to exitLoggableElement
     // - LoggingFunctionInvocation -> corresponds to appendLoggingFunctionInvocation
@@ -355,6 +373,15 @@ public abstract class LoggingAdvisingAppendable implements AdvisingAppendable {
       return commands;
     }
 
+    @Override
+    protected void doAppend(CharSequence s) throws IOException {
+      if (s instanceof String && s.length() >= MIN_SHARED_STRING_LENGTH) {
+        getCommandsAndAddPendingStringData().add(s);
+      } else {
+        delegate.append(s);
+      }
+    }
+
     /** Called whenever a loggable element is entered. */
     @Override
     protected void doEnterLoggableElement(LogStatement statement) {
@@ -474,7 +501,7 @@ public abstract class LoggingAdvisingAppendable implements AdvisingAppendable {
       if (commands != null) {
         // NOTE: this ignores all the logging statements which is as it should be since they don't
         // affect output
-        StringBuilder builder = new StringBuilder();
+        StringBuilder builder = new StringBuilder(stringLength(commands) + delegate.length());
         appendCommandsToBuilder(commands, builder);
         builder.append(delegate);
         return builder.toString();
@@ -483,6 +510,17 @@ public abstract class LoggingAdvisingAppendable implements AdvisingAppendable {
       }
     }
 
+    /** Returns the total length of the strings in the given commands. */
+    private static int stringLength(List<Object> commands) {
+      int length = 0;
+      for (Object o : commands) {
+        if (o instanceof String) {
+          length += ((String) o).length();
+        }
+      }
+      return length;
+    }
+
     private static void appendCommandsToBuilder(List<Object> commands, StringBuilder builder) {
       for (Object o : commands) {
         if (o instanceof String) {
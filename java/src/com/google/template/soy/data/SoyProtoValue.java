@@ -18,6 +18,7 @@ package com.google.template.soy.data;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import com.google.common.base.Throwables;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
@@ -28,6 +29,7 @@ import com.google.errorprone.annotations.concurrent.LazyInit;
 import com.google.protobuf.Descriptors.Descriptor;
 import com.google.protobuf.Descriptors.FieldDescriptor;
 import com.google.protobuf.Descriptors.FieldDescriptor.JavaType;
+import com.google.protobuf.Descriptors.FileDescriptor.Syntax;
 import com.google.protobuf.Message;
 import com.google.protobuf.TextFormat;
 import com.google.template.soy.data.restricted.UndefinedData;
@@ -35,6 +37,10 @@ import com.google.template.soy.internal.proto.Field;
 import com.google.template.soy.internal.proto.JavaQualifiedNames;
 import com.google.template.soy.jbcsrc.shared.Names;
 import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.WrongMethodTypeException;
 import java.lang.reflect.InvocationTargetException;
 import java.util.Collection;
 import java.util.LinkedHashSet;
@@ -43,6 +49,7 @@ import java.util.function.BiConsumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 /**
  * Soy value that wraps a protocol buffer message object.
@@ -80,25 +87,107 @@ public final class SoyProtoValue extends SoyAbstractValue implements SoyLegacyOb
 
   private static final class FieldWithInterpreter extends Field {
     @LazyInit ProtoFieldInterpreter interpreter;
+    @LazyInit ProtoFieldInterpreter forceStringInterpreter;
 
-    FieldWithInterpreter(FieldDescriptor fieldDesc) {
+    /**
+     * The generated message class that {@link #getter} and {@link #hasser} were resolved against,
+     * or {@code null} if the field can only be accessed via reflection.
+     */
+    @Nullable private final Class<?> messageClass;
+
+    /** The typed getter of type {@code (Message)Object}, used instead of {@code getField}. */
+    @Nullable private final MethodHandle getter;
+
+    /** The typed hasser of type {@code (Message)boolean}, used instead of {@code hasField}. */
+    @Nullable private final MethodHandle hasser;
+
+    FieldWithInterpreter(FieldDescriptor fieldDesc, @Nullable Class<?> messageClass) {
       super(fieldDesc);
+      MethodHandle getter = null;
+      MethodHandle hasser = null;
+      if (messageClass != null && hasCompatibleGetter(fieldDesc)) {
+        String fieldName = JavaQualifiedNames.getFieldName(fieldDesc, true);
+        String getterName = "get" + fieldName + (fieldDesc.isRepeated() ? "List" : "");
+        getter = findAccessor(messageClass, getterName, Object.class);
+        if (getter != null && fieldDesc.hasPresence()) {
+          hasser = findAccessor(messageClass, "has" + fieldName, boolean.class);
+        }
+      }
+      this.messageClass = getter == null ? null : messageClass;
+      this.getter = getter;
+      this.hasser = hasser;
+    }
+
+    /**
+     * Returns whether the generated getter returns the same kind of value as {@code
+     * Message.getField}, which is what the interpreters expect.
+     *
+     * <p>Map fields are reflected as lists of entries rather than maps, and open enums can hold
+     * values that the generated enum type can't represent.
+     */
+    private static boolean hasCompatibleGetter(FieldDescriptor fieldDesc) {
+      return !fieldDesc.isExtension()
+          && !fieldDesc.isMapField()
+          && !(fieldDesc.getJavaType() == JavaType.ENUM
+              && fieldDesc.getFile().getSyntax() == Syntax.PROTO3);
+    }
+
+    @Nullable
+    private static MethodHandle findAccessor(
+        Class<?> messageClass, String name, Class<?> returnType) {
+      try {
+        return MethodHandles.publicLookup()
+            .unreflect(messageClass.getMethod(name))
+            .asType(MethodType.methodType(returnType, Message.class));
+      } catch (ReflectiveOperationException | WrongMethodTypeException e) {
+        return null;
+      }
     }
 
     private ProtoFieldInterpreter impl(boolean forceStringConversion) {
-      ProtoFieldInterpreter local = interpreter;
+      ProtoFieldInterpreter local = forceStringConversion ? forceStringInterpreter : interpreter;
       if (local == null) {
         local = ProtoFieldInterpreter.create(getDescriptor(), forceStringConversion);
+        if (forceStringConversion) {
+          forceStringInterpreter = local;
+        } else {
+          interpreter = local;
+        }
       }
       return local;
     }
 
+    private Object getValue(Message message) {
+      // The message may be a DynamicMessage or some other implementation with this descriptor.
+      if (message.getClass() == messageClass) {
+        try {
+          return (Object) getter.invokeExact(message);
+        } catch (Throwable t) {
+          Throwables.throwIfUnchecked(t);
+          throw new AssertionError(t);
+        }
+      }
+      return message.getField(getDescriptor());
+    }
+
+    boolean hasValue(Message message) {
+      if (hasser != null && message.getClass() == messageClass) {
+        try {
+          return (boolean) hasser.invokeExact(message);
+        } catch (Throwable t) {
+          Throwables.throwIfUnchecked(t);
+          throw new AssertionError(t);
+        }
+      }
+      return message.hasField(getDescriptor());
+    }
+
     public SoyValue interpretField(Message message) {
       return interpretField(message, /* forceStringConversion= */ false);
     }
 
     private SoyValue interpretField(Message message, boolean forceStringConversion) {
-      return impl(forceStringConversion).soyFromProto(message.getField(getDescriptor()));
+      return impl(forceStringConversion).soyFromProto(getValue(message));
     }
 
     public void assignField(Message.Builder builder, SoyValue value) {
@@ -112,14 +201,17 @@ public final class SoyProtoValue extends SoyAbstractValue implements SoyLegacyOb
           .weakKeys()
           .build(
               new CacheLoader<>() {
-                final Field.Factory<FieldWithInterpreter> factory = FieldWithInterpreter::new;
-
                 @Override
                 public ProtoClass load(Descriptor descriptor) throws Exception {
                   Set<FieldDescriptor> extensions = new LinkedHashSet<>();
+                  Message defaultInstance = getDefaultInstance(descriptor);
+                  Class<?> messageClass = defaultInstance.getClass();
                   return new ProtoClass(
-                      getDefaultInstance(descriptor),
-                      Field.getFieldsForType(descriptor, extensions, factory));
+                      defaultInstance,
+                      Field.getFieldsForType(
+                          descriptor,
+                          extensions,
+                          fieldDesc -> new FieldWithInterpreter(fieldDesc, messageClass)));
                 }
               });
 
@@ -181,7 +273,7 @@ public final class SoyProtoValue extends SoyAbstractValue implements SoyLegacyOb
           "Proto " + proto.getClass().getName() + " does not have a field of name " + name);
     }
     FieldDescriptor fd = field.getDescriptor();
-    if (!fd.isRepeated() && fd.getJavaType() == JavaType.MESSAGE && !proto.hasField(fd)) {
+    if (!fd.isRepeated() && fd.getJavaType() == JavaType.MESSAGE && !field.hasValue(proto)) {
       // Unset singular message fields are always null to match JSPB semantics.
       return UndefinedData.INSTANCE;
     }
@@ -222,7 +314,7 @@ public final class SoyProtoValue extends SoyAbstractValue implements SoyLegacyOb
           "Proto " + proto.getClass().getName() + " does not have a field of name " + name);
     }
     FieldDescriptor fd = field.getDescriptor();
-    if (fd.hasPresence() && !proto.hasField(fd)) {
+    if (fd.hasPresence() && !field.hasValue(proto)) {
       return UndefinedData.INSTANCE;
     }
     return field.interpretField(proto, forceStringConversion);
@@ -238,7 +330,7 @@ public final class SoyProtoValue extends SoyAbstractValue implements SoyLegacyOb
       // Compiler should prevent this from happening.
       throw new IllegalArgumentException("Cannot check for presence on repeated field " + name);
     } else {
-      return proto.hasField(field.getDescriptor());
+      return field.hasValue(proto);
     }
   }
 
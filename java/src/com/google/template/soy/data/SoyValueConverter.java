@@ -21,6 +21,7 @@ import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.ImmutableSet.toImmutableSet;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
 import com.google.common.html.types.SafeHtml;
@@ -131,9 +132,24 @@ public final class SoyValueConverter {
 
   /**
    * Creates a Soy dictionary from a Java string map. While this is O(n) in the map's shallow size,
-   * the Java values are converted into Soy values lazily and only once.
+   * the Java values are converted into Soy values lazily and only once. {@link ImmutableMap}s are
+   * wrapped rather than copied, after checking their keys.
    */
   SoyDict newDictFromMap(Map<?, ?> javaStringMap) {
+    if (javaStringMap instanceof ImmutableMap) {
+      // Immutable maps can't change under us, so they can be wrapped instead of copied. Their keys
+      // are still checked here, so that a non string key fails now rather than on access.
+      for (Object key : javaStringMap.keySet()) {
+        if (!(key instanceof String)) {
+          throw new ClassCastException(
+              "Expected a map with string keys, got a key of type " + key.getClass().getName());
+        }
+      }
+      @SuppressWarnings("unchecked") // Checked above.
+      ImmutableMap<String, ?> immutableMap = (ImmutableMap<String, ?>) javaStringMap;
+      return DictImpl.forLazyMap(
+          immutableMap, this::convertLazy, RuntimeMapTypeTracker.Type.UNKNOWN);
+    }
     // Create a dictionary backed by a map which has eagerly converted each value into a lazy
     // value provider. Specifically, the map iteration is done eagerly so that the lazy value
     // provider can cache its value.
@@ -198,12 +214,18 @@ public final class SoyValueConverter {
   /**
    * Creates a SoyList from a Java Iterable.
    *
-   * <p>Values are converted into Soy types lazily and only once.
+   * <p>Values are converted into Soy types lazily and only once. {@link ImmutableList}s are wrapped
+   * in O(1) rather than copied.
    *
    * @param items The collection of Java values
    * @return A new SoyList initialized from the given Java Collection.
    */
   private SoyIterable newIterableFromIterable(Iterable<?> items) {
+    if (items instanceof ImmutableList) {
+      // Immutable lists can't change under us, so they can be wrapped instead of copied, which is
+      // O(1) rather than O(n).
+      return ListImpl.forLazyList((ImmutableList<?>) items, this::convertLazy);
+    }
     // TODO(jcg): Marshal Set to SetImpl.
     if (items instanceof List || items instanceof Set) {
       // Create a list backed by a Java list which has eagerly converted each value into a lazy
@@ -235,11 +257,21 @@ public final class SoyValueConverter {
    */
   @Nonnull
   public SoyValueProvider convert(@Nullable Object obj) {
-    SoyValueProvider convertedPrimitive = convertCheap(obj);
-    if (convertedPrimitive != null) {
-      return convertedPrimitive;
+    if (obj == null) {
+      return NullData.INSTANCE;
+    }
+    Class<?> clz = obj.getClass();
+    // Monomorphic fast paths for the most common (final) types, which skip the ClassValue lookup.
+    if (clz == String.class) {
+      return StringData.forValue((String) obj);
+    }
+    if (clz == Long.class) {
+      return IntegerData.forValue((Long) obj);
+    }
+    if (clz == Boolean.class) {
+      return BooleanData.forValue((Boolean) obj);
     }
-    return convertNonPrimitive(obj);
+    return resolvedConverters.get(clz).apply(obj);
   }
 
   /**
@@ -278,18 +310,8 @@ public final class SoyValueConverter {
     }
   }
 
-  private SoyValueProvider convertNonPrimitive(@Nullable Object obj) {
-    SoyValueProvider converted = expensiveConverterMap.convert(obj);
-    if (converted == null && obj instanceof Iterable) {
-      converted = newIterableFromIterable((Iterable<?>) obj);
-    }
-    if (converted != null) {
-      return converted;
-    }
-    throw new SoyDataException(
-        "Attempting to convert unrecognized object to Soy value (object type "
-            + obj.getClass().getName()
-            + ").");
+  private SoyValueProvider convertNonPrimitive(Object obj) {
+    return resolvedConverters.get(obj.getClass()).apply(obj);
   }
 
   private static final class LazyProvider implements SoyValueProvider {
@@ -333,10 +355,56 @@ public final class SoyValueConverter {
     if (obj == null) {
       return NullData.INSTANCE;
     }
-    if (obj instanceof SoyValueProvider) {
-      return (SoyValueProvider) obj;
+    ResolvedConverter converter = resolvedConverters.get(obj.getClass());
+    return converter.isCheap ? converter.apply(obj) : null;
+  }
+
+  /**
+   * The converter for each concrete class, which folds together the {@link SoyValueProvider} check,
+   * the cheap and expensive type maps and the {@link Iterable} fallback, so that converting a value
+   * takes a single lookup.
+   */
+  private final ClassValue<ResolvedConverter> resolvedConverters =
+      new ClassValue<>() {
+        @Override
+        @SuppressWarnings("unchecked")
+        protected ResolvedConverter computeValue(Class<?> type) {
+          Class<Object> clz = (Class<Object>) type;
+          if (SoyValueProvider.class.isAssignableFrom(clz)) {
+            return new ResolvedConverter(obj -> (SoyValueProvider) obj, /* isCheap= */ true);
+          }
+          Function<Object, SoyValueProvider> converter = cheapConverterMap.getConverter(clz);
+          if (converter != null) {
+            return new ResolvedConverter(converter, /* isCheap= */ true);
+          }
+          converter = expensiveConverterMap.getConverter(clz);
+          if (converter == null) {
+            converter =
+                Iterable.class.isAssignableFrom(clz)
+                    ? obj -> newIterableFromIterable((Iterable<?>) obj)
+                    : obj -> {
+                      throw new SoyDataException(
+                          "Attempting to convert unrecognized object to Soy value (object type "
+                              + obj.getClass().getName()
+                              + ").");
+                    };
+          }
+          return new ResolvedConverter(converter, /* isCheap= */ false);
+        }
+      };
+
+  private static final class ResolvedConverter {
+    final Function<Object, SoyValueProvider> converter;
+    final boolean isCheap;
+
+    ResolvedConverter(Function<Object, SoyValueProvider> converter, boolean isCheap) {
+      this.converter = converter;
+      this.isCheap = isCheap;
+    }
+
+    SoyValueProvider apply(Object obj) {
+      return converter.apply(obj);
     }
-    return cheapConverterMap.convert(obj);
   }
 
   static final class TypeMap<V> {
@@ -390,15 +458,7 @@ public final class SoyValueConverter {
 
     private Function<?, ?> toLoad;
 
-    <T> V convert(T o) {
-      @SuppressWarnings("unchecked")
-      Function<T, V> converter = getConverter((Class<T>) o.getClass());
-      if (converter != null) {
-        return converter.apply(o);
-      }
-      return null;
-    }
-
+    @Nullable
     @SuppressWarnings({"unchecked"})
     <T> Function<T, V> getConverter(Class<T> clz) {
       return (Function<T, V>) converterValue.get(checkNotNull(clz));
@@ -34,6 +34,7 @@ import java.io.IOException;
 import java.util.Collections;
 import java.util.Map;
 import java.util.function.BiConsumer;
+import java.util.function.Function;
 import javax.annotation.Nonnull;
 import javax.annotation.ParametersAreNonnullByDefault;
 
@@ -90,6 +91,18 @@ public final class DictImpl extends SoyAbstractValue implements SoyDict, SoyMap
     return new DictImpl(providerMap, mapType);
   }
 
+  /**
+   * Creates a SoyDict implementation that is a view of the given map, converting each value with
+   * {@code converter} when it is first accessed.
+   */
+  @Nonnull
+  public static DictImpl forLazyMap(
+      ImmutableMap<String, ?> values,
+      Function<Object, ? extends SoyValueProvider> converter,
+      RuntimeMapTypeTracker.Type mapType) {
+    return new DictImpl(new LazyConvertingMap(values, converter), mapType);
+  }
+
   private DictImpl(
       Map<String, ? extends SoyValueProvider> providerMap, RuntimeMapTypeTracker.Type typeTracker) {
     this.providerMap = checkNotNull(providerMap);
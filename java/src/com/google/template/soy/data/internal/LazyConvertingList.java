@@ -0,0 +1,68 @@
+/*
+ * Copyright 2024 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.data.internal;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.ImmutableList;
+import com.google.template.soy.data.SoyValueProvider;
+import java.util.AbstractList;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+
+/**
+ * An unmodifiable view of an immutable list of Java values as {@link SoyValueProvider}s, which
+ * converts each value when it is first accessed and remembers the result.
+ *
+ * <p>Creating the view is O(1), and the slots for the converted values are only allocated on first
+ * access. Views may be read by several threads; a race only converts a value more than once.
+ */
+final class LazyConvertingList extends AbstractList<SoyValueProvider> implements RandomAccess {
+  private final ImmutableList<?> values;
+  private final Function<Object, ? extends SoyValueProvider> converter;
+  // Slots are published with volatile writes, so readers on other threads see fully constructed
+  // providers.
+  @Nullable private volatile AtomicReferenceArray<SoyValueProvider> converted;
+
+  LazyConvertingList(
+      ImmutableList<?> values, Function<Object, ? extends SoyValueProvider> converter) {
+    this.values = checkNotNull(values);
+    this.converter = checkNotNull(converter);
+  }
+
+  @Override
+  public SoyValueProvider get(int index) {
+    AtomicReferenceArray<SoyValueProvider> converted = this.converted;
+    if (converted == null) {
+      converted = new AtomicReferenceArray<>(values.size());
+      this.converted = converted;
+    }
+    SoyValueProvider provider = converted.get(index);
+    if (provider == null) {
+      provider = converter.apply(values.get(index));
+      converted.set(index, provider);
+    }
+    return provider;
+  }
+
+  @Override
+  public int size() {
+    return values.size();
+  }
+}
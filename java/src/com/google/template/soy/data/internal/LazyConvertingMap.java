@@ -0,0 +1,117 @@
+/*
+ * Copyright 2024 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.data.internal;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Maps;
+import com.google.template.soy.data.SoyValueProvider;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+
+/**
+ * An unmodifiable view of an immutable string-keyed map of Java values as {@link
+ * SoyValueProvider}s, which converts each value when it is first accessed and remembers the
+ * result.
+ *
+ * <p>Creating the view is O(1). Views may be read by several threads; a race only converts a value
+ * more than once.
+ */
+final class LazyConvertingMap extends AbstractMap<String, SoyValueProvider> {
+  private final ImmutableMap<String, ?> values;
+  private final Function<Object, ? extends SoyValueProvider> converter;
+  @Nullable private volatile ConcurrentHashMap<String, SoyValueProvider> converted;
+
+  LazyConvertingMap(
+      ImmutableMap<String, ?> values, Function<Object, ? extends SoyValueProvider> converter) {
+    this.values = checkNotNull(values);
+    this.converter = checkNotNull(converter);
+  }
+
+  @Override
+  @Nullable
+  public SoyValueProvider get(@Nullable Object key) {
+    if (!(key instanceof String)) {
+      return null;
+    }
+    ConcurrentHashMap<String, SoyValueProvider> converted = this.converted;
+    if (converted == null) {
+      converted = new ConcurrentHashMap<>();
+      this.converted = converted;
+    } else {
+      SoyValueProvider provider = converted.get(key);
+      if (provider != null) {
+        return provider;
+      }
+    }
+    // ImmutableMaps have no null values.
+    Object value = values.get(key);
+    if (value == null) {
+      return null;
+    }
+    SoyValueProvider provider = converter.apply(value);
+    converted.put((String) key, provider);
+    return provider;
+  }
+
+  @Override
+  public boolean containsKey(@Nullable Object key) {
+    return values.containsKey(key);
+  }
+
+  @Override
+  public int size() {
+    return values.size();
+  }
+
+  @Override
+  public Set<String> keySet() {
+    return values.keySet();
+  }
+
+  @Override
+  public void forEach(BiConsumer<? super String, ? super SoyValueProvider> action) {
+    for (String key : values.keySet()) {
+      action.accept(key, get(key));
+    }
+  }
+
+  @Override
+  public Set<Map.Entry<String, SoyValueProvider>> entrySet() {
+    return new AbstractSet<Map.Entry<String, SoyValueProvider>>() {
+      @Override
+      public Iterator<Map.Entry<String, SoyValueProvider>> iterator() {
+        return Iterators.transform(
+            values.keySet().iterator(), key -> Maps.immutableEntry(key, get(key)));
+      }
+
+      @Override
+      public int size() {
+        return values.size();
+      }
+    };
+  }
+}
@@ -21,6 +21,7 @@ import com.google.template.soy.data.SoyValueConverter;
 import com.google.template.soy.data.SoyValueProvider;
 import java.util.Iterator;
 import java.util.List;
+import java.util.function.Function;
 import javax.annotation.Nonnull;
 import javax.annotation.ParametersAreNonnullByDefault;
 
@@ -45,7 +46,18 @@ public final class ListImpl extends ListBackedList {
     return new ListImpl(providerList);
   }
 
-  private ListImpl(ImmutableList<? extends SoyValueProvider> providerList) {
+  /**
+   * Creates a Soy list implementation that is a view of the given list, converting each value with
+   * {@code converter} when it is first accessed.
+   */
+  @Nonnull
+  public static ListImpl forLazyList(
+      ImmutableList<?> values, Function<Object, ? extends SoyValueProvider> converter) {
+    return new ListImpl(new LazyConvertingList(values, converter));
+  }
+
+  /** The list must not be modifiable, since {@link #asJavaList} exposes it as is. */
+  private ListImpl(List<? extends SoyValueProvider> providerList) {
     super(providerList);
   }
 
@@ -19,7 +19,9 @@ package com.google.template.soy.data.internal;
 import static com.google.common.base.Preconditions.checkState;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.errorprone.annotations.CanIgnoreReturnValue;
 import com.google.errorprone.annotations.DoNotCall;
 import com.google.template.soy.data.RecordProperty;
@@ -27,20 +29,24 @@ import com.google.template.soy.data.SoyRecord;
 import com.google.template.soy.data.SoyValue;
 import com.google.template.soy.data.SoyValueProvider;
 import com.google.template.soy.data.restricted.UndefinedData;
-import java.util.Collection;
-import java.util.IdentityHashMap;
-import java.util.Map;
+import java.util.Arrays;
 import java.util.Set;
 import java.util.function.BiConsumer;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 /**
  * Internal-use param store for passing data in subtemplate calls.
  *
+ * <p>Params are held in dense slots, in the order they were first set. A template reads each of its
+ * own params with the ordinal the param has in its signature, so stores that are laid out in
+ * signature order, such as the ones built by generated {@code SoyTemplate} builders, are read
+ * without searching. Other stores are searched by identity, which for the handful of params most
+ * templates have is cheaper than hashing.
+ *
  * <p>Important: Do not use outside of Soy code (treat as superpackage-private).
  */
-public final class ParamStore extends IdentityHashMap<RecordProperty, SoyValueProvider>
-    implements BiConsumer<RecordProperty, SoyValueProvider> {
+public final class ParamStore implements BiConsumer<RecordProperty, SoyValueProvider> {
 
   public static ParamStore merge(ParamStore store1, ParamStore store2) {
     // Merging with empty stores is common due to the way we bind template literals.
@@ -52,8 +58,7 @@ public final class ParamStore extends IdentityHashMap<RecordProperty, SoyValuePr
     if (store2Size == 0) {
       return store1;
     }
-    var newStore = new ParamStore(store1Size + store2Size);
-    store1.forEach(newStore);
+    var newStore = new ParamStore(store1, store2Size);
     store2.forEach(newStore);
     return newStore.freeze();
   }
@@ -67,19 +72,57 @@ public final class ParamStore extends IdentityHashMap<RecordProperty, SoyValuePr
     return newStore.freeze();
   }
 
+  /** Stores with more slots than this find params with a hash index rather than a scan. */
+  private static final int MAX_SCANNED_SLOTS = 16;
+
+  private static final RecordProperty[] NO_KEYS = new RecordProperty[0];
+  private static final SoyValueProvider[] NO_VALUES = new SoyValueProvider[0];
+
+  private RecordProperty[] keys;
+  private SoyValueProvider[] values;
+  /** The number of slots in use. Slots laid out up front may not have a value yet. */
+  private int slotCount;
+  /** The number of slots with a value. */
+  private int size;
+  /**
+   * An open addressed table from the identity hash of each key to its slot plus one, or null while
+   * the store is small enough to scan.
+   */
+  @Nullable private int[] index;
+
   private boolean frozen;
 
   public ParamStore(ParamStore backingStore, int size) {
-    super(backingStore.size() + size);
-    backingStore.forEach(this);
+    this(backingStore.slotCount + size);
+    System.arraycopy(backingStore.keys, 0, keys, 0, backingStore.slotCount);
+    System.arraycopy(backingStore.values, 0, values, 0, backingStore.slotCount);
+    this.slotCount = backingStore.slotCount;
+    this.size = backingStore.size;
+    if (slotCount > MAX_SCANNED_SLOTS) {
+      rebuildIndex();
+    }
   }
 
   public ParamStore(int size) {
-    super(size);
+    this.keys = size == 0 ? NO_KEYS : new RecordProperty[size];
+    this.values = size == 0 ? NO_VALUES : new SoyValueProvider[size];
   }
 
   public ParamStore() {
-    super();
+    this(8);
+  }
+
+  /**
+   * Creates a store whose first slots are laid out for the given params, in order, so that a
+   * template whose signature declares them in the same order reads them without searching.
+   */
+  public ParamStore(ImmutableList<RecordProperty> slots) {
+    this(slots.size());
+    slots.toArray(keys);
+    this.slotCount = keys.length;
+    if (slotCount > MAX_SCANNED_SLOTS) {
+      rebuildIndex();
+    }
   }
 
   @CanIgnoreReturnValue
@@ -102,7 +145,7 @@ public final class ParamStore extends IdentityHashMap<RecordProperty, SoyValuePr
   public ParamStore setField(RecordProperty name, @Nonnull SoyValueProvider valueProvider) {
     checkState(!frozen);
     Preconditions.checkNotNull(valueProvider);
-    super.put(name, valueProvider);
+    put(name, valueProvider);
     return this;
   }
 
@@ -118,7 +161,7 @@ public final class ParamStore extends IdentityHashMap<RecordProperty, SoyValuePr
   public ParamStore setFieldCritical(RecordProperty name, @Nonnull SoyValueProvider valueProvider) {
     checkState(!frozen);
     Preconditions.checkNotNull(valueProvider);
-    SoyValueProvider previous = super.put(name, valueProvider);
+    SoyValueProvider previous = put(name, valueProvider);
     checkState(previous == null, "value already set for param %s", name);
     return this;
   }
@@ -130,21 +173,61 @@ public final class ParamStore extends IdentityHashMap<RecordProperty, SoyValuePr
     return this;
   }
 
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
   public boolean hasField(RecordProperty name) {
-    return super.containsKey(name);
+    return getFieldProvider(name) != null;
   }
 
+  @Nullable
   public SoyValueProvider getFieldProvider(RecordProperty name) {
-    return super.get(name);
+    int slot = slotOf(name);
+    return slot < 0 ? null : values[slot];
   }
 
   public SoyValueProvider getParameter(RecordProperty name) {
-    SoyValueProvider provider = super.get(name);
+    SoyValueProvider provider = getFieldProvider(name);
     return provider != null ? provider : UndefinedData.INSTANCE;
   }
 
   public SoyValueProvider getParameter(RecordProperty name, SoyValue defaultValue) {
-    return SoyValueProvider.withDefault(super.get(name), defaultValue);
+    return SoyValueProvider.withDefault(getFieldProvider(name), defaultValue);
+  }
+
+  /**
+   * Returns the param {@code name}, which is the {@code slot}th param of the template reading it,
+   * checking that slot before searching the rest of the store.
+   */
+  public SoyValueProvider getParameter(RecordProperty name, int slot) {
+    SoyValueProvider provider = getFieldProvider(name, slot);
+    return provider != null ? provider : UndefinedData.INSTANCE;
+  }
+
+  /** As {@link #getParameter(RecordProperty, int)}, with a default for when it is not set. */
+  public SoyValueProvider getParameter(RecordProperty name, int slot, SoyValue defaultValue) {
+    return SoyValueProvider.withDefault(getFieldProvider(name, slot), defaultValue);
+  }
+
+  @Nullable
+  private SoyValueProvider getFieldProvider(RecordProperty name, int slot) {
+    // Keys are unique, so a matching slot is the answer even when it holds no value.
+    return slot < slotCount && keys[slot] == name ? values[slot] : getFieldProvider(name);
+  }
+
+  /** Calls {@code action} with each field that has a value, in the order of their slots. */
+  public void forEach(BiConsumer<? super RecordProperty, ? super SoyValueProvider> action) {
+    for (int i = 0; i < slotCount; i++) {
+      SoyValueProvider value = values[i];
+      if (value != null) {
+        action.accept(keys[i], value);
+      }
+    }
   }
 
   public ImmutableMap<String, SoyValueProvider> asStringMap() {
@@ -154,10 +237,6 @@ public final class ParamStore extends IdentityHashMap<RecordProperty, SoyValuePr
     return builder.buildOrThrow();
   }
 
-  /**
-   * Arbitrary method override to allow toString to be called without throwing
-   * UnsupportedOperationException (since {@link Object#toString} uses {@link #hashCode}.
-   */
   @Override
   public String toString() {
     return getClass().toString();
@@ -173,8 +252,9 @@ public final class ParamStore extends IdentityHashMap<RecordProperty, SoyValuePr
     if (size() != otherStore.size()) {
       return false;
     }
-    for (var key : super.keySet()) {
-      if (!getFieldProvider(key).equals(otherStore.getFieldProvider(key))) {
+    for (int i = 0; i < slotCount; i++) {
+      SoyValueProvider value = values[i];
+      if (value != null && !value.equals(otherStore.getFieldProvider(keys[i]))) {
         return false;
       }
     }
@@ -185,66 +265,90 @@ public final class ParamStore extends IdentityHashMap<RecordProperty, SoyValuePr
   public int hashCode() {
     checkState(frozen);
     int result = 0;
-    for (var key : super.keySet()) {
-      // We accumulate with + to ensure we are associative (insensitive to ordering)
-      result += System.identityHashCode(key) ^ getFieldProvider(key).hashCode();
+    for (int i = 0; i < slotCount; i++) {
+      SoyValueProvider value = values[i];
+      if (value != null) {
+        // We accumulate with + to ensure we are associative (insensitive to ordering)
+        result += System.identityHashCode(keys[i]) ^ value.hashCode();
+      }
     }
     return result;
   }
 
   public Set<RecordProperty> properties() {
-    return super.keySet();
-  }
-
-  // Override base methods methods to clarify our api... too bad java doesn't have private
-  // inheritance
-
-  @DoNotCall
-  @Override
-  public SoyValueProvider put(RecordProperty property, SoyValueProvider value) {
-    throw new UnsupportedOperationException();
+    ImmutableSet.Builder<RecordProperty> builder = ImmutableSet.builderWithExpectedSize(size);
+    forEach((k, v) -> builder.add(k));
+    return builder.build();
   }
 
-  @DoNotCall
-  @Override
-  public void putAll(Map<? extends RecordProperty, ? extends SoyValueProvider> map) {
-    throw new UnsupportedOperationException();
-  }
-
-  @DoNotCall
-  @Override
-  public SoyValueProvider remove(Object property) {
-    throw new UnsupportedOperationException();
-  }
-
-  @DoNotCall
-  @Override
-  public void clear() {
-    throw new UnsupportedOperationException();
+  private int slotOf(RecordProperty name) {
+    int[] index = this.index;
+    if (index == null) {
+      RecordProperty[] keys = this.keys;
+      for (int i = 0; i < slotCount; i++) {
+        if (keys[i] == name) {
+          return i;
+        }
+      }
+      return -1;
+    }
+    int mask = index.length - 1;
+    for (int i = hash(name) & mask; ; i = (i + 1) & mask) {
+      int entry = index[i];
+      if (entry == 0) {
+        return -1;
+      }
+      if (keys[entry - 1] == name) {
+        return entry - 1;
+      }
+    }
   }
 
-  @DoNotCall
-  @Override
-  public Set<Map.Entry<RecordProperty, SoyValueProvider>> entrySet() {
-    throw new UnsupportedOperationException();
+  private SoyValueProvider put(RecordProperty name, SoyValueProvider value) {
+    int slot = slotOf(name);
+    if (slot < 0) {
+      slot = slotCount++;
+      if (slot == keys.length) {
+        int capacity = Math.max(4, slot * 2);
+        keys = Arrays.copyOf(keys, capacity);
+        values = Arrays.copyOf(values, capacity);
+      }
+      keys[slot] = name;
+      if (index != null && slotCount * 2 <= index.length) {
+        addToIndex(index, slot);
+      } else if (slotCount > MAX_SCANNED_SLOTS) {
+        rebuildIndex();
+      }
+    }
+    SoyValueProvider previous = values[slot];
+    values[slot] = value;
+    if (previous == null) {
+      size++;
+    }
+    return previous;
   }
 
-  @DoNotCall
-  @Override
-  public Set<RecordProperty> keySet() {
-    throw new UnsupportedOperationException();
+  private void rebuildIndex() {
+    // Keep the table at most half full.
+    int[] index = new int[Integer.highestOneBit(slotCount) << 2];
+    for (int i = 0; i < slotCount; i++) {
+      addToIndex(index, i);
+    }
+    this.index = index;
   }
 
-  @DoNotCall
-  @Override
-  public Collection<SoyValueProvider> values() {
-    throw new UnsupportedOperationException();
+  private void addToIndex(int[] index, int slot) {
+    int mask = index.length - 1;
+    int i = hash(keys[slot]) & mask;
+    while (index[i] != 0) {
+      i = (i + 1) & mask;
+    }
+    index[i] = slot + 1;
   }
 
-  @DoNotCall
-  @Override
-  public SoyValueProvider get(Object key) {
-    throw new UnsupportedOperationException();
+  private static int hash(RecordProperty name) {
+    int h = System.identityHashCode(name);
+    return h ^ (h >>> 16);
   }
 
   // Implements BiConsumer.accept
@@ -256,7 +360,7 @@ public final class ParamStore extends IdentityHashMap<RecordProperty, SoyValuePr
   @Deprecated
   @SuppressWarnings("Deprecated")
   public void accept(RecordProperty name, SoyValueProvider valueProvider) {
-    super.put(name, valueProvider);
+    put(name, valueProvider);
   }
 
   // -----------------------------------------------------------------------------------------------
@@ -28,6 +28,7 @@ import com.google.template.soy.data.SoyValueProvider;
 import com.google.template.soy.data.restricted.StringData;
 import java.io.IOException;
 import java.util.Map;
+import java.util.function.Function;
 
 /**
  * A simple legacy_object_map implementation.
@@ -35,12 +36,25 @@ import java.util.Map;
  * <p>Important: Do not use outside of Soy code (treat as superpackage-private).
  */
 public final class SoyLegacyObjectMapImpl extends SoyAbstractValue implements SoyLegacyObjectMap {
-  private final ImmutableMap<String, SoyValueProvider> map;
+  /**
+   * Returns a legacy object map over {@code values} which converts each value with {@code
+   * converter} when it is first read.
+   */
+  public static SoyLegacyObjectMapImpl forLazyMap(
+      ImmutableMap<String, ?> values, Function<Object, ? extends SoyValueProvider> converter) {
+    return new SoyLegacyObjectMapImpl(new LazyConvertingMap(values, converter));
+  }
+
+  private final Map<String, SoyValueProvider> map;
 
   public SoyLegacyObjectMapImpl(ImmutableMap<String, SoyValueProvider> map) {
     this.map = checkNotNull(map);
   }
 
+  private SoyLegacyObjectMapImpl(LazyConvertingMap map) {
+    this.map = map;
+  }
+
   @Override
   public int getItemCnt() {
     return map.size();
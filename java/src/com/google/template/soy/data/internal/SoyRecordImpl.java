@@ -98,7 +98,7 @@ public final class SoyRecordImpl extends SoyAbstractValue implements SoyRecord {
 
   @Override
   public boolean hasField(RecordProperty name) {
-    return map.containsKey(name);
+    return map.hasField(name);
   }
 
   @Override
@@ -23,6 +23,7 @@ import static com.google.template.soy.javagencode.javatypes.CodeGenUtils.AS_RECO
 import static com.google.template.soy.javagencode.javatypes.CodeGenUtils.INDIRECT_P;
 import static com.google.template.soy.javagencode.javatypes.CodeGenUtils.INIT_LIST_PARAM;
 import static com.google.template.soy.javagencode.javatypes.CodeGenUtils.INJECTED_P;
+import static com.google.template.soy.javagencode.javatypes.CodeGenUtils.PARAM_SLOTS;
 import static com.google.template.soy.javagencode.javatypes.CodeGenUtils.SET_PARAM_INTERNAL;
 import static com.google.template.soy.javagencode.javatypes.CodeGenUtils.STANDARD_P;
 import static com.google.template.soy.shared.internal.gencode.JavaGenerationUtils.appendFunctionCallWithParamsOnNewLines;
@@ -55,6 +56,7 @@ import com.google.template.soy.soytree.SoyFileNode;
 import com.google.template.soy.soytree.SoyFileSetNode;
 import com.google.template.soy.soytree.SoyNode;
 import com.google.template.soy.soytree.SoyTreeUtils;
+import com.google.template.soy.soytree.TemplateMetadata;
 import com.google.template.soy.soytree.TemplateNode;
 import com.google.template.soy.soytree.defn.TemplateHeaderVarDefn;
 import java.util.ArrayList;
@@ -79,6 +81,7 @@ public final class GenerateBuildersVisitor
   private static final String TEMPLATE_NAME_FIELD = "__NAME__";
   private static final String PARAMS_FIELD = "__PARAMS__";
   private static final String DEFAULT_INSTANCE_FIELD = "__DEFAULT_INSTANCE__";
+  private static final String PARAM_SLOTS_FIELD = "__PARAM_SLOTS__";
 
   private static final SoyErrorKind TYPE_COLLISION =
       SoyErrorKind.of(
@@ -448,10 +451,30 @@ public final class GenerateBuildersVisitor
     ilb.appendLine();
     ilb.increaseIndent();
 
+    // Lay the params out in the order of the template signature, which is the order the template
+    // reads them in.
+    ilb.appendLineStart(
+        "private static final"
+            + " com.google.common.collect.ImmutableList<com.google.template.soy.data.RecordProperty>"
+            + " "
+            + PARAM_SLOTS_FIELD
+            + " = ");
+    appendFunctionCallWithParamsOnNewLines(
+        ilb,
+        PARAM_SLOTS.toString(),
+        TemplateMetadata.fromTemplate(template.template())
+            .getTemplateType()
+            .getActualParameters()
+            .stream()
+            .map(p -> "\"" + p.getName() + "\"")
+            .collect(toList()));
+    ilb.appendLineEnd(";");
+    ilb.appendLine();
+
     // Constructor for Foo.Builder.
     ilb.appendLine("private Builder() {");
     ilb.increaseIndent();
-    ilb.appendLine("super(", nonInjectedParams.size(), ");");
+    ilb.appendLine("super(", PARAM_SLOTS_FIELD, ");");
     appendRecordListInitializations(ilb, nonInjectedParams);
     ilb.decreaseIndent();
     ilb.appendLine("}");
@@ -38,6 +38,7 @@ public final class CodeGenUtils {
   public static final Member INIT_LIST_PARAM =
       MethodImpl.method(AbstractBuilderWithAccumulatorParameters.class, "initListParam");
   public static final Member AS_RECORD = castFunction("asRecord");
+  public static final Member PARAM_SLOTS = MethodImpl.method(AbstractBuilder.class, "paramSlots");
 
   public static final Member STANDARD_P =
       MethodImpl.fullyQualifiedMethod(SoyTemplateParam.class, "standard");
@@ -61,6 +61,14 @@ public abstract class JavaType {
   /** Returns this type as a nullable type. Primitive should make sure to switch to a boxed type. */
   public abstract JavaType asNullable();
 
+  /**
+   * Whether converting values of this type can't fail, so that collections of them can be
+   * converted as their elements are read rather than when they are set.
+   */
+  boolean isLazilyConvertible() {
+    return false;
+  }
+
   /**
    * Returns a string that evaluates to a Function for converting values of the Java type to
    * SoyValueProviders.
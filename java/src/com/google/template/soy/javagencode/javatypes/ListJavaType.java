@@ -23,6 +23,9 @@ public final class ListJavaType extends JavaType {
   private static final CodeGenUtils.Member AS_LIST = CodeGenUtils.castFunction("asList");
   private static final CodeGenUtils.Member AS_NULLABLE_LIST =
       CodeGenUtils.castFunction("asNullableList");
+  private static final CodeGenUtils.Member AS_LAZY_LIST = CodeGenUtils.castFunction("asLazyList");
+  private static final CodeGenUtils.Member AS_NULLABLE_LAZY_LIST =
+      CodeGenUtils.castFunction("asNullableLazyList");
 
   public ListJavaType(JavaType elementType) {
     this(elementType, /* isNullable= */ false);
@@ -47,7 +50,11 @@ public final class ListJavaType extends JavaType {
 
   @Override
   public String asInlineCast(String variableName, int depth) {
-    return (isNullable() ? AS_NULLABLE_LIST : AS_LIST)
+    CodeGenUtils.Member asList =
+        elementType.isLazilyConvertible()
+            ? (isNullable() ? AS_NULLABLE_LAZY_LIST : AS_LAZY_LIST)
+            : (isNullable() ? AS_NULLABLE_LIST : AS_LIST);
+    return asList
         + "("
         + variableName
         + ", "
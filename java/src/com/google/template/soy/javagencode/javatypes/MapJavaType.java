@@ -26,6 +26,10 @@ public final class MapJavaType extends JavaType {
       CodeGenUtils.castFunction("asNullableLegacyObjectMap");
   public static final CodeGenUtils.Member AS_LEGACY_OBJECT_MAP =
       CodeGenUtils.castFunction("asLegacyObjectMap");
+  public static final CodeGenUtils.Member AS_NULLABLE_LAZY_LEGACY_OBJECT_MAP =
+      CodeGenUtils.castFunction("asNullableLazyLegacyObjectMap");
+  public static final CodeGenUtils.Member AS_LAZY_LEGACY_OBJECT_MAP =
+      CodeGenUtils.castFunction("asLazyLegacyObjectMap");
 
   private final JavaType keyType; // The type of the map's keys.
   private final JavaType valueType; // The type of the map's values.
@@ -78,6 +82,13 @@ public final class MapJavaType extends JavaType {
           + ", "
           + valueType.getAsInlineCastFunction(depth)
           + ")";
+    } else if (keyType == SimpleJavaType.STRING && valueType.isLazilyConvertible()) {
+      return (isNullable() ? AS_NULLABLE_LAZY_LEGACY_OBJECT_MAP : AS_LAZY_LEGACY_OBJECT_MAP)
+          + "("
+          + variableName
+          + ", "
+          + valueType.getAsInlineCastFunction(depth)
+          + ")";
     } else {
       return (isNullable() ? AS_NULLABLE_LEGACY_OBJECT_MAP : AS_LEGACY_OBJECT_MAP)
           + "("
@@ -16,6 +16,7 @@
 package com.google.template.soy.javagencode.javatypes;
 
 import com.google.protobuf.Descriptors.EnumDescriptor;
+import com.google.protobuf.Descriptors.FileDescriptor.Syntax;
 import com.google.template.soy.internal.proto.JavaQualifiedNames;
 
 /** Represents a proto enum for generated Soy Java invocation builders. */
@@ -49,6 +50,13 @@ public final class ProtoEnumJavaType extends JavaType {
     return new ProtoEnumJavaType(enumDescriptor, /* isNullable= */ true);
   }
 
+  @Override
+  boolean isLazilyConvertible() {
+    // Values of open (proto3) enums may be UNRECOGNIZED, whose number can't be read, so those are
+    // converted when they are set.
+    return !isNullable() && enumDescriptor.getFile().getSyntax() != Syntax.PROTO3;
+  }
+
   @Override
   public String getAsInlineCastFunction(int depth) {
     return "AbstractBuilder::" + getCastFunction();
@@ -49,6 +49,11 @@ public final class ProtoJavaType extends JavaType {
     return new ProtoJavaType(protoDescriptor, /* isNullable= */ true);
   }
 
+  @Override
+  boolean isLazilyConvertible() {
+    return !isNullable();
+  }
+
   @Override
   public String getAsInlineCastFunction(int depth) {
     return "AbstractBuilder::" + getCastFunction();
@@ -165,6 +165,17 @@ public class SimpleJavaType extends JavaType {
         javaTypeString, genericsTypeArgumentString, true, asReference, asNullableReference);
   }
 
+  @Override
+  boolean isLazilyConvertible() {
+    // Non-nullable types are always one of the constants.
+    return this == BOOLEAN
+        || this == INT
+        || this == FLOAT
+        || this == NUMBER
+        || this == STRING
+        || this == MESSAGE;
+  }
+
   @Override
   public String getAsInlineCastFunction(int depth) {
     return "AbstractBuilder::" + getMapperFunction();
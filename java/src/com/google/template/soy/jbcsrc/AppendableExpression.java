@@ -27,12 +27,15 @@ import com.google.template.soy.data.LogStatement;
 import com.google.template.soy.data.LoggingAdvisingAppendable;
 import com.google.template.soy.data.LoggingFunctionInvocation;
 import com.google.template.soy.data.SanitizedContent.ContentKind;
+import com.google.template.soy.jbcsrc.api.PreEncodedText;
 import com.google.template.soy.jbcsrc.restricted.BytecodeUtils;
 import com.google.template.soy.jbcsrc.restricted.CodeBuilder;
 import com.google.template.soy.jbcsrc.restricted.Expression;
+import com.google.template.soy.jbcsrc.restricted.JbcSrcPluginContext;
 import com.google.template.soy.jbcsrc.restricted.MethodRef;
 import com.google.template.soy.jbcsrc.restricted.MethodRefs;
 import com.google.template.soy.jbcsrc.restricted.SoyExpression;
+import com.google.template.soy.jbcsrc.restricted.SoyJbcSrcPrintDirective;
 import com.google.template.soy.jbcsrc.restricted.Statement;
 import java.util.List;
 import org.objectweb.asm.Label;
@@ -48,6 +51,10 @@ final class AppendableExpression extends Expression {
   private static final MethodRef APPEND_CHAR =
       MethodRef.createNonPure(LoggingAdvisingAppendable.class, "append", char.class);
 
+  private static final MethodRef APPEND_PRE_ENCODED =
+      MethodRef.createNonPure(
+          LoggingAdvisingAppendable.class, "appendPreEncoded", PreEncodedText.class);
+
   private static final MethodRef SOFT_LIMITED =
       MethodRef.createNonPure(LoggingAdvisingAppendable.class, "softLimitReached").asCheap();
 
@@ -127,6 +134,20 @@ final class AppendableExpression extends Expression {
     return withNewDelegate(delegate.invoke(APPEND, exp), true);
   }
 
+  /**
+   * Returns a similar {@link AppendableExpression} but with the result of applying the given print
+   * directive to the value appended to it.
+   */
+  AppendableExpression appendWithDirective(
+      SoyJbcSrcPrintDirective.AppendsDirectly directive,
+      JbcSrcPluginContext context,
+      SoyExpression value,
+      List<SoyExpression> args) {
+    Expression appended = directive.applyForJbcSrcAndAppend(context, value, delegate, args);
+    appended.checkAssignableTo(LOGGING_ADVISING_APPENDABLE_TYPE);
+    return withNewDelegate(appended, true);
+  }
+
   /**
    * Returns a similar {@link AppendableExpression} but with the given (char valued) expression
    * appended to it.
@@ -135,6 +156,14 @@ final class AppendableExpression extends Expression {
     return withNewDelegate(delegate.invoke(APPEND_CHAR, exp), true);
   }
 
+  /**
+   * Returns a similar {@link AppendableExpression} but with the given (PreEncodedText valued)
+   * expression appended to it.
+   */
+  AppendableExpression appendPreEncoded(Expression exp) {
+    return withNewDelegate(delegate.invoke(APPEND_PRE_ENCODED, exp), true);
+  }
+
   /** Returns an expression with the result of {@link AppendableExpression#softLimitReached}. */
   Expression softLimitReached() {
     checkArgument(supportsSoftLimiting);
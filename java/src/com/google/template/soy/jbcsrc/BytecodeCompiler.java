@@ -20,6 +20,8 @@ import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static java.nio.charset.StandardCharsets.UTF_8;
 
 import com.google.common.base.Joiner;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
@@ -33,6 +35,7 @@ import com.google.template.soy.exprtree.FunctionNode;
 import com.google.template.soy.internal.exemptions.NamespaceExemptions;
 import com.google.template.soy.jbcsrc.api.PluginRuntimeInstanceInfo;
 import com.google.template.soy.jbcsrc.internal.ClassData;
+import com.google.template.soy.jbcsrc.internal.MemoryClassLoader;
 import com.google.template.soy.jbcsrc.restricted.Flags;
 import com.google.template.soy.jbcsrc.shared.CompiledTemplates;
 import com.google.template.soy.jbcsrc.shared.Names;
@@ -47,11 +50,17 @@ import com.google.template.soy.soytree.TemplateNode;
 import com.google.template.soy.types.SoyTypeRegistry;
 import com.google.template.soy.types.TemplateType;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import javax.annotation.Nullable;
 
 /** The entry point to the {@code jbcsrc} compiler. */
 public final class BytecodeCompiler {
@@ -70,14 +79,132 @@ public final class BytecodeCompiler {
       ErrorReporter reporter,
       ImmutableMap<SourceLogicalPath, SoyFileSupplier> filePathsToSuppliers,
       SoyTypeRegistry typeRegistry) {
+    return compile(
+        registry, fileSet, reporter, filePathsToSuppliers, typeRegistry, /* executor= */ null);
+  }
+
+  /**
+   * Compiles all the templates in the given registry.
+   *
+   * @param registry All the templates to compile
+   * @param reporter The error reporter
+   * @param executor If non-null, all files are compiled eagerly and in parallel on this executor.
+   *     Otherwise classes are generated lazily as they are loaded.
+   * @return CompiledTemplates or {@code absent()} if compilation fails, in which case errors will
+   *     have been reported to the error reporter.
+   */
+  public static Optional<CompiledTemplates> compile(
+      FileSetMetadata registry,
+      SoyFileSetNode fileSet,
+      ErrorReporter reporter,
+      ImmutableMap<SourceLogicalPath, SoyFileSupplier> filePathsToSuppliers,
+      SoyTypeRegistry typeRegistry,
+      @Nullable Executor executor) {
+    return compile(
+        registry,
+        fileSet,
+        reporter,
+        filePathsToSuppliers,
+        typeRegistry,
+        executor,
+        /* classCache= */ null);
+  }
+
+  /**
+   * Compiles all the templates in the given registry.
+   *
+   * @param registry All the templates to compile
+   * @param reporter The error reporter
+   * @param executor If non-null, files are compiled in parallel on this executor.
+   * @param classCache If non-null, classes for unchanged files are loaded from this cache rather
+   *     than generated, and newly generated classes are added to it.
+   * @return CompiledTemplates or {@code absent()} if compilation fails, in which case errors will
+   *     have been reported to the error reporter.
+   */
+  public static Optional<CompiledTemplates> compile(
+      FileSetMetadata registry,
+      SoyFileSetNode fileSet,
+      ErrorReporter reporter,
+      ImmutableMap<SourceLogicalPath, SoyFileSupplier> filePathsToSuppliers,
+      SoyTypeRegistry typeRegistry,
+      @Nullable Executor executor,
+      @Nullable CompiledClassCache classCache) {
+    return compile(
+        registry,
+        fileSet,
+        reporter,
+        filePathsToSuppliers,
+        typeRegistry,
+        executor,
+        classCache,
+        /* profileTemplates= */ false);
+  }
+
+  /**
+   * Compiles all the templates in the given registry.
+   *
+   * @param registry All the templates to compile
+   * @param reporter The error reporter
+   * @param executor If non-null, files are compiled in parallel on this executor.
+   * @param classCache If non-null, classes for unchanged files are loaded from this cache rather
+   *     than generated, and newly generated classes are added to it.
+   * @param profileTemplates Whether every template reports when it starts and stops rendering to
+   *     the {@code TemplateProfiler} of the render, if any.
+   * @return CompiledTemplates or {@code absent()} if compilation fails, in which case errors will
+   *     have been reported to the error reporter.
+   */
+  public static Optional<CompiledTemplates> compile(
+      FileSetMetadata registry,
+      SoyFileSetNode fileSet,
+      ErrorReporter reporter,
+      ImmutableMap<SourceLogicalPath, SoyFileSupplier> filePathsToSuppliers,
+      SoyTypeRegistry typeRegistry,
+      @Nullable Executor executor,
+      @Nullable CompiledClassCache classCache,
+      boolean profileTemplates) {
     ErrorReporter.Checkpoint checkpoint = reporter.checkpoint();
+    ClassLoader loader;
+    // Classes are only generated lazily when there is nothing to gain from doing all the work up
+    // front.
+    if (executor == null && classCache == null) {
+      loader =
+          new CompilingClassLoader(
+              fileSet, filePathsToSuppliers, typeRegistry, registry, profileTemplates);
+    } else {
+      List<ClassData> classes = new ArrayList<>();
+      compileTemplates(
+          fileSet,
+          reporter,
+          typeRegistry,
+          new CompilerListener<RuntimeException>() {
+            @Override
+            void onCompile(ClassData clazz) {
+              classes.add(clazz);
+            }
+
+            @Override
+            void onCompileModifiableTemplate(String name) {}
+
+            @Override
+            void onFunctionCallFound(FunctionNode fnNode) {}
+          },
+          registry,
+          executor,
+          classCache,
+          profileTemplates,
+          filePathsToSuppliers);
+      if (reporter.errorsSince(checkpoint)) {
+        return Optional.empty();
+      }
+      loader = new MemoryClassLoader(classes);
+    }
     CompiledTemplates templates =
         new CompiledTemplates(
             /* delTemplateNames=*/ registry.getAllTemplates().stream()
                 .filter(BytecodeCompiler::isModTemplate)
                 .map(BytecodeCompiler::modImplName)
                 .collect(toImmutableSet()),
-            new CompilingClassLoader(fileSet, filePathsToSuppliers, typeRegistry, registry));
+            loader);
     if (reporter.errorsSince(checkpoint)) {
       return Optional.empty();
     }
@@ -123,6 +250,62 @@ public final class BytecodeCompiler {
       ByteSink sink,
       FileSetMetadata fileSetMetadata)
       throws IOException {
+    compileToJar(fileSet, reporter, typeRegistry, sink, fileSetMetadata, /* executor= */ null);
+  }
+
+  /**
+   * Compiles all the templates in the given registry to a jar file written to the given output
+   * stream.
+   *
+   * <p>If errors are encountered, the error reporter will be updated and we will return. The
+   * contents of any data written to the sink at that point are undefined.
+   *
+   * @param reporter The error reporter
+   * @param sink The output sink to write the JAR to.
+   * @param executor If non-null, classes for each file are generated in parallel on this executor.
+   *     The jar entries are written in the same order regardless.
+   */
+  public static void compileToJar(
+      SoyFileSetNode fileSet,
+      ErrorReporter reporter,
+      SoyTypeRegistry typeRegistry,
+      ByteSink sink,
+      FileSetMetadata fileSetMetadata,
+      @Nullable Executor executor)
+      throws IOException {
+    compileToJar(
+        fileSet,
+        reporter,
+        typeRegistry,
+        sink,
+        fileSetMetadata,
+        executor,
+        /* profileTemplates= */ false);
+  }
+
+  /**
+   * Compiles all the templates in the given registry to a jar file written to the given output
+   * stream.
+   *
+   * <p>If errors are encountered, the error reporter will be updated and we will return. The
+   * contents of any data written to the sink at that point are undefined.
+   *
+   * @param reporter The error reporter
+   * @param sink The output sink to write the JAR to.
+   * @param executor If non-null, classes for each file are generated in parallel on this executor.
+   *     The jar entries are written in the same order regardless.
+   * @param profileTemplates Whether every template reports when it starts and stops rendering to
+   *     the {@code TemplateProfiler} of the render, if any.
+   */
+  public static void compileToJar(
+      SoyFileSetNode fileSet,
+      ErrorReporter reporter,
+      SoyTypeRegistry typeRegistry,
+      ByteSink sink,
+      FileSetMetadata fileSetMetadata,
+      @Nullable Executor executor,
+      boolean profileTemplates)
+      throws IOException {
     try (SoyJarFileWriter writer = new SoyJarFileWriter(sink.openStream())) {
       Set<String> modTemplates = new TreeSet<>();
 
@@ -170,7 +353,11 @@ public final class BytecodeCompiler {
               }
             }
           },
-          fileSetMetadata);
+          fileSetMetadata,
+          executor,
+          /* classCache= */ null,
+          profileTemplates,
+          ImmutableMap.of());
       if (!modTemplates.isEmpty()) {
         String delData = Joiner.on('\n').join(modTemplates);
         writer.writeEntry(
@@ -258,30 +445,116 @@ public final class BytecodeCompiler {
       ErrorReporter errorReporter,
       SoyTypeRegistry typeRegistry,
       CompilerListener<E> listener,
-      FileSetMetadata fileSetMetadata)
+      FileSetMetadata fileSetMetadata,
+      @Nullable Executor executor,
+      @Nullable CompiledClassCache classCache,
+      boolean profileTemplates,
+      ImmutableMap<SourceLogicalPath, SoyFileSupplier> filePathsToSuppliers)
       throws E {
-    JavaSourceFunctionCompiler javaSourceFunctionCompiler =
-        new JavaSourceFunctionCompiler(typeRegistry, errorReporter);
-    for (SoyFileNode file : fileSet.getChildren()) {
-      for (ClassData clazz :
-          new SoyFileCompiler(file, javaSourceFunctionCompiler, fileSetMetadata).compile()) {
-        if (Flags.DEBUG) {
-          clazz.checkClass();
-        }
-        listener.onCompile(clazz);
+    if (executor == null) {
+      JavaSourceFunctionCompiler javaSourceFunctionCompiler =
+          new JavaSourceFunctionCompiler(typeRegistry, errorReporter);
+      for (SoyFileNode file : fileSet.getChildren()) {
+        notifyListener(
+            file,
+            compileFile(
+                file,
+                javaSourceFunctionCompiler,
+                errorReporter,
+                fileSetMetadata,
+                classCache,
+                profileTemplates,
+                filePathsToSuppliers),
+            listener);
       }
-      for (TemplateNode template : file.getTemplates()) {
-        TemplateMetadata metadata = TemplateMetadata.fromTemplate(template);
-        if (isModTemplate(metadata)) {
-          listener.onCompileModifiableTemplate(modImplName(metadata));
-        }
+      return;
+    }
+    // Each file is compiled independently with its own ErrorReporter. The results are then handed
+    // to the listener, and the errors copied to the real reporter, in file order so that the output
+    // is identical to a sequential compile.
+    List<SoyFileNode> files = fileSet.getChildren();
+    List<ErrorReporter> reporters = new ArrayList<>(files.size());
+    List<CompletableFuture<ImmutableList<ClassData>>> futures = new ArrayList<>(files.size());
+    for (SoyFileNode file : files) {
+      ErrorReporter fileReporter = ErrorReporter.create();
+      reporters.add(fileReporter);
+      futures.add(
+          CompletableFuture.supplyAsync(
+              () ->
+                  compileFile(
+                      file,
+                      new JavaSourceFunctionCompiler(typeRegistry, fileReporter),
+                      fileReporter,
+                      fileSetMetadata,
+                      classCache,
+                      profileTemplates,
+                      filePathsToSuppliers),
+              executor));
+    }
+    for (int i = 0; i < files.size(); i++) {
+      ImmutableList<ClassData> classes;
+      try {
+        classes = futures.get(i).join();
+      } catch (CompletionException e) {
+        Throwables.throwIfUnchecked(e.getCause());
+        throw new IllegalStateException(e.getCause());
+      }
+      reporters.get(i).copyTo(errorReporter);
+      notifyListener(files.get(i), classes, listener);
+    }
+  }
 
-        /* For each function call in the template, trigger the function call listener. */
-        for (FunctionNode fnNode : SoyTreeUtils.getAllNodesOfType(template, FunctionNode.class)) {
-          listener.onFunctionCallFound(fnNode);
+  private static ImmutableList<ClassData> compileFile(
+      SoyFileNode file,
+      JavaSourceFunctionCompiler javaSourceFunctionCompiler,
+      ErrorReporter reporter,
+      FileSetMetadata fileSetMetadata,
+      @Nullable CompiledClassCache classCache,
+      boolean profileTemplates,
+      ImmutableMap<SourceLogicalPath, SoyFileSupplier> filePathsToSuppliers) {
+    String cacheKey = null;
+    if (classCache != null) {
+      cacheKey =
+          classCache.key(
+              file, filePathsToSuppliers.get(file.getFilePath().asLogicalPath()), fileSetMetadata);
+      if (cacheKey != null) {
+        ImmutableList<ClassData> cached = classCache.read(cacheKey);
+        if (cached != null) {
+          return cached;
         }
       }
     }
+    ErrorReporter.Checkpoint checkpoint = reporter.checkpoint();
+    ImmutableList<ClassData> classes =
+        new SoyFileCompiler(file, javaSourceFunctionCompiler, fileSetMetadata, profileTemplates)
+            .compile();
+    if (Flags.DEBUG) {
+      for (ClassData clazz : classes) {
+        clazz.checkClass();
+      }
+    }
+    if (cacheKey != null && !reporter.errorsSince(checkpoint)) {
+      classCache.write(cacheKey, classes);
+    }
+    return classes;
+  }
+
+  private static <E extends Throwable> void notifyListener(
+      SoyFileNode file, ImmutableList<ClassData> classes, CompilerListener<E> listener) throws E {
+    for (ClassData clazz : classes) {
+      listener.onCompile(clazz);
+    }
+    for (TemplateNode template : file.getTemplates()) {
+      TemplateMetadata metadata = TemplateMetadata.fromTemplate(template);
+      if (isModTemplate(metadata)) {
+        listener.onCompileModifiableTemplate(modImplName(metadata));
+      }
+
+      /* For each function call in the template, trigger the function call listener. */
+      for (FunctionNode fnNode : SoyTreeUtils.getAllNodesOfType(template, FunctionNode.class)) {
+        listener.onFunctionCallFound(fnNode);
+      }
+    }
   }
 
   private BytecodeCompiler() {}
@@ -0,0 +1,302 @@
+/*
+ * Copyright 2024 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.jbcsrc;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Strings;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.MoreFiles;
+import com.google.protobuf.Descriptors.FileDescriptor;
+import com.google.template.soy.base.SourceLogicalPath;
+import com.google.template.soy.base.internal.SoyFileSupplier;
+import com.google.template.soy.jbcsrc.internal.ClassData;
+import com.google.template.soy.jbcsrc.restricted.TypeInfo;
+import com.google.template.soy.soytree.FileMetadata;
+import com.google.template.soy.soytree.FileSetMetadata;
+import com.google.template.soy.soytree.ImportNode;
+import com.google.template.soy.soytree.SoyFileNode;
+import com.google.template.soy.soytree.TemplateMetadata;
+import com.google.template.soy.soytree.defn.ImportedVar;
+import com.google.template.soy.types.ProtoEnumImportType;
+import com.google.template.soy.types.ProtoExtensionImportType;
+import com.google.template.soy.types.ProtoImportType;
+import com.google.template.soy.types.ProtoModuleImportType;
+import com.google.template.soy.types.SoyProtoType;
+import com.google.template.soy.types.SoyType;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.CodeSource;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import javax.annotation.Nullable;
+
+/**
+ * A content addressed, on disk cache of the classes generated for each Soy file.
+ *
+ * <p>Entries are keyed by a hash of the file content, a fingerprint of the compiler options and the
+ * resolved signatures of everything the file imports. So editing a template body only invalidates
+ * the entry for its own file, while changing the signature of a template invalidates the files
+ * that import it.
+ *
+ * <p>The cache is best effort: unreadable entries are treated as misses and failures to write an
+ * entry are logged and otherwise ignored. Entries are written atomically so a single directory may
+ * be shared by concurrent compilers. Entries are never evicted.
+ *
+ * <p>The key also includes a fingerprint of the jar, or class directory, that the compiler itself
+ * was loaded from, so upgrading Soy invalidates every entry. The key cannot capture the
+ * implementation of plugins, so the directory should be cleared when a plugin's code generation
+ * changes.
+ */
+public final class CompiledClassCache {
+  private static final Logger logger = Logger.getLogger(CompiledClassCache.class.getName());
+
+  /** Bump this whenever the entry format or the key computation changes. */
+  private static final int FORMAT_VERSION = 2;
+
+  private static final String SUFFIX = ".classes";
+
+  /** Identifies the implementation of the compiler and of the runtime it generates code for. */
+  private static final Supplier<String> COMPILER_IDENTITY =
+      Suppliers.memoize(() -> compilerIdentity(CompiledClassCache.class));
+
+  /**
+   * Creates a cache backed by the given directory.
+   *
+   * @param directory The directory to store entries in. It is created on first write.
+   * @param compilerFingerprint A string describing all the compiler options that can affect code
+   *     generation.
+   */
+  public static CompiledClassCache create(Path directory, String compilerFingerprint) {
+    return new CompiledClassCache(directory, compilerFingerprint);
+  }
+
+  private final Path directory;
+  private final String compilerFingerprint;
+
+  private CompiledClassCache(Path directory, String compilerFingerprint) {
+    this.directory = checkNotNull(directory);
+    this.compilerFingerprint = checkNotNull(compilerFingerprint);
+  }
+
+  /**
+   * Returns the cache key for the given file, or {@code null} if one cannot be computed, in which
+   * case the file should just be compiled.
+   */
+  @Nullable
+  String key(
+      SoyFileNode file, @Nullable SoyFileSupplier supplier, FileSetMetadata fileSetMetadata) {
+    if (supplier == null) {
+      return null;
+    }
+    Hasher hasher =
+        Hashing.sha256()
+            .newHasher()
+            .putInt(FORMAT_VERSION)
+            .putString(COMPILER_IDENTITY.get(), UTF_8)
+            .putString(compilerFingerprint, UTF_8)
+            .putString(file.getFilePath().path(), UTF_8);
+    try {
+      hasher.putString(supplier.asCharSource().read(), UTF_8);
+    } catch (IOException e) {
+      return null;
+    }
+    Set<FileDescriptor> protoFiles = new LinkedHashSet<>();
+    for (ImportNode importNode : file.getImports()) {
+      hasher.putString(importNode.getPath(), UTF_8).putInt(importNode.getImportType().ordinal());
+      if (importNode.getImportType() == ImportNode.ImportType.TEMPLATE) {
+        putFileSignature(hasher, fileSetMetadata, importNode.getSourceFilePath());
+      }
+      for (ImportedVar var : importNode.getIdentifiers()) {
+        hasher.putString(var.name(), UTF_8);
+        if (var.hasType()) {
+          addProtoFile(var.type(), protoFiles);
+        }
+      }
+    }
+    // Generated code depends on the layout of the imported protos, and of the protos they use.
+    Deque<FileDescriptor> toVisit = new ArrayDeque<>(protoFiles);
+    while (!toVisit.isEmpty()) {
+      for (FileDescriptor dep : toVisit.pop().getDependencies()) {
+        if (protoFiles.add(dep)) {
+          toVisit.add(dep);
+        }
+      }
+    }
+    for (FileDescriptor protoFile : protoFiles) {
+      hasher.putBytes(protoFile.toProto().toByteArray());
+    }
+    return hasher.hash().toString();
+  }
+
+  private static String compilerIdentity(Class<?> compilerClass) {
+    CodeSource codeSource = compilerClass.getProtectionDomain().getCodeSource();
+    if (codeSource != null && codeSource.getLocation() != null) {
+      try {
+        return fingerprintLocation(Paths.get(codeSource.getLocation().toURI()));
+      } catch (URISyntaxException | IOException | RuntimeException e) {
+        logger.log(Level.WARNING, "Failed to fingerprint the compiler at: " + codeSource, e);
+      }
+    }
+    // Without a fingerprint entries can only be shared within this process.
+    return UUID.randomUUID().toString();
+  }
+
+  /**
+   * Returns a fingerprint of the jar or class directory at the given location.
+   *
+   * <p>Jars are hashed by content. Directories, which are only used during development, are hashed
+   * by the names, sizes and modification times of the files in them, to avoid reading them all.
+   */
+  @VisibleForTesting
+  static String fingerprintLocation(Path location) throws IOException {
+    if (!Files.isDirectory(location)) {
+      return MoreFiles.asByteSource(location).hash(Hashing.sha256()).toString();
+    }
+    Hasher hasher = Hashing.sha256().newHasher();
+    try (Stream<Path> files = Files.walk(location)) {
+      for (Path file : files.filter(Files::isRegularFile).sorted().collect(toImmutableList())) {
+        hasher
+            .putString(location.relativize(file).toString(), UTF_8)
+            .putLong(Files.size(file))
+            .putLong(Files.getLastModifiedTime(file).toMillis());
+      }
+    }
+    return hasher.hash().toString();
+  }
+
+  /** Adds everything that files importing the given Soy file may depend on to the hash. */
+  private static void putFileSignature(
+      Hasher hasher, FileSetMetadata fileSetMetadata, SourceLogicalPath path) {
+    FileMetadata fileMetadata = fileSetMetadata.getFile(path);
+    if (fileMetadata == null) {
+      return;
+    }
+    hasher.putString(fileMetadata.getNamespace(), UTF_8);
+    for (TemplateMetadata template : fileMetadata.getTemplates()) {
+      hasher
+          .putString(template.getTemplateName(), UTF_8)
+          .putString(template.getVisibility().name(), UTF_8)
+          .putString(Strings.nullToEmpty(template.getDelTemplateName()), UTF_8)
+          .putString(Strings.nullToEmpty(template.getDelTemplateVariant()), UTF_8)
+          .putString(Strings.nullToEmpty(template.getModName()), UTF_8)
+          .putBytes(template.getTemplateType().toProto().toByteArray());
+    }
+    for (FileMetadata.Constant constant : fileMetadata.getConstants()) {
+      hasher
+          .putString(constant.getName(), UTF_8)
+          .putBytes(constant.getType().toProto().toByteArray());
+    }
+    for (FileMetadata.Extern extern : fileMetadata.getExterns()) {
+      hasher
+          .putString(extern.getName(), UTF_8)
+          .putBytes(extern.getSignature().toProto().toByteArray());
+    }
+  }
+
+  private static void addProtoFile(SoyType type, Set<FileDescriptor> protoFiles) {
+    if (type instanceof SoyProtoType) {
+      protoFiles.add(((SoyProtoType) type).getDescriptor().getFile());
+    } else if (type instanceof ProtoImportType) {
+      protoFiles.add(((ProtoImportType) type).getDescriptor().getFile());
+    } else if (type instanceof ProtoModuleImportType) {
+      protoFiles.add(((ProtoModuleImportType) type).getDescriptor());
+    } else if (type instanceof ProtoEnumImportType) {
+      protoFiles.add(((ProtoEnumImportType) type).getDescriptor().getFile());
+    } else if (type instanceof ProtoExtensionImportType) {
+      protoFiles.add(((ProtoExtensionImportType) type).getDescriptor().getFile());
+    }
+  }
+
+  /** Returns the classes stored under the given key, or {@code null} if there are none. */
+  @Nullable
+  ImmutableList<ClassData> read(String key) {
+    Path entry = directory.resolve(key + SUFFIX);
+    try (DataInputStream in =
+        new DataInputStream(new BufferedInputStream(Files.newInputStream(entry)))) {
+      if (in.readInt() != FORMAT_VERSION) {
+        return null;
+      }
+      int numClasses = in.readInt();
+      ImmutableList.Builder<ClassData> classes = ImmutableList.builderWithExpectedSize(numClasses);
+      for (int i = 0; i < numClasses; i++) {
+        TypeInfo type = TypeInfo.create(in.readUTF(), in.readBoolean());
+        int numFields = in.readInt();
+        byte[] data = new byte[in.readInt()];
+        in.readFully(data);
+        classes.add(ClassData.create(type, data, numFields));
+      }
+      return classes.build();
+    } catch (NoSuchFileException e) {
+      return null;
+    } catch (IOException | RuntimeException e) {
+      logger.log(Level.WARNING, "Ignoring unreadable class cache entry: " + entry, e);
+      return null;
+    }
+  }
+
+  /** Stores the classes under the given key. */
+  void write(String key, List<ClassData> classes) {
+    Path entry = directory.resolve(key + SUFFIX);
+    try {
+      Files.createDirectories(directory);
+      Path tmp = Files.createTempFile(directory, key, ".tmp");
+      try {
+        try (DataOutputStream out =
+            new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+          out.writeInt(FORMAT_VERSION);
+          out.writeInt(classes.size());
+          for (ClassData clazz : classes) {
+            out.writeUTF(clazz.type().className());
+            out.writeBoolean(clazz.type().isInterface());
+            out.writeInt(clazz.numberOfFields());
+            out.writeInt(clazz.data().length);
+            out.write(clazz.data());
+          }
+        }
+        Files.move(tmp, entry, StandardCopyOption.ATOMIC_MOVE);
+      } finally {
+        Files.deleteIfExists(tmp);
+      }
+    } catch (IOException e) {
+      logger.log(Level.WARNING, "Failed to write class cache entry: " + entry, e);
+    }
+  }
+}
@@ -16,6 +16,7 @@
 
 package com.google.template.soy.jbcsrc;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
 import com.google.template.soy.base.SourceLogicalPath;
@@ -38,40 +39,70 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import javax.annotation.concurrent.GuardedBy;
 
-/** A classloader that can compile templates on demand. */
+/**
+ * A classloader that can compile templates on demand.
+ *
+ * <p>Each file is compiled the first time one of its classes is loaded. This is safe to use from
+ * many threads: loads of classes from different files compile concurrently, while concurrent loads
+ * from the same file share a single compilation.
+ */
 final class CompilingClassLoader extends AbstractMemoryClassLoader {
+  static {
+    // Class loading locks are per class name, compilation is deduplicated per file by LazyFile.
+    ClassLoader.registerAsParallelCapable();
+  }
+
   // Synchronized hashmap is sufficient for our usecase since we are only calling remove(), CHM
   // would just use more memory.
   private final Map<String, ClassData> classesByName = Collections.synchronizedMap(new HashMap<>());
 
   private final ErrorFormatter errorFormatter;
-  private final ImmutableMap<String, SoyFileNode> javaClassNameToFile;
+  private final ImmutableMap<String, LazyFile> javaClassNameToFile;
   private final SoyTypeRegistry typeRegistry;
   private final FileSetMetadata fileSetMetadata;
+  private final boolean profileTemplates;
 
   CompilingClassLoader(
       SoyFileSetNode fileSet,
       ImmutableMap<SourceLogicalPath, SoyFileSupplier> filePathsToSuppliers,
       SoyTypeRegistry typeRegistry,
       FileSetMetadata fileSetMetadata) {
-    Map<String, SoyFileNode> javaClassNameToFile = new LinkedHashMap<>();
+    this(
+        fileSet,
+        filePathsToSuppliers,
+        typeRegistry,
+        fileSetMetadata,
+        /* profileTemplates= */ false);
+  }
+
+  CompilingClassLoader(
+      SoyFileSetNode fileSet,
+      ImmutableMap<SourceLogicalPath, SoyFileSupplier> filePathsToSuppliers,
+      SoyTypeRegistry typeRegistry,
+      FileSetMetadata fileSetMetadata,
+      boolean profileTemplates) {
+    Map<String, LazyFile> javaClassNameToFile = new LinkedHashMap<>();
     for (SoyFileNode file : fileSet.getChildren()) {
+      // All the classes of a file share one LazyFile, so that it is only compiled once.
+      LazyFile lazyFile = new LazyFile(file);
       if (NamespaceExemptions.isKnownDuplicateNamespace(file.getNamespace())) {
         // TODO(b/180904763):For the vast majority of files all templates share the same class, but
         // there are some exceptions due to this bug.  Remove this loop when that is cleaned up.
         for (TemplateNode template : file.getTemplates()) {
           javaClassNameToFile.put(
-              Names.javaClassNameFromSoyTemplateName(template.getTemplateName()), file);
+              Names.javaClassNameFromSoyTemplateName(template.getTemplateName()), lazyFile);
         }
       } else {
-        javaClassNameToFile.put(Names.javaClassNameFromSoyNamespace(file.getNamespace()), file);
+        javaClassNameToFile.put(Names.javaClassNameFromSoyNamespace(file.getNamespace()), lazyFile);
       }
     }
     this.errorFormatter = ErrorFormatterImpl.create().withSources(filePathsToSuppliers);
     this.javaClassNameToFile = ImmutableMap.copyOf(javaClassNameToFile);
     this.typeRegistry = typeRegistry;
     this.fileSetMetadata = fileSetMetadata;
+    this.profileTemplates = profileTemplates;
   }
 
   @Override
@@ -86,33 +117,71 @@ final class CompilingClassLoader extends AbstractMemoryClassLoader {
       return classDef;
     }
     // We haven't already compiled it (and haven't already loaded it) so try to find the matching
-    // template.
+    // file.
 
-    // For each template we compile there is only one 'public' class that could be loaded prior
-    // to compiling the template, CompiledTemplate itself.
-    SoyFileNode node = javaClassNameToFile.get(name);
-    if (node == null) {
+    // For each file we compile there is only one 'public' class that could be loaded prior to
+    // compiling the file, the class holding the templates.
+    LazyFile file = javaClassNameToFile.get(name);
+    if (file == null) {
       // typo in template name?
       return null;
     }
-    ClassData clazzToLoad = null;
-    ErrorReporter reporter = ErrorReporter.create();
-    for (ClassData clazz :
-        new SoyFileCompiler(
-                node, new JavaSourceFunctionCompiler(typeRegistry, reporter), fileSetMetadata)
-            .compile()) {
-      String className = clazz.type().className();
-      if (className.equals(name)) {
-        clazzToLoad = clazz;
-      } else {
-        classesByName.put(className, clazz);
+    file.ensureCompiled();
+    return classesByName.remove(name);
+  }
+
+  @Override
+  public String getDebugInfoForClass(String className) {
+    // The class data is dropped once a class is loaded, so compile the file again to describe it.
+    LazyFile file = javaClassNameToFile.get(className);
+    if (file == null) {
+      return null;
+    }
+    for (ClassData clazz : compile(file.node)) {
+      if (clazz.type().className().equals(className)) {
+        return "Class Data:\n" + clazz;
       }
     }
+    return null;
+  }
+
+  private ImmutableList<ClassData> compile(SoyFileNode node) {
+    ErrorReporter reporter = ErrorReporter.create();
+    ImmutableList<ClassData> classes =
+        new SoyFileCompiler(
+                node,
+                new JavaSourceFunctionCompiler(typeRegistry, reporter),
+                fileSetMetadata,
+                profileTemplates)
+            .compile();
     if (reporter.hasErrors()) {
       // if we are reporting errors we should report warnings at the same time.
       Iterable<SoyError> errors = Iterables.concat(reporter.getErrors(), reporter.getWarnings());
       throw new SoyCompilationException(errors, errorFormatter);
     }
-    return clazzToLoad;
+    return classes;
+  }
+
+  /** A file that is compiled at most once, by the first thread to need one of its classes. */
+  private final class LazyFile {
+    final SoyFileNode node;
+
+    @GuardedBy("this")
+    boolean compiled;
+
+    LazyFile(SoyFileNode node) {
+      this.node = node;
+    }
+
+    synchronized void ensureCompiled() {
+      if (compiled) {
+        return;
+      }
+      // If compilation fails we stay uncompiled, so every load reports the errors.
+      for (ClassData clazz : compile(node)) {
+        classesByName.put(clazz.type().className(), clazz);
+      }
+      compiled = true;
+    }
   }
 }
@@ -16,6 +16,7 @@
 package com.google.template.soy.jbcsrc;
 
 import static com.google.template.soy.jbcsrc.restricted.BytecodeUtils.constant;
+import static com.google.template.soy.jbcsrc.restricted.BytecodeUtils.constantRenamingId;
 
 import com.google.common.collect.ImmutableList;
 import com.google.template.soy.data.LoggingAdvisingAppendable;
@@ -31,6 +32,7 @@ import com.google.template.soy.jbcsrc.restricted.MethodRefs;
 import com.google.template.soy.jbcsrc.restricted.SoyExpression;
 import com.google.template.soy.jbcsrc.restricted.SoyJbcSrcPrintDirective;
 import com.google.template.soy.jbcsrc.restricted.Statement;
+import com.google.template.soy.jbcsrc.shared.RenamingMemo;
 import com.google.template.soy.jbcsrc.shared.RenderContext;
 import com.google.template.soy.jbcsrc.shared.StackFrame;
 import com.google.template.soy.shared.restricted.SoyPrintDirective;
@@ -108,14 +110,16 @@ final class RenderContextExpression extends Expression implements JbcSrcPluginCo
           .asNonJavaNullable();
 
   private static final MethodRef RENAME_CSS_SELECTOR =
-      MethodRef.createNonPure(RenderContext.class, "renameCssSelector", String.class)
+      MethodRef.createNonPure(
+              RenderContext.class, "renameCssSelector", String.class, RenamingMemo.Id.class)
           .asNonJavaNullable();
 
   private static final MethodRef EVAL_TOGGLE =
       MethodRef.createNonPure(RenderContext.class, "evalToggle", String.class);
 
   private static final MethodRef RENAME_XID =
-      MethodRef.createNonPure(RenderContext.class, "renameXid", String.class).asNonJavaNullable();
+      MethodRef.createNonPure(RenderContext.class, "renameXid", String.class, RenamingMemo.Id.class)
+          .asNonJavaNullable();
 
   private static final MethodRef USE_PRIMARY_MSG_IF_FALLBACK =
       MethodRef.createNonPure(
@@ -235,11 +239,11 @@ final class RenderContextExpression extends Expression implements JbcSrcPluginCo
   }
 
   Expression renameXid(String value) {
-    return delegate.invoke(RENAME_XID, constant(value));
+    return delegate.invoke(RENAME_XID, constant(value), constantRenamingId(value));
   }
 
   Expression renameCss(String value) {
-    return delegate.invoke(RENAME_CSS_SELECTOR, constant(value));
+    return delegate.invoke(RENAME_CSS_SELECTOR, constant(value), constantRenamingId(value));
   }
 
   Expression evalToggle(String toggleName) {
@@ -43,14 +43,28 @@ final class SoyFileCompiler {
   private final SoyFileNode fileNode;
   private final JavaSourceFunctionCompiler javaSourceFunctionCompiler;
   private final FileSetMetadata fileSetMetadata;
+  private final boolean profileTemplates;
 
   SoyFileCompiler(
       SoyFileNode fileNode,
       JavaSourceFunctionCompiler javaSourceFunctionCompiler,
       FileSetMetadata fileSetMetadata) {
+    this(fileNode, javaSourceFunctionCompiler, fileSetMetadata, /* profileTemplates= */ false);
+  }
+
+  /**
+   * @param profileTemplates Whether to surround each template with probes that report to the
+   *     {@link com.google.template.soy.jbcsrc.shared.RenderContext}.
+   */
+  SoyFileCompiler(
+      SoyFileNode fileNode,
+      JavaSourceFunctionCompiler javaSourceFunctionCompiler,
+      FileSetMetadata fileSetMetadata,
+      boolean profileTemplates) {
     this.fileNode = fileNode;
     this.javaSourceFunctionCompiler = javaSourceFunctionCompiler;
     this.fileSetMetadata = fileSetMetadata;
+    this.profileTemplates = profileTemplates;
   }
 
   ImmutableList<ClassData> compile() {
@@ -81,7 +95,8 @@ final class SoyFileCompiler {
                           typeWriter.fields(),
                           typeWriter.innerMethods(),
                           javaSourceFunctionCompiler,
-                          fileSetMetadata)
+                          fileSetMetadata,
+                          profileTemplates)
                       .compile();
                   return typeWriter;
                 })
@@ -113,7 +128,8 @@ final class SoyFileCompiler {
                         typeWriter.fields(),
                         typeWriter.innerMethods(),
                         javaSourceFunctionCompiler,
-                        fileSetMetadata)
+                        fileSetMetadata,
+                        profileTemplates)
                     .compile();
               }
             });
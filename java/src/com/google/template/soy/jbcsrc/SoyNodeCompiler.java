@@ -29,6 +29,7 @@ import static com.google.template.soy.jbcsrc.restricted.BytecodeUtils.SOY_VALUE_
 import static com.google.template.soy.jbcsrc.restricted.BytecodeUtils.STACK_FRAME_TYPE;
 import static com.google.template.soy.jbcsrc.restricted.BytecodeUtils.compareSoySwitchCaseEquals;
 import static com.google.template.soy.jbcsrc.restricted.BytecodeUtils.constant;
+import static com.google.template.soy.jbcsrc.restricted.BytecodeUtils.constantPreEncodedText;
 import static java.util.function.Function.identity;
 import static org.objectweb.asm.commons.GeneratorAdapter.EQ;
 
@@ -66,6 +67,7 @@ import com.google.template.soy.jbcsrc.restricted.FieldRef;
 import com.google.template.soy.jbcsrc.restricted.MethodRef;
 import com.google.template.soy.jbcsrc.restricted.MethodRefs;
 import com.google.template.soy.jbcsrc.restricted.SoyExpression;
+import com.google.template.soy.jbcsrc.restricted.SoyJbcSrcPrintDirective;
 import com.google.template.soy.jbcsrc.restricted.Statement;
 import com.google.template.soy.jbcsrc.restricted.TypeInfo;
 import com.google.template.soy.jbcsrc.shared.ClassLoaderFallbackCallFactory;
@@ -843,6 +845,13 @@ final class SoyNodeCompiler extends AbstractReturningSoyNodeVisitor<Statement> {
     // otherwise we need to apply some non-streaming print directives, or the expression would
     // require boxing to be a print directive (which usually means it is quite trivial).
     Label reattachPoint = new Label();
+    int numDirectives = node.numChildren();
+    if (numDirectives > 0
+        && node.getChild(numDirectives - 1).getPrintDirective()
+            instanceof SoyJbcSrcPrintDirective.AppendsDirectly) {
+      // The last directive, typically an escaper, can write its result straight to the output.
+      return compilePrintNodeAsAppend(node, reattachPoint);
+    }
     SoyExpression value = compilePrintNodeAsExpression(node, reattachPoint);
     if (value.isBoxed()) {
       return value
@@ -883,13 +892,35 @@ final class SoyNodeCompiler extends AbstractReturningSoyNodeVisitor<Statement> {
         .toStatement();
   }
 
+  private Statement compilePrintNodeAsAppend(PrintNode node, Label reattachPoint) {
+    BasicExpressionCompiler basic =
+        exprCompiler.asBasicCompiler(detachState.createExpressionDetacher(reattachPoint));
+    List<PrintDirectiveNode> directives = node.getChildren();
+    PrintDirectiveNode last = directives.get(directives.size() - 1);
+    SoyExpression value =
+        applyPrintDirectives(
+            basic, basic.compile(node.getExpr()), directives.subList(0, directives.size() - 1));
+    return appendableExpression
+        .appendWithDirective(
+            (SoyJbcSrcPrintDirective.AppendsDirectly) last.getPrintDirective(),
+            parameterLookup.getPluginContext(),
+            value,
+            basic.compileToList(last.getArgs()))
+        .labelStart(reattachPoint)
+        .toStatement();
+  }
+
   private SoyExpression compilePrintNodeAsExpression(PrintNode node, Label reattachPoint) {
     BasicExpressionCompiler basic =
         exprCompiler.asBasicCompiler(detachState.createExpressionDetacher(reattachPoint));
-    SoyExpression value = basic.compile(node.getExpr());
+    return applyPrintDirectives(basic, basic.compile(node.getExpr()), node.getChildren());
+  }
+
+  private SoyExpression applyPrintDirectives(
+      BasicExpressionCompiler basic, SoyExpression value, List<PrintDirectiveNode> directives) {
     // We may have print directives, that means we need to pass the render value through a bunch of
     // SoyJavaPrintDirective.apply methods.  This means lots and lots of boxing.
-    for (PrintDirectiveNode printDirective : node.getChildren()) {
+    for (PrintDirectiveNode printDirective : directives) {
       value =
           parameterLookup
               .getRenderContext()
@@ -1003,7 +1034,7 @@ final class SoyNodeCompiler extends AbstractReturningSoyNodeVisitor<Statement> {
     if (node.getRawText().length() == 1) {
       render = appendableExpression.appendChar(constant(node.getRawText().charAt(0)));
     } else {
-      render = appendableExpression.appendString(constant(node.getRawText()));
+      render = appendableExpression.appendPreEncoded(constantPreEncodedText(node.getRawText()));
     }
     return render.toStatement();
   }
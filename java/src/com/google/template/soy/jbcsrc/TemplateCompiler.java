@@ -27,6 +27,7 @@ import static java.util.stream.Collectors.toCollection;
 
 import com.google.auto.value.AutoAnnotation;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Sets;
 import com.google.template.soy.data.SanitizedContent.ContentKind;
@@ -46,10 +47,13 @@ import com.google.template.soy.jbcsrc.restricted.Expression;
 import com.google.template.soy.jbcsrc.restricted.FieldRef;
 import com.google.template.soy.jbcsrc.restricted.LocalVariable;
 import com.google.template.soy.jbcsrc.restricted.MethodRef;
+import com.google.template.soy.jbcsrc.restricted.MethodRef.MethodPureness;
 import com.google.template.soy.jbcsrc.restricted.MethodRefs;
 import com.google.template.soy.jbcsrc.restricted.SoyExpression;
 import com.google.template.soy.jbcsrc.restricted.Statement;
 import com.google.template.soy.jbcsrc.shared.CompiledTemplateMetaFactory;
+import com.google.template.soy.jbcsrc.shared.RenderContext;
+import com.google.template.soy.jbcsrc.shared.StackFrame;
 import com.google.template.soy.jbcsrc.shared.TemplateMetadata;
 import com.google.template.soy.soytree.CallDelegateNode;
 import com.google.template.soy.soytree.FileSetMetadata;
@@ -68,6 +72,7 @@ import com.google.template.soy.types.TemplateType.Parameter;
 import com.google.template.soy.types.UndefinedType;
 import java.lang.invoke.MethodHandles;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.IdentityHashMap;
 import java.util.List;
@@ -78,6 +83,7 @@ import javax.annotation.Nullable;
 import org.objectweb.asm.ConstantDynamic;
 import org.objectweb.asm.Label;
 import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
 import org.objectweb.asm.commons.Method;
 
 /**
@@ -98,6 +104,7 @@ final class TemplateCompiler {
   private final TemplateAnalysis analysis;
   private final JavaSourceFunctionCompiler javaSourceFunctionCompiler;
   private final FileSetMetadata fileSetMetadata;
+  private final boolean profileTemplates;
 
   TemplateCompiler(
       TemplateNode templateNode,
@@ -105,7 +112,8 @@ final class TemplateCompiler {
       FieldManager fields,
       InnerMethods innerClasses,
       JavaSourceFunctionCompiler javaSourceFunctionCompiler,
-      FileSetMetadata fileSetMetadata) {
+      FileSetMetadata fileSetMetadata,
+      boolean profileTemplates) {
     this.template = CompiledTemplateMetadata.create(templateNode, fileSetMetadata);
     this.templateNode = templateNode;
     this.writer = writer;
@@ -114,6 +122,7 @@ final class TemplateCompiler {
     this.analysis = TemplateAnalysisImpl.analyze(templateNode);
     this.javaSourceFunctionCompiler = javaSourceFunctionCompiler;
     this.fileSetMetadata = fileSetMetadata;
+    this.profileTemplates = profileTemplates;
   }
 
   /**
@@ -158,6 +167,13 @@ final class TemplateCompiler {
           String.class,
           Class.class);
 
+  private static final MethodRef RENDER_CONTEXT_ENTER_TEMPLATE =
+      MethodRef.createNonPure(
+          RenderContext.class, "enterTemplate", String.class, StackFrame.class);
+
+  private static final MethodRef RENDER_CONTEXT_EXIT_TEMPLATE =
+      MethodRef.createNonPure(RenderContext.class, "exitTemplate");
+
   /** Write the function "templateMethod", which returns a reference to "renderMethod". */
   private void generateTemplateMethod(MethodRef templateMethod, MethodRef renderMethod) {
     // Use constant dynamic to lazily allocate the template instance.
@@ -397,11 +413,13 @@ final class TemplateCompiler {
             StandardNames.RENDER_CONTEXT, 3, BytecodeUtils.RENDER_CONTEXT_TYPE, start, end);
     List<Expression> renderMethodArgs = new ArrayList<>();
     renderMethodArgs.add(stackFrame);
-    for (var param : template.templateType().getActualParameters()) {
+    var params = template.templateType().getActualParameters();
+    for (int i = 0; i < params.size(); i++) {
       renderMethodArgs.add(
           data.invoke(
-              MethodRefs.PARAM_STORE_GET_PARAMETER,
-              BytecodeUtils.constantRecordProperty(param.getName())));
+              MethodRefs.PARAM_STORE_GET_PARAMETER_SLOT,
+              BytecodeUtils.constantRecordProperty(params.get(i).getName()),
+              constant(i)));
     }
     renderMethodArgs.add(output);
     renderMethodArgs.add(context);
@@ -446,6 +464,12 @@ final class TemplateCompiler {
     }
     paramNames.add(StandardNames.APPENDABLE).add(StandardNames.RENDER_CONTEXT);
     Method method = template.positionalRenderMethod().orElse(template.renderMethod()).method();
+    Method bodyMethod = method;
+    if (profileTemplates) {
+      // The template is rendered by a private method, wrapped by one that runs the probes.
+      bodyMethod = new Method(method.getName() + "$body", method.getDescriptor());
+      generateProfilingWrapper(method, bodyMethod);
+    }
     TemplateVariableManager variableSet =
         new TemplateVariableManager(
             template.typeInfo().type(),
@@ -492,6 +516,7 @@ final class TemplateCompiler {
     TemplateVariableManager.Scope templateScope = variableSet.enterScope();
     List<Statement> paramInitStatements = new ArrayList<>();
     var referencedParams = getReferencedParams(templateNode);
+    var paramSlots = getParamSlots();
     for (TemplateParam param : templateNode.getAllParams()) {
       boolean isExplicitlyReferenced = referencedParams.contains(param);
       SoyExpression defaultValue =
@@ -510,7 +535,9 @@ final class TemplateCompiler {
           paramInitStatements.add(localVariable.initialize(initialValue));
         }
       } else if (paramsVar.isPresent()) {
-        initialValue = getFieldProviderOrDefault(param.name(), paramsVar.get(), defaultValue);
+        initialValue =
+            getFieldProviderOrDefault(
+                param.name(), paramSlots.get(param.name()), paramsVar.get(), defaultValue);
         if (isExplicitlyReferenced) {
           localVariable = templateScope.createNamedLocal(param.name(), initialValue.resultType());
           paramInitStatements.add(localVariable.initialize(initialValue));
@@ -555,6 +582,51 @@ final class TemplateCompiler {
 
         variableSet.generateTableEntries(adapter);
       }
+    }.writeIOExceptionMethod(
+        profileTemplates ? Opcodes.ACC_PRIVATE | Opcodes.ACC_STATIC : methodAccess(),
+        bodyMethod,
+        writer);
+  }
+
+  /**
+   * Writes {@code method} to call {@code bodyMethod} between calls to {@link
+   * RenderContext#enterTemplate} and {@link RenderContext#exitTemplate}.
+   *
+   * <p>Detaching returns from the body like completing does, so time spent paused is excluded and
+   * the probes run again when the template is resumed. The exit probe also runs if the body throws,
+   * so that the probes stay balanced when errors are caught by a caller.
+   */
+  private void generateProfilingWrapper(Method method, Method bodyMethod) {
+    MethodRef body =
+        MethodRef.createStaticMethod(template.typeInfo(), bodyMethod, MethodPureness.NON_PURE);
+    Type[] argTypes = method.getArgumentTypes();
+    // The StackFrame is the first argument and the RenderContext is the last.
+    int renderContextSlot =
+        Arrays.stream(argTypes, 0, argTypes.length - 1).mapToInt(Type::getSize).sum();
+    new Statement() {
+      @Override
+      protected void doGen(CodeBuilder cb) {
+        Label tryStart = new Label();
+        Label tryEnd = new Label();
+        Label handler = new Label();
+        cb.visitTryCatchBlock(tryStart, tryEnd, handler, null);
+        cb.visitVarInsn(Opcodes.ALOAD, renderContextSlot);
+        cb.pushString(templateNode.getTemplateName());
+        cb.visitVarInsn(Opcodes.ALOAD, 0);
+        RENDER_CONTEXT_ENTER_TEMPLATE.invokeUnchecked(cb);
+        cb.mark(tryStart);
+        cb.loadArgs();
+        body.invokeUnchecked(cb);
+        cb.mark(tryEnd);
+        cb.visitVarInsn(Opcodes.ALOAD, renderContextSlot);
+        RENDER_CONTEXT_EXIT_TEMPLATE.invokeUnchecked(cb);
+        cb.returnValue();
+        // In the handler the exception is at the top of the stack.
+        cb.mark(handler);
+        cb.visitVarInsn(Opcodes.ALOAD, renderContextSlot);
+        RENDER_CONTEXT_EXIT_TEMPLATE.invokeUnchecked(cb);
+        cb.throwException();
+      }
     }.writeIOExceptionMethod(methodAccess(), method, writer);
   }
 
@@ -602,17 +674,37 @@ final class TemplateCompiler {
     }
   }
 
+  /**
+   * Returns the ordinal of each parameter in the template signature, which is the slot callers that
+   * know the signature, such as generated {@code SoyTemplate} builders, store it in.
+   */
+  private ImmutableMap<String, Integer> getParamSlots() {
+    var params = template.templateType().getActualParameters();
+    ImmutableMap.Builder<String, Integer> slots =
+        ImmutableMap.builderWithExpectedSize(params.size());
+    for (int i = 0; i < params.size(); i++) {
+      slots.put(params.get(i).getName(), i);
+    }
+    return slots.buildOrThrow();
+  }
+
   private static Expression getFieldProviderOrDefault(
-      String name, Expression record, @Nullable SoyExpression defaultValue) {
+      String name,
+      @Nullable Integer slot,
+      Expression record,
+      @Nullable SoyExpression defaultValue) {
     // NOTE: for compatibility with Tofu and jssrc we do not check for missing required parameters
     // here instead they will just turn into UndefinedData.  Existing templates depend on this.
-    if (defaultValue == null) {
-      return MethodRefs.PARAM_STORE_GET_PARAMETER.invoke(
-          record, BytecodeUtils.constantRecordProperty(name));
-    } else {
-      return MethodRefs.PARAM_STORE_GET_PARAMETER_DEFAULT.invoke(
-          record, BytecodeUtils.constantRecordProperty(name), defaultValue.box());
+    Expression key = BytecodeUtils.constantRecordProperty(name);
+    if (slot == null) {
+      return defaultValue == null
+          ? MethodRefs.PARAM_STORE_GET_PARAMETER.invoke(record, key)
+          : MethodRefs.PARAM_STORE_GET_PARAMETER_DEFAULT.invoke(record, key, defaultValue.box());
     }
+    return defaultValue == null
+        ? MethodRefs.PARAM_STORE_GET_PARAMETER_SLOT.invoke(record, key, constant(slot))
+        : MethodRefs.PARAM_STORE_GET_PARAMETER_SLOT_DEFAULT.invoke(
+            record, key, constant(slot), defaultValue.box());
   }
 
   /**
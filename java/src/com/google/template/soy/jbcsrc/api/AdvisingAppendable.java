@@ -16,6 +16,7 @@
 
 package com.google.template.soy.jbcsrc.api;
 
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
 import java.io.IOException;
 
 /**
@@ -41,6 +42,15 @@ public interface AdvisingAppendable extends Appendable {
   @Override
   AdvisingAppendable append(char c) throws IOException;
 
+  /**
+   * Appends constant text whose UTF-8 encoding is already known. Appendables that write bytes can
+   * override this to copy the encoding rather than encode the text again.
+   */
+  @CanIgnoreReturnValue
+  default AdvisingAppendable appendPreEncoded(PreEncodedText text) throws IOException {
+    return append(text.toString());
+  }
+
   /**
    * Indicates that an internal limit has been reached or exceeded and that write operations should
    * be suspended <i>soon</i>.
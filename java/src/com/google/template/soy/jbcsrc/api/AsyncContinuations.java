@@ -0,0 +1,202 @@
+/*
+ * Copyright 2024 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.jbcsrc.api;
+
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.JdkFutureAdapters;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.template.soy.jbcsrc.api.SoySauce.Continuation;
+import com.google.template.soy.jbcsrc.api.SoySauce.WriteContinuation;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Drives continuations to completion without blocking, resuming them on an executor whenever the
+ * future that the render is waiting on, or the drain signal of a limited render, completes.
+ */
+final class AsyncContinuations {
+
+  /** A single step of a render, abstracting over the two continuation types. */
+  private interface Step<C, T> {
+    RenderResult result(C continuation);
+
+    C continueRender(C continuation) throws IOException;
+
+    T value(C continuation);
+  }
+
+  private static final Step<WriteContinuation, Void> WRITE_STEP =
+      new Step<WriteContinuation, Void>() {
+        @Override
+        public RenderResult result(WriteContinuation continuation) {
+          return continuation.result();
+        }
+
+        @Override
+        public WriteContinuation continueRender(WriteContinuation continuation)
+            throws IOException {
+          return continuation.continueRender();
+        }
+
+        @Override
+        public Void value(WriteContinuation continuation) {
+          return null;
+        }
+      };
+
+  private static final Step<Continuation<Object>, Object> BUFFERED_STEP =
+      new Step<Continuation<Object>, Object>() {
+        @Override
+        public RenderResult result(Continuation<Object> continuation) {
+          return continuation.result();
+        }
+
+        @Override
+        public Continuation<Object> continueRender(Continuation<Object> continuation) {
+          return continuation.continueRender();
+        }
+
+        @Override
+        public Object value(Continuation<Object> continuation) {
+          return continuation.get();
+        }
+      };
+
+  private static final Future<?> DRAINED = Futures.immediateVoidFuture();
+
+  /** A drain signal for appendables that are never limited, or that stop being limited alone. */
+  private static final Supplier<Future<?>> NO_DRAIN_SIGNAL = () -> DRAINED;
+
+  static CompletionStage<Void> complete(WriteContinuation continuation, Executor executor) {
+    return complete(continuation, executor, NO_DRAIN_SIGNAL);
+  }
+
+  static CompletionStage<Void> complete(
+      WriteContinuation continuation,
+      Executor executor,
+      Supplier<? extends Future<?>> drained) {
+    CompletableFuture<Void> done = new CompletableFuture<>();
+    drive(WRITE_STEP, continuation, failingOnRejection(executor, done), drained, done);
+    return done;
+  }
+
+  @SuppressWarnings("unchecked") // The step never inspects the value type.
+  static <T> CompletionStage<T> complete(Continuation<T> continuation, Executor executor) {
+    CompletableFuture<Object> done = new CompletableFuture<>();
+    // Buffered renders are never limited.
+    drive(
+        BUFFERED_STEP,
+        (Continuation<Object>) continuation,
+        failingOnRejection(executor, done),
+        NO_DRAIN_SIGNAL,
+        done);
+    return (CompletionStage<T>) (CompletionStage<?>) done;
+  }
+
+  /**
+   * Continues the render inline for as long as it can make progress, then schedules the rest of
+   * it to run on {@code executor} once it can.
+   *
+   * <p>Pausing only ever waits on a future that isn't done yet, so a render that keeps pausing on
+   * completed futures loops here rather than recursing through the executor.
+   */
+  private static <C, T> void drive(
+      Step<C, T> step,
+      C continuation,
+      Executor executor,
+      Supplier<? extends Future<?>> drained,
+      CompletableFuture<T> done) {
+    try {
+      while (true) {
+        RenderResult result = step.result(continuation);
+        Future<?> future;
+        switch (result.type()) {
+          case DONE:
+            done.complete(step.value(continuation));
+            return;
+          case DETACH:
+            future = result.future();
+            break;
+          case LIMITED:
+            future = drained.get();
+            break;
+          default:
+            throw new AssertionError(result);
+        }
+        if (!future.isDone()) {
+          C paused = continuation;
+          whenDone(future, executor, () -> resume(step, paused, executor, drained, done));
+          return;
+        }
+        continuation = step.continueRender(continuation);
+      }
+    } catch (Throwable t) {
+      done.completeExceptionally(t);
+    }
+  }
+
+  private static <C, T> void resume(
+      Step<C, T> step,
+      C continuation,
+      Executor executor,
+      Supplier<? extends Future<?>> drained,
+      CompletableFuture<T> done) {
+    C next;
+    try {
+      next = step.continueRender(continuation);
+    } catch (Throwable t) {
+      done.completeExceptionally(t);
+      return;
+    }
+    drive(step, next, executor, drained, done);
+  }
+
+  /**
+   * Wraps {@code executor} so that a rejected task fails the render instead of leaving it pending
+   * forever. Listeners swallow exceptions thrown by their executor.
+   */
+  private static Executor failingOnRejection(Executor executor, CompletableFuture<?> done) {
+    return task -> {
+      try {
+        executor.execute(task);
+      } catch (RejectedExecutionException e) {
+        done.completeExceptionally(e);
+      }
+    };
+  }
+
+  /** Runs {@code task} on {@code executor} when {@code future} completes, however it completes. */
+  static void whenDone(Future<?> future, Executor executor, Runnable task) {
+    if (future instanceof ListenableFuture) {
+      ((ListenableFuture<?>) future).addListener(task, executor);
+    } else if (future instanceof CompletionStage) {
+      ((CompletionStage<?>) future).whenCompleteAsync((value, failure) -> task.run(), executor);
+    } else {
+      // A plain Future can't be listened to, so a thread of the executor blocks on it.
+      JdkFutureAdapters.listenInPoolThread(future, executor).addListener(task, directExecutor());
+    }
+  }
+
+  private AsyncContinuations() {}
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2024 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.jbcsrc.api;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import java.io.IOException;
+
+/** An {@link AdvisingAppendable} that counts the chars written to its delegate. */
+final class CountingAppendable implements AdvisingAppendable {
+  private final AdvisingAppendable delegate;
+  private long count;
+
+  CountingAppendable(AdvisingAppendable delegate) {
+    this.delegate = checkNotNull(delegate);
+  }
+
+  /** Returns the number of chars written so far. */
+  long count() {
+    return count;
+  }
+
+  @CanIgnoreReturnValue
+  @Override
+  public AdvisingAppendable append(CharSequence csq) throws IOException {
+    delegate.append(csq);
+    count += csq.length();
+    return this;
+  }
+
+  @CanIgnoreReturnValue
+  @Override
+  public AdvisingAppendable append(CharSequence csq, int start, int end) throws IOException {
+    delegate.append(csq, start, end);
+    count += end - start;
+    return this;
+  }
+
+  @CanIgnoreReturnValue
+  @Override
+  public AdvisingAppendable append(char c) throws IOException {
+    delegate.append(c);
+    count++;
+    return this;
+  }
+
+  @CanIgnoreReturnValue
+  @Override
+  public AdvisingAppendable appendPreEncoded(PreEncodedText text) throws IOException {
+    delegate.appendPreEncoded(text);
+    count += text.toString().length();
+    return this;
+  }
+
+  @Override
+  public boolean softLimitReached() {
+    return delegate.softLimitReached();
+  }
+}
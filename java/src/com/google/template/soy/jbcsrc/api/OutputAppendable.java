@@ -74,6 +74,11 @@ public final class OutputAppendable extends AbstractLoggingAdvisingAppendable {
     outputAppendable.append(c);
   }
 
+  @Override
+  protected void doAppendPreEncoded(PreEncodedText text) throws IOException {
+    outputAppendable.appendPreEncoded(text);
+  }
+
   @Override
   protected void doAppendLoggingFunctionInvocation(
       LoggingFunctionInvocation funCall, ImmutableList<Function<String, String>> escapers)
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2024 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.jbcsrc.api;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * A constant run of template text together with its UTF-8 encoding, which is computed once when
+ * the constant is created and shared by every render.
+ *
+ * <p>Compiled templates pass their raw text to {@link AdvisingAppendable#appendPreEncoded}, so
+ * that appendables which write bytes can skip encoding it.
+ */
+public final class PreEncodedText {
+  public static PreEncodedText of(String text) {
+    return new PreEncodedText(checkNotNull(text));
+  }
+
+  private final String text;
+  private final byte[] utf8;
+
+  private PreEncodedText(String text) {
+    this.text = text;
+    // Unpaired surrogates are replaced, just like they are by the encoders of the appendables.
+    this.utf8 = text.getBytes(UTF_8);
+  }
+
+  /** The text. */
+  @Override
+  public String toString() {
+    return text;
+  }
+
+  /** The number of UTF-8 bytes of the text. */
+  public int utf8Length() {
+    return utf8.length;
+  }
+
+  /** Returns a read-only view of the UTF-8 bytes of the text. */
+  public ByteBuffer asUtf8Buffer() {
+    return ByteBuffer.wrap(utf8).asReadOnlyBuffer();
+  }
+
+  /** Writes the UTF-8 bytes of the text to {@code out}. */
+  public void writeUtf8To(OutputStream out) throws IOException {
+    out.write(utf8, 0, utf8.length);
+  }
+}
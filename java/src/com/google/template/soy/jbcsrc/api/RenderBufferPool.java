@@ -0,0 +1,97 @@
+/*
+ * Copyright 2024 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.jbcsrc.api;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A pool of the buffers that renders to values, such as {@link SoySauce.Renderer#renderHtml()},
+ * render into.
+ *
+ * <p>Without a pool every such render allocates a buffer and grows it to the size of its output,
+ * which adds up on hosts rendering at high rates. With a pool the buffer is borrowed when the
+ * render starts and returned once its content has been copied into the result.
+ *
+ * <p>Buffers are cached per thread, at most one per size class, so borrowing never contends.
+ * Buffers that grew beyond the configured maximum are not retained. A buffer borrowed on one
+ * thread may be returned on another, as happens when a render is continued elsewhere.
+ */
+public final class RenderBufferPool {
+  /** The default maximum capacity, in chars, of the retained buffers. */
+  public static final int DEFAULT_MAX_RETAINED_CHARS = 1 << 20;
+
+  private static final int LOG2_INITIAL_CAPACITY = 10;
+  private static final int INITIAL_CAPACITY = 1 << LOG2_INITIAL_CAPACITY;
+  // Each size class spans a factor of 16 in capacity.
+  private static final int LOG2_CLASS_SPAN = 2;
+
+  /** Creates a pool that retains buffers of up to {@link #DEFAULT_MAX_RETAINED_CHARS}. */
+  public static RenderBufferPool create() {
+    return create(DEFAULT_MAX_RETAINED_CHARS);
+  }
+
+  /** Creates a pool that retains buffers whose capacity is at most {@code maxRetainedChars}. */
+  public static RenderBufferPool create(int maxRetainedChars) {
+    checkArgument(
+        maxRetainedChars >= INITIAL_CAPACITY,
+        "maxRetainedChars must be at least %s: %s",
+        INITIAL_CAPACITY,
+        maxRetainedChars);
+    return new RenderBufferPool(maxRetainedChars);
+  }
+
+  private final int maxRetainedChars;
+  private final ThreadLocal<StringBuilder[]> buffers;
+
+  private RenderBufferPool(int maxRetainedChars) {
+    this.maxRetainedChars = maxRetainedChars;
+    int numClasses = sizeClass(maxRetainedChars) + 1;
+    this.buffers = ThreadLocal.withInitial(() -> new StringBuilder[numClasses]);
+  }
+
+  /** Returns an empty buffer, preferring the largest one cached by the current thread. */
+  StringBuilder acquire() {
+    StringBuilder[] cached = buffers.get();
+    for (int i = cached.length - 1; i >= 0; i--) {
+      StringBuilder buffer = cached[i];
+      if (buffer != null) {
+        cached[i] = null;
+        return buffer;
+      }
+    }
+    return new StringBuilder(INITIAL_CAPACITY);
+  }
+
+  /** Returns a buffer to the pool. The caller must not use it anymore. */
+  void release(StringBuilder buffer) {
+    int capacity = buffer.capacity();
+    if (capacity > maxRetainedChars) {
+      return;
+    }
+    StringBuilder[] cached = buffers.get();
+    int sizeClass = sizeClass(capacity);
+    if (cached[sizeClass] == null) {
+      buffer.setLength(0);
+      cached[sizeClass] = buffer;
+    }
+  }
+
+  private static int sizeClass(int capacity) {
+    int log2 = 32 - Integer.numberOfLeadingZeros(Math.max(capacity, INITIAL_CAPACITY) - 1);
+    return (log2 - LOG2_INITIAL_CAPACITY) >> LOG2_CLASS_SPAN;
+  }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2024 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.jbcsrc.api;
+
+import com.google.auto.value.AutoValue;
+import javax.annotation.Nullable;
+
+/**
+ * Statistics about a single render of a template, from the first call to a {@code render*} method
+ * until rendering completes, across all the continuations in between.
+ */
+@AutoValue
+public abstract class RenderMetrics {
+  static RenderMetrics create(
+      String templateName,
+      long elapsedNanos,
+      long renderingNanos,
+      int limitedCount,
+      int detachCount,
+      long charsWritten,
+      @Nullable Throwable failure) {
+    return new AutoValue_RenderMetrics(
+        templateName,
+        elapsedNanos,
+        renderingNanos,
+        limitedCount,
+        detachCount,
+        charsWritten,
+        failure);
+  }
+
+  /** The fully qualified name of the template that was rendered. */
+  public abstract String templateName();
+
+  /** The wall time between starting and finishing the render. */
+  public abstract long elapsedNanos();
+
+  /**
+   * The wall time spent rendering, this excludes the time between a render pausing and the caller
+   * continuing it.
+   */
+  public abstract long renderingNanos();
+
+  /**
+   * The number of times rendering paused because the output reached its {@linkplain
+   * AdvisingAppendable#softLimitReached soft limit}, see {@link RenderResult.Type#LIMITED}.
+   */
+  public abstract int limitedCount();
+
+  /**
+   * The number of times rendering paused to wait for an incomplete future, see {@link
+   * RenderResult.Type#DETACH}.
+   */
+  public abstract int detachCount();
+
+  /** The number of chars written to the output. */
+  public abstract long charsWritten();
+
+  /** The exception that rendering failed with, or {@code null} if it succeeded. */
+  @Nullable
+  public abstract Throwable failure();
+}
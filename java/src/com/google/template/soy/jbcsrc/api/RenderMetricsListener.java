@@ -0,0 +1,30 @@
+/*
+ * Copyright 2024 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.jbcsrc.api;
+
+/**
+ * Receives {@link RenderMetrics} for every render performed by a {@link SoySauce}, see {@link
+ * SoySauceBuilder#withRenderMetricsListener}.
+ *
+ * <p>Listeners are called on the thread that finishes the render, once it has completed or failed,
+ * so they should be fast and thread safe. Exceptions thrown by a listener are logged and otherwise
+ * ignored.
+ */
+@FunctionalInterface
+public interface RenderMetricsListener {
+  void onRender(RenderMetrics metrics);
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2024 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.jbcsrc.api;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import com.google.template.soy.jbcsrc.shared.RenamingMemo;
+import com.google.template.soy.msgs.SoyMsgBundle;
+import com.google.template.soy.plugin.java.PluginInstances;
+import com.google.template.soy.shared.SoyCssRenamingMap;
+import com.google.template.soy.shared.SoyIdRenamingMap;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+
+/**
+ * The render settings that are shared by many renders, such as all the renders for one locale.
+ *
+ * <p>A profile is built once with {@link SoySauce#newRenderProfile()} and applied to each {@link
+ * SoySauce.Renderer} with {@link SoySauce.Renderer#setRenderProfile}, which copies the settings
+ * without any of the per-request work of the individual setters, such as merging plugin instances.
+ * Per-request state, such as {@code $ij}, the {@link com.google.template.soy.logging.SoyLogger}
+ * and the {@link com.google.template.soy.shared.SoyCssTracker}, is still set on the renderer.
+ *
+ * <p>The renamings of {@code css()} and {@code xid()} are memoized for the lifetime of the profile,
+ * so its renaming maps must be pure functions.
+ *
+ * <p>Profiles are immutable and may be shared by any number of threads.
+ */
+public final class RenderProfile {
+  private final Object owner;
+  private final ImmutableMap<String, ? extends Supplier<Object>> pluginInstanceOverrides;
+  private final PluginInstances pluginInstances;
+  @Nullable private final Predicate<String> activeModSelector;
+  @Nullable private final SoyCssRenamingMap cssRenamingMap;
+  @Nullable private final SoyIdRenamingMap xidRenamingMap;
+  @Nullable private final RenamingMemo cssRenamingMemo;
+  @Nullable private final RenamingMemo xidRenamingMemo;
+  @Nullable private final SoyMsgBundle msgBundle;
+  private final boolean debugSoyTemplateInfo;
+
+  private RenderProfile(Builder builder) {
+    this.owner = builder.owner;
+    this.pluginInstanceOverrides = builder.pluginInstances;
+    this.pluginInstances = builder.basePluginInstances.combine(builder.pluginInstances);
+    this.activeModSelector = builder.activeModSelector;
+    this.cssRenamingMap = builder.cssRenamingMap;
+    this.xidRenamingMap = builder.xidRenamingMap;
+    this.cssRenamingMemo = cssRenamingMap == null ? null : RenamingMemo.create();
+    this.xidRenamingMemo = xidRenamingMap == null ? null : RenamingMemo.create();
+    this.msgBundle = builder.msgBundle;
+    this.debugSoyTemplateInfo = builder.debugSoyTemplateInfo;
+  }
+
+  /** The {@link SoySauce} that created this profile. */
+  Object owner() {
+    return owner;
+  }
+
+  /** The plugin instances set on the builder, without those of the {@link SoySauce}. */
+  ImmutableMap<String, ? extends Supplier<Object>> pluginInstanceOverrides() {
+    return pluginInstanceOverrides;
+  }
+
+  PluginInstances pluginInstances() {
+    return pluginInstances;
+  }
+
+  @Nullable
+  Predicate<String> activeModSelector() {
+    return activeModSelector;
+  }
+
+  @Nullable
+  SoyCssRenamingMap cssRenamingMap() {
+    return cssRenamingMap;
+  }
+
+  @Nullable
+  SoyIdRenamingMap xidRenamingMap() {
+    return xidRenamingMap;
+  }
+
+  @Nullable
+  RenamingMemo cssRenamingMemo() {
+    return cssRenamingMemo;
+  }
+
+  @Nullable
+  RenamingMemo xidRenamingMemo() {
+    return xidRenamingMemo;
+  }
+
+  @Nullable
+  SoyMsgBundle msgBundle() {
+    return msgBundle;
+  }
+
+  boolean debugSoyTemplateInfo() {
+    return debugSoyTemplateInfo;
+  }
+
+  /** Builds a {@link RenderProfile}. Settings that are not set keep their default. */
+  public static final class Builder {
+    private final Object owner;
+    private final PluginInstances basePluginInstances;
+    private ImmutableMap<String, ? extends Supplier<Object>> pluginInstances = ImmutableMap.of();
+    private Predicate<String> activeModSelector;
+    private SoyCssRenamingMap cssRenamingMap;
+    private SoyIdRenamingMap xidRenamingMap;
+    private SoyMsgBundle msgBundle;
+    private boolean debugSoyTemplateInfo;
+
+    Builder(Object owner, PluginInstances basePluginInstances) {
+      this.owner = checkNotNull(owner);
+      this.basePluginInstances = checkNotNull(basePluginInstances);
+    }
+
+    /**
+     * Adds plugin instances to, or overrides plugin instances of, the ones the {@link SoySauce}
+     * was built with. See {@link SoySauce.Renderer#setPluginInstances}.
+     */
+    @CanIgnoreReturnValue
+    public Builder setPluginInstances(Map<String, ? extends Supplier<Object>> pluginInstances) {
+      this.pluginInstances = ImmutableMap.copyOf(pluginInstances);
+      return this;
+    }
+
+    /** Sets the predicate to use for testing whether or not a given {@code modname} is active. */
+    @CanIgnoreReturnValue
+    public Builder setActiveModSelector(Predicate<String> active) {
+      this.activeModSelector = checkNotNull(active);
+      return this;
+    }
+
+    /** Configures the {@code {css ..}} renaming map. */
+    @CanIgnoreReturnValue
+    public Builder setCssRenamingMap(SoyCssRenamingMap cssRenamingMap) {
+      this.cssRenamingMap = checkNotNull(cssRenamingMap);
+      return this;
+    }
+
+    /** Configures the {@code {xid ..}} renaming map. */
+    @CanIgnoreReturnValue
+    public Builder setXidRenamingMap(SoyIdRenamingMap xidRenamingMap) {
+      this.xidRenamingMap = checkNotNull(xidRenamingMap);
+      return this;
+    }
+
+    /** Configures the bundle of translated messages to use. */
+    @CanIgnoreReturnValue
+    public Builder setMsgBundle(SoyMsgBundle msgs) {
+      this.msgBundle = checkNotNull(msgs);
+      return this;
+    }
+
+    /** See {@link SoySauce.Renderer#setDebugSoyTemplateInfo}. */
+    @CanIgnoreReturnValue
+    public Builder setDebugSoyTemplateInfo(boolean debugSoyTemplateInfo) {
+      this.debugSoyTemplateInfo = debugSoyTemplateInfo;
+      return this;
+    }
+
+    public RenderProfile build() {
+      return new RenderProfile(this);
+    }
+  }
+}
@@ -0,0 +1,333 @@
+/*
+ * Copyright 2024 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.jbcsrc.api;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.math.LongMath;
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import com.google.template.soy.jbcsrc.api.SoySauce.WriteContinuation;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nullable;
+
+/**
+ * Publishes the output of a render as UTF-8 encoded chunks, pausing the render whenever the
+ * subscriber has no outstanding demand.
+ *
+ * <p>For example:
+ *
+ * <pre>{@code
+ * Flow.Publisher<ByteBuffer> body =
+ *     RenderPublisher.create(
+ *         sauce.renderTemplate("ns.page").setData(data)::renderHtml, executor);
+ * }</pre>
+ *
+ * <p>Output is encoded directly into fixed size chunks as the template writes it, and the raw text
+ * of templates is copied from its {@linkplain PreEncodedText pre-encoded bytes}. A chunk is only
+ * published once it is full or the render is complete, and the render reports {@link
+ * AdvisingAppendable#softLimitReached()} as soon as it has produced more chunks than were
+ * requested, so at most one extra chunk is buffered per detach point of the template. Renders that
+ * detach are resumed on the executor when the future they wait on completes.
+ *
+ * <p>Each publisher renders once and accepts a single subscriber. The published buffers belong to
+ * the subscriber.
+ */
+public final class RenderPublisher implements Flow.Publisher<ByteBuffer> {
+  /** The default size of the published chunks. */
+  public static final int DEFAULT_CHUNK_SIZE = 8 * 1024;
+
+  /** Starts a render, typically a method reference to one of the {@code Renderer.render*}s. */
+  @FunctionalInterface
+  public interface Render {
+    WriteContinuation render(AdvisingAppendable out) throws IOException;
+  }
+
+  /** Creates a publisher for the given render that publishes chunks of the default size. */
+  public static RenderPublisher create(Render render, Executor executor) {
+    return create(render, executor, DEFAULT_CHUNK_SIZE);
+  }
+
+  /**
+   * Creates a publisher for the given render.
+   *
+   * @param render Starts the render when the publisher is subscribed to.
+   * @param executor Runs the render and calls the subscriber. Calls are never concurrent.
+   * @param chunkSize The size in bytes of the published chunks, except possibly the last one.
+   */
+  public static RenderPublisher create(Render render, Executor executor, int chunkSize) {
+    checkArgument(chunkSize >= 4, "chunkSize must fit any UTF-8 sequence: %s", chunkSize);
+    return new RenderPublisher(checkNotNull(render), checkNotNull(executor), chunkSize);
+  }
+
+  private final Render render;
+  private final Executor executor;
+  private final int chunkSize;
+  private final AtomicBoolean subscribed = new AtomicBoolean();
+
+  private RenderPublisher(Render render, Executor executor, int chunkSize) {
+    this.render = render;
+    this.executor = executor;
+    this.chunkSize = chunkSize;
+  }
+
+  @Override
+  public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+    checkNotNull(subscriber);
+    if (!subscribed.compareAndSet(false, true)) {
+      subscriber.onSubscribe(
+          new Flow.Subscription() {
+            @Override
+            public void request(long n) {}
+
+            @Override
+            public void cancel() {}
+          });
+      subscriber.onError(new IllegalStateException("A RenderPublisher renders only once."));
+      return;
+    }
+    RenderSubscription subscription = new RenderSubscription(subscriber);
+    subscriber.onSubscribe(subscription);
+    subscription.signal();
+  }
+
+  /**
+   * Drives the render and the subscriber. All the work happens in {@link #drain()}, which runs on
+   * the executor and is never run concurrently with itself.
+   */
+  private final class RenderSubscription implements Flow.Subscription {
+    final Flow.Subscriber<? super ByteBuffer> subscriber;
+    final EncodingAppendable out = new EncodingAppendable();
+    final AtomicLong demand = new AtomicLong();
+    final AtomicInteger pendingSignals = new AtomicInteger();
+    // Set once the subscriber is cancelled or has been sent a terminal signal.
+    volatile boolean terminated;
+    volatile boolean waiting;
+    @Nullable volatile Throwable requestError;
+
+    // Only accessed by drain().
+    @Nullable WriteContinuation continuation;
+    boolean finished;
+
+    RenderSubscription(Flow.Subscriber<? super ByteBuffer> subscriber) {
+      this.subscriber = subscriber;
+    }
+
+    @Override
+    public void request(long n) {
+      if (n <= 0) {
+        requestError =
+            new IllegalArgumentException("Requested a non-positive number of chunks: " + n);
+      } else {
+        demand.getAndAccumulate(n, LongMath::saturatedAdd);
+      }
+      signal();
+    }
+
+    @Override
+    public void cancel() {
+      terminated = true;
+    }
+
+    void signal() {
+      if (pendingSignals.getAndIncrement() == 0) {
+        try {
+          executor.execute(this::drain);
+        } catch (RuntimeException e) {
+          terminated = true;
+          subscriber.onError(e);
+        }
+      }
+    }
+
+    private void fail(Throwable t) {
+      if (!terminated) {
+        terminated = true;
+        subscriber.onError(t);
+      }
+    }
+
+    private void drain() {
+      int signals = pendingSignals.get();
+      while (true) {
+        try {
+          step();
+        } catch (Throwable t) {
+          fail(t);
+        }
+        signals = pendingSignals.addAndGet(-signals);
+        if (signals == 0) {
+          return;
+        }
+      }
+    }
+
+    /** Publishes what the subscriber asked for and renders more if it needs to. */
+    private void step() throws IOException {
+      while (!terminated) {
+        if (requestError != null) {
+          fail(requestError);
+          return;
+        }
+        while (demand.get() > 0 && !out.chunks.isEmpty()) {
+          demand.decrementAndGet();
+          subscriber.onNext(out.chunks.poll());
+          if (terminated) {
+            return;
+          }
+        }
+        if (finished) {
+          if (out.chunks.isEmpty()) {
+            terminated = true;
+            subscriber.onComplete();
+          }
+          return;
+        }
+        if (waiting || out.softLimitReached()) {
+          return;
+        }
+        continuation =
+            continuation == null ? render.render(out) : continuation.continueRender();
+        RenderResult result = continuation.result();
+        switch (result.type()) {
+          case DONE:
+            out.finish();
+            finished = true;
+            break;
+          case DETACH:
+            waiting = true;
+            AsyncContinuations.whenDone(
+                result.future(),
+                executor,
+                () -> {
+                  waiting = false;
+                  signal();
+                });
+            break;
+          case LIMITED:
+            break;
+        }
+      }
+    }
+
+    /** Encodes the output into chunks as it is written. */
+    private final class EncodingAppendable implements AdvisingAppendable {
+      final CharsetEncoder encoder =
+          UTF_8
+              .newEncoder()
+              .onMalformedInput(CodingErrorAction.REPLACE)
+              .onUnmappableCharacter(CodingErrorAction.REPLACE);
+      // Holds a high surrogate that ended an append, until the append that holds its low surrogate.
+      final CharBuffer pending = CharBuffer.allocate(2);
+      final ArrayDeque<ByteBuffer> chunks = new ArrayDeque<>();
+      ByteBuffer bytes = ByteBuffer.allocate(chunkSize);
+
+      @CanIgnoreReturnValue
+      @Override
+      public AdvisingAppendable append(CharSequence csq) {
+        return append(csq, 0, csq.length());
+      }
+
+      @CanIgnoreReturnValue
+      @Override
+      public AdvisingAppendable append(CharSequence csq, int start, int end) {
+        while (pending.position() > 0 && start < end) {
+          append(csq.charAt(start++));
+        }
+        if (start < end) {
+          encode(CharBuffer.wrap(csq, start, end), /* endOfInput= */ false);
+        }
+        return this;
+      }
+
+      @CanIgnoreReturnValue
+      @Override
+      public AdvisingAppendable append(char c) {
+        pending.put(c);
+        pending.flip();
+        encode(pending, /* endOfInput= */ false);
+        pending.compact();
+        return this;
+      }
+
+      @CanIgnoreReturnValue
+      @Override
+      public AdvisingAppendable appendPreEncoded(PreEncodedText text) {
+        if (pending.position() > 0) {
+          return append(text.toString());
+        }
+        ByteBuffer utf8 = text.asUtf8Buffer();
+        while (utf8.remaining() > bytes.remaining()) {
+          ByteBuffer slice = utf8.duplicate();
+          slice.limit(slice.position() + bytes.remaining());
+          bytes.put(slice);
+          utf8.position(slice.position());
+          publishChunk();
+        }
+        bytes.put(utf8);
+        return this;
+      }
+
+      @Override
+      public boolean softLimitReached() {
+        return terminated || chunks.size() >= demand.get();
+      }
+
+      private void encode(CharBuffer chars, boolean endOfInput) {
+        while (encoder.encode(chars, bytes, endOfInput).isOverflow()) {
+          publishChunk();
+        }
+        if (chars.hasRemaining() && chars != pending) {
+          // The encoder leaves a trailing high surrogate in the input until it sees its low
+          // surrogate.
+          pending.put(chars);
+        }
+      }
+
+      void finish() {
+        pending.flip();
+        encode(pending, /* endOfInput= */ true);
+        pending.clear();
+        while (encoder.flush(bytes).isOverflow()) {
+          publishChunk();
+        }
+        if (bytes.position() > 0) {
+          publishChunk();
+        }
+      }
+
+      private void publishChunk() {
+        bytes.flip();
+        if (!terminated) {
+          chunks.add(bytes);
+        }
+        bytes = ByteBuffer.allocate(chunkSize);
+      }
+    }
+  }
+}
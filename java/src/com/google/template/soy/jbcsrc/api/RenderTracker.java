@@ -0,0 +1,90 @@
+/*
+ * Copyright 2024 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.jbcsrc.api;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.Nullable;
+
+/**
+ * Accumulates the {@link RenderMetrics} of a single render.
+ *
+ * <p>A render is only ever advanced by one thread at a time, and continuations publish their state
+ * safely, so no synchronization is needed.
+ */
+final class RenderTracker {
+  private static final Logger logger = Logger.getLogger(RenderTracker.class.getName());
+
+  private final RenderMetricsListener listener;
+  private final String templateName;
+  private final LongSupplier charsWritten;
+  private final long startNanos = System.nanoTime();
+  private long renderingNanos;
+  private int limitedCount;
+  private int detachCount;
+
+  /**
+   * @param charsWritten Returns the number of chars written to the output of the render so far.
+   */
+  RenderTracker(RenderMetricsListener listener, String templateName, LongSupplier charsWritten) {
+    this.listener = checkNotNull(listener);
+    this.templateName = checkNotNull(templateName);
+    this.charsWritten = checkNotNull(charsWritten);
+  }
+
+  /**
+   * Records a call to {@code CompiledTemplate.render} that started at {@code sliceStartNanos}.
+   *
+   * @param result How rendering paused, or {@code null} if it completed.
+   */
+  void endSlice(long sliceStartNanos, @Nullable RenderResult result) {
+    renderingNanos += System.nanoTime() - sliceStartNanos;
+    if (result == null) {
+      report(null);
+    } else if (result.type() == RenderResult.Type.LIMITED) {
+      limitedCount++;
+    } else {
+      detachCount++;
+    }
+  }
+
+  /** Records a call to {@code CompiledTemplate.render} that failed. */
+  void failSlice(long sliceStartNanos, Throwable failure) {
+    renderingNanos += System.nanoTime() - sliceStartNanos;
+    report(failure);
+  }
+
+  private void report(@Nullable Throwable failure) {
+    RenderMetrics metrics =
+        RenderMetrics.create(
+            templateName,
+            System.nanoTime() - startNanos,
+            renderingNanos,
+            limitedCount,
+            detachCount,
+            charsWritten.getAsLong(),
+            failure);
+    try {
+      listener.onRender(metrics);
+    } catch (RuntimeException e) {
+      logger.log(Level.WARNING, "RenderMetricsListener failed", e);
+    }
+  }
+}
@@ -31,11 +31,20 @@ import com.google.template.soy.data.internal.ParamStore;
 import com.google.template.soy.logging.SoyLogger;
 import com.google.template.soy.msgs.SoyMsgBundle;
 import com.google.template.soy.parseinfo.TemplateName;
+import com.google.template.soy.plugin.java.PluginInstances;
 import com.google.template.soy.shared.SoyCssRenamingMap;
 import com.google.template.soy.shared.SoyCssTracker;
 import com.google.template.soy.shared.SoyIdRenamingMap;
 import java.io.IOException;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 
@@ -116,6 +125,33 @@ public interface SoySauce {
    */
   boolean hasTemplate(String template);
 
+  /**
+   * Asynchronously loads the given templates, and everything they may call, on the executor.
+   *
+   * <p>When templates are compiled lazily, e.g. by {@code SoyFileSet.compileTemplates()}, this
+   * moves the cost of compiling them off of the first render. Templates are submitted in iteration
+   * order, so list the most rendered templates first. Rendering may begin before the returned
+   * future completes, renders simply compile whatever has not been loaded yet.
+   *
+   * @return A future that completes once all the templates are loaded, or completes exceptionally
+   *     if any of them failed to load.
+   */
+  default CompletableFuture<Void> prewarm(Iterable<String> templateNames, Executor executor) {
+    return CompletableFuture.completedFuture(null);
+  }
+
+  /**
+   * Returns a builder for a {@link RenderProfile}, the settings shared by many renders of this
+   * {@link SoySauce}, e.g. all the renders for one locale. Build profiles once and apply them to
+   * each renderer with {@link Renderer#setRenderProfile}.
+   *
+   * <p>The default implementation returns a builder for profiles that {@link
+   * Renderer#setRenderProfile} applies through the individual setters.
+   */
+  default RenderProfile.Builder newRenderProfile() {
+    return new RenderProfile.Builder(this, PluginInstances.empty());
+  }
+
   /** A Renderer can configure rendering parameters and render the template. */
   interface Renderer {
     /** Configures the data to pass to template. */
@@ -177,6 +213,35 @@ public interface SoySauce {
     @CanIgnoreReturnValue
     Renderer setCssTracker(SoyCssTracker cssTracker);
 
+    /**
+     * Applies all the settings of a profile created by the same {@link SoySauce}, replacing any
+     * plugin instances, renaming maps, mod selector, message bundle and debug setting set before.
+     * Setters called afterwards override the corresponding setting of the profile.
+     *
+     * <p>The default implementation calls the setters for the settings of the profile that were
+     * set, so it doesn't replace the others.
+     */
+    @CanIgnoreReturnValue
+    default Renderer setRenderProfile(RenderProfile profile) {
+      Renderer renderer = this;
+      if (!profile.pluginInstanceOverrides().isEmpty()) {
+        renderer = renderer.setPluginInstances(profile.pluginInstanceOverrides());
+      }
+      if (profile.activeModSelector() != null) {
+        renderer = renderer.setActiveModSelector(profile.activeModSelector());
+      }
+      if (profile.cssRenamingMap() != null) {
+        renderer = renderer.setCssRenamingMap(profile.cssRenamingMap());
+      }
+      if (profile.xidRenamingMap() != null) {
+        renderer = renderer.setXidRenamingMap(profile.xidRenamingMap());
+      }
+      if (profile.msgBundle() != null) {
+        renderer = renderer.setMsgBundle(profile.msgBundle());
+      }
+      return renderer.setDebugSoyTemplateInfo(profile.debugSoyTemplateInfo());
+    }
+
     /**
      * Renders the configured html template to the given appendable, returning a continuation (more
      * details below). Verifies that the content type is {@link ContentKind.HTML} (corresponding to
@@ -204,6 +269,11 @@ public interface SoySauce {
      *       this case rendering may not be continued and behavior is undefined if it is.
      * </ul>
      *
+     * <p>Callers that can afford to block a thread per render, such as those running renders on
+     * virtual threads, can call {@link WriteContinuation#awaitDone()} on the result instead of
+     * continuing rendering themselves, and others can call {@link
+     * WriteContinuation#completeAsync(Executor)} to have rendering continued on an executor.
+     *
      * <p>It is safe to call this method multiple times, but each call will initiate a new render of
      * the configured template. To continue rendering a template you must use the returned
      * continuation.
@@ -484,6 +554,85 @@ public interface SoySauce {
     default void assertDone() {
       checkState(result().isDone(), "Expected to be done, got: %s", result());
     }
+
+    /**
+     * Continues rendering until it completes, blocking the calling thread whenever rendering would
+     * otherwise pause.
+     *
+     * <p>This replaces the detach and continue loop for callers that can afford a thread per
+     * render, most notably virtual threads. Incomplete futures are waited for with {@link
+     * Future#get()}, which parks the thread without holding any monitors, so a virtual thread
+     * never pins its carrier while waiting. On {@link RenderResult.Type#LIMITED} the thread is
+     * parked for a short while before rendering continues, longer each time the render is limited
+     * again, up to a millisecond. Appendables that report a soft limit should use {@link
+     * #awaitDone(Supplier)} instead, or block in {@code append}.
+     *
+     * <p>Failed futures do not cause this method to throw, the template observes the failure when
+     * it resumes just like it would in a non-blocking render.
+     *
+     * @throws InterruptedException if the thread is interrupted while waiting, in which case the
+     *     render is abandoned.
+     */
+    default void awaitDone() throws IOException, InterruptedException {
+      WriteContinuation continuation = this;
+      long parkedNanos = 0;
+      while (!continuation.result().isDone()) {
+        if (continuation.result().type() == RenderResult.Type.LIMITED) {
+          parkedNanos = parkWhileLimited(parkedNanos);
+        } else {
+          parkedNanos = 0;
+          awaitResumable(continuation.result());
+        }
+        continuation = continuation.continueRender();
+      }
+    }
+
+    /**
+     * Like {@link #awaitDone()}, but on {@link RenderResult.Type#LIMITED} waits for the future
+     * returned by {@code drained} before rendering continues. The future should complete once the
+     * appendable no longer reports the soft limit.
+     *
+     * @throws InterruptedException if the thread is interrupted while waiting, in which case the
+     *     render is abandoned.
+     */
+    default void awaitDone(Supplier<? extends Future<?>> drained)
+        throws IOException, InterruptedException {
+      WriteContinuation continuation = this;
+      while (!continuation.result().isDone()) {
+        RenderResult result = continuation.result();
+        await(result.type() == RenderResult.Type.LIMITED ? drained.get() : result.future());
+        continuation = continuation.continueRender();
+      }
+    }
+
+    /**
+     * Continues rendering asynchronously until it completes.
+     *
+     * <p>Whenever rendering detaches, it is resumed on {@code executor} as soon as the future it is
+     * waiting on completes, by listening to it when it is a {@link
+     * com.google.common.util.concurrent.ListenableFuture} or a {@link CompletionStage}. On {@link
+     * RenderResult.Type#LIMITED} rendering simply continues on the current thread, so the
+     * appendable must stop reporting the soft limit on its own, e.g. when another thread drains
+     * it. Use {@link #completeAsync(Executor, Supplier)} to wait for the
+     * appendable to drain instead. Rendering continues on the calling thread for as long as it
+     * doesn't need to wait.
+     *
+     * <p>The returned stage completes exceptionally if rendering fails or if {@code executor}
+     * rejects a task.
+     */
+    default CompletionStage<Void> completeAsync(Executor executor) {
+      return AsyncContinuations.complete(this, executor);
+    }
+
+    /**
+     * Like {@link #completeAsync(Executor)}, but on {@link RenderResult.Type#LIMITED} rendering
+     * waits for the future returned by {@code drained} and resumes on {@code executor} once it
+     * completes. The future should complete once the appendable no longer reports the soft limit.
+     */
+    default CompletionStage<Void> completeAsync(
+        Executor executor, Supplier<? extends Future<?>> drained) {
+      return AsyncContinuations.complete(this, executor, drained);
+    }
   }
 
   /**
@@ -517,6 +666,34 @@ public interface SoySauce {
     @CheckReturnValue
     Continuation<T> continueRender();
 
+    /**
+     * Continues rendering until it completes, blocking the calling thread whenever rendering would
+     * otherwise pause, and returns the final value.
+     *
+     * <p>See {@link WriteContinuation#awaitDone()}.
+     *
+     * @throws InterruptedException if the thread is interrupted while waiting, in which case the
+     *     render is abandoned.
+     */
+    default T awaitDone() throws InterruptedException {
+      Continuation<T> continuation = this;
+      while (!continuation.result().isDone()) {
+        awaitResumable(continuation.result());
+        continuation = continuation.continueRender();
+      }
+      return continuation.get();
+    }
+
+    /**
+     * Continues rendering asynchronously until it completes, and returns a stage holding the final
+     * value.
+     *
+     * <p>See {@link WriteContinuation#completeAsync(Executor)}.
+     */
+    default CompletionStage<T> completeAsync(Executor executor) {
+      return AsyncContinuations.complete(this, executor);
+    }
+
     /**
      * @deprecated Generally {@link #get} should be called and the value inspected instead of
      *     coercing the Continuation to a string..
@@ -525,4 +702,35 @@ public interface SoySauce {
     @Deprecated
     String toString();
   }
+
+  /** Blocks until rendering may usefully continue after pausing with the given result. */
+  private static void awaitResumable(RenderResult result) throws InterruptedException {
+    if (result.type() == RenderResult.Type.DETACH) {
+      await(result.future());
+    }
+  }
+
+  private static void await(Future<?> future) throws InterruptedException {
+    try {
+      future.get();
+    } catch (ExecutionException | CancellationException e) {
+      // The template will observe the failure when it resumes.
+    }
+  }
+
+  /**
+   * Parks the thread after rendering was limited, for twice as long as the last time it was
+   * limited in a row, between 10 microseconds and a millisecond. Returns how long it parked.
+   */
+  private static long parkWhileLimited(long lastParkedNanos) throws InterruptedException {
+    long nanos =
+        lastParkedNanos == 0
+            ? TimeUnit.MICROSECONDS.toNanos(10)
+            : Math.min(2 * lastParkedNanos, TimeUnit.MILLISECONDS.toNanos(1));
+    LockSupport.parkNanos(nanos);
+    if (Thread.interrupted()) {
+      throw new InterruptedException();
+    }
+    return nanos;
+  }
 }
@@ -16,6 +16,7 @@
 
 package com.google.template.soy.jbcsrc.api;
 
+import static com.google.common.base.Preconditions.checkNotNull;
 import static java.nio.charset.StandardCharsets.UTF_8;
 
 import com.google.common.collect.ImmutableList;
@@ -36,6 +37,7 @@ import java.net.URL;
 import java.util.Enumeration;
 import java.util.Map;
 import java.util.function.Supplier;
+import javax.annotation.Nullable;
 
 /** Constructs {@link SoySauce} implementations. */
 public final class SoySauceBuilder {
@@ -44,6 +46,9 @@ public final class SoySauceBuilder {
   private PluginInstances userPluginInstances = PluginInstances.empty();
   private CompiledTemplates.Factory compiledTemplatesFactory = CompiledTemplates::new;
   private ClassLoader loader;
+  @Nullable private RenderMetricsListener renderMetricsListener;
+  @Nullable private TemplateProfiler templateProfiler;
+  @Nullable private RenderBufferPool bufferPool;
 
   public SoySauceBuilder() {}
 
@@ -82,6 +87,39 @@ public final class SoySauceBuilder {
     return this;
   }
 
+  /**
+   * Sets a listener that receives {@link RenderMetrics} for every render.
+   *
+   * <p>When no listener is set, rendering does no additional bookkeeping.
+   */
+  @CanIgnoreReturnValue
+  public SoySauceBuilder withRenderMetricsListener(RenderMetricsListener listener) {
+    this.renderMetricsListener = checkNotNull(listener);
+    return this;
+  }
+
+  /**
+   * Sets a profiler that receives the probes of templates that were compiled with profiling
+   * enabled.
+   */
+  @CanIgnoreReturnValue
+  public SoySauceBuilder withTemplateProfiler(TemplateProfiler profiler) {
+    this.templateProfiler = checkNotNull(profiler);
+    return this;
+  }
+
+  /**
+   * Sets a pool that supplies the buffers of renders to values, like {@link
+   * SoySauce.Renderer#renderHtml()}.
+   *
+   * <p>When no pool is set, every such render allocates its own buffer.
+   */
+  @CanIgnoreReturnValue
+  public SoySauceBuilder withRenderBufferPool(RenderBufferPool pool) {
+    this.bufferPool = checkNotNull(pool);
+    return this;
+  }
+
   /** Sets the user functions. */
   @CanIgnoreReturnValue
   SoySauceBuilder withFunctions(
@@ -123,7 +161,10 @@ public final class SoySauceBuilder {
             .addAll(InternalPlugins.internalDirectives(NoOpScopedData.INSTANCE))
             .addAll(userDirectives)
             .build(),
-        userPluginInstances);
+        userPluginInstances,
+        renderMetricsListener,
+        templateProfiler,
+        bufferPool);
   }
 
   /** Walks all resources with the META_INF_DELTEMPLATE_PATH and collects the deltemplates. */
@@ -16,6 +16,7 @@
 
 package com.google.template.soy.jbcsrc.api;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.template.soy.jbcsrc.shared.Names.rewriteStackTrace;
@@ -39,6 +40,7 @@ import com.google.template.soy.data.internal.ParamStore;
 import com.google.template.soy.jbcsrc.shared.CompiledTemplate;
 import com.google.template.soy.jbcsrc.shared.CompiledTemplates;
 import com.google.template.soy.jbcsrc.shared.RenderContext;
+import com.google.template.soy.jbcsrc.shared.RenamingMemo;
 import com.google.template.soy.jbcsrc.shared.StackFrame;
 import com.google.template.soy.logging.SoyLogger;
 import com.google.template.soy.msgs.SoyMsgBundle;
@@ -53,7 +55,12 @@ import com.google.template.soy.shared.restricted.SoyPrintDirective;
 import java.io.IOException;
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.LongSupplier;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 import javax.annotation.Nullable;
@@ -63,13 +70,37 @@ public final class SoySauceImpl implements SoySauce {
   private final CompiledTemplates templates;
   private final PluginInstances pluginInstances;
   private final ImmutableMap<String, SoyJavaPrintDirective> printDirectives;
+  @Nullable private final RenderMetricsListener renderMetricsListener;
+  @Nullable private final TemplateProfiler templateProfiler;
+  @Nullable private final RenderBufferPool bufferPool;
 
   public SoySauceImpl(
       CompiledTemplates templates,
       ImmutableList<? extends SoyFunction> functions,
       ImmutableList<? extends SoyPrintDirective> printDirectives,
       PluginInstances pluginInstances) {
+    this(
+        templates,
+        functions,
+        printDirectives,
+        pluginInstances,
+        /* renderMetricsListener= */ null,
+        /* templateProfiler= */ null,
+        /* bufferPool= */ null);
+  }
+
+  public SoySauceImpl(
+      CompiledTemplates templates,
+      ImmutableList<? extends SoyFunction> functions,
+      ImmutableList<? extends SoyPrintDirective> printDirectives,
+      PluginInstances pluginInstances,
+      @Nullable RenderMetricsListener renderMetricsListener,
+      @Nullable TemplateProfiler templateProfiler,
+      @Nullable RenderBufferPool bufferPool) {
     this.templates = checkNotNull(templates);
+    this.renderMetricsListener = renderMetricsListener;
+    this.templateProfiler = templateProfiler;
+    this.bufferPool = bufferPool;
     ImmutableMap.Builder<String, Supplier<Object>> pluginInstanceBuilder = ImmutableMap.builder();
 
     for (SoyFunction fn : functions) {
@@ -120,6 +151,21 @@ public final class SoySauceImpl implements SoySauce {
     }
   }
 
+  @Override
+  public CompletableFuture<Void> prewarm(Iterable<String> templateNames, Executor executor) {
+    List<CompletableFuture<Void>> futures = new ArrayList<>();
+    for (String templateName : templateNames) {
+      futures.add(
+          CompletableFuture.runAsync(() -> templates.loadTransitively(templateName), executor));
+    }
+    return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]));
+  }
+
+  @Override
+  public RenderProfile.Builder newRenderProfile() {
+    return new RenderProfile.Builder(this, pluginInstances);
+  }
+
   @Override
   public RendererImpl renderTemplate(String template) {
     CompiledTemplates.TemplateData data = templates.getTemplateData(template);
@@ -142,6 +188,8 @@ public final class SoySauceImpl implements SoySauce {
     private Predicate<String> activeModSelector;
     private SoyCssRenamingMap cssRenamingMap;
     private SoyIdRenamingMap xidRenamingMap;
+    @Nullable private RenamingMemo cssRenamingMemo;
+    @Nullable private RenamingMemo xidRenamingMemo;
     private PluginInstances pluginInstances = SoySauceImpl.this.pluginInstances;
     private SoyMsgBundle msgBundle;
     private boolean debugSoyTemplateInfo;
@@ -167,7 +215,7 @@ public final class SoySauceImpl implements SoySauce {
       }
     }
 
-    private RenderContext makeContext() {
+    private RenderContext makeContext(@Nullable LongSupplier charsWritten) {
       return new RenderContext(
           templates,
           printDirectives,
@@ -175,11 +223,21 @@ public final class SoySauceImpl implements SoySauce {
           ij,
           activeModSelector,
           cssRenamingMap,
+          cssRenamingMemo,
           xidRenamingMap,
+          xidRenamingMemo,
           msgBundle,
           debugSoyTemplateInfo,
           logger,
-          cssTracker);
+          cssTracker,
+          templateProfiler == null ? null : templateProfiler.newRecorder(charsWritten));
+    }
+
+    @Nullable
+    private RenderTracker makeTracker(@Nullable LongSupplier charsWritten) {
+      return renderMetricsListener == null
+          ? null
+          : new RenderTracker(renderMetricsListener, templateName, charsWritten);
     }
 
     private ParamStore mapAsParamStore(Map<String, ?> source) {
@@ -235,6 +293,7 @@ public final class SoySauceImpl implements SoySauce {
     @Override
     public RendererImpl setCssRenamingMap(SoyCssRenamingMap cssRenamingMap) {
       this.cssRenamingMap = checkNotNull(cssRenamingMap);
+      this.cssRenamingMemo = null;
       return this;
     }
 
@@ -242,6 +301,7 @@ public final class SoySauceImpl implements SoySauce {
     @Override
     public RendererImpl setXidRenamingMap(SoyIdRenamingMap xidRenamingMap) {
       this.xidRenamingMap = checkNotNull(xidRenamingMap);
+      this.xidRenamingMemo = null;
       return this;
     }
 
@@ -273,6 +333,22 @@ public final class SoySauceImpl implements SoySauce {
       return this;
     }
 
+    @CanIgnoreReturnValue
+    @Override
+    public RendererImpl setRenderProfile(RenderProfile profile) {
+      checkArgument(
+          profile.owner() == SoySauceImpl.this, "The profile was created by a different SoySauce");
+      this.pluginInstances = profile.pluginInstances();
+      this.activeModSelector = profile.activeModSelector();
+      this.cssRenamingMap = profile.cssRenamingMap();
+      this.cssRenamingMemo = profile.cssRenamingMemo();
+      this.xidRenamingMap = profile.xidRenamingMap();
+      this.xidRenamingMemo = profile.xidRenamingMemo();
+      this.msgBundle = profile.msgBundle();
+      this.debugSoyTemplateInfo = profile.debugSoyTemplateInfo();
+      return this;
+    }
+
     @Override
     public WriteContinuation renderHtml(AdvisingAppendable out) throws IOException {
       return startRender(out, ContentKind.HTML);
@@ -350,11 +426,21 @@ public final class SoySauceImpl implements SoySauce {
 
     private < T>
         Continuation<T> startRenderToValue(ContentKind contentKind) {
-      StringBuilder sb = new StringBuilder();
+      StringBuilder sb = bufferPool == null ? new StringBuilder() : bufferPool.acquire();
       ParamStore params = data == null ? ParamStore.EMPTY_INSTANCE : data;
-      RenderContext context = makeContext();
+      LongSupplier charsWritten = isInstrumented() ? sb::length : null;
+      RenderContext context = makeContext(charsWritten);
       OutputAppendable output = OutputAppendable.create(sb, context.getLogger());
-      return doRenderToValue(contentKind, sb, template, null, params, output, context);
+      return doRenderToValue(
+          contentKind,
+          sb,
+          bufferPool,
+          template,
+          null,
+          params,
+          output,
+          context,
+          makeTracker(charsWritten));
     }
 
     private WriteContinuation startRender(AdvisingAppendable out, ContentKind contentKind)
@@ -362,9 +448,20 @@ public final class SoySauceImpl implements SoySauce {
       enforceContentKind(contentKind);
 
       ParamStore params = data == null ? ParamStore.EMPTY_INSTANCE : data;
-      RenderContext context = makeContext();
+      LongSupplier charsWritten = null;
+      if (isInstrumented()) {
+        CountingAppendable counting = new CountingAppendable(out);
+        out = counting;
+        charsWritten = counting::count;
+      }
+      RenderContext context = makeContext(charsWritten);
       OutputAppendable output = OutputAppendable.create(out, context.getLogger());
-      return doRender(template, null, params, output, context);
+      return doRender(template, null, params, output, context, makeTracker(charsWritten));
+    }
+
+    /** Whether anything observes this render, in which case the output size must be tracked. */
+    private boolean isInstrumented() {
+      return renderMetricsListener != null || templateProfiler != null;
     }
 
     private void enforceContentKind(ContentKind expectedContentKind) {
@@ -390,21 +487,29 @@ public final class SoySauceImpl implements SoySauce {
       @Nullable StackFrame frame,
       ParamStore params,
       OutputAppendable output,
-      RenderContext context)
+      RenderContext context,
+      @Nullable RenderTracker tracker)
       throws IOException {
+    long sliceStart = tracker == null ? 0 : System.nanoTime();
     try {
       frame = template.render(frame, params, output, context);
     } catch (Throwable t) {
       context.suppressDeferredErrorsOnto(t);
       rewriteStackTrace(t);
+      if (tracker != null) {
+        tracker.failSlice(sliceStart, t);
+      }
       Throwables.throwIfInstanceOf(t, IOException.class);
       throw t;
     }
+    if (tracker != null) {
+      tracker.endSlice(sliceStart, frame == null ? null : frame.asRenderResult());
+    }
     if (frame == null) {
       context.logDeferredErrors();
       return Continuations.done();
     }
-    return new WriteContinuationImpl(template, frame, params, output, context);
+    return new WriteContinuationImpl(template, frame, params, output, context, tracker);
   }
 
   abstract static class ContinuationImpl {
@@ -426,6 +531,7 @@ public final class SoySauceImpl implements SoySauce {
     final ParamStore params;
     final OutputAppendable output;
     final RenderContext context;
+    @Nullable final RenderTracker tracker;
 
     boolean hasContinueBeenCalled;
 
@@ -439,12 +545,14 @@ public final class SoySauceImpl implements SoySauce {
         StackFrame frame,
         ParamStore params,
         OutputAppendable output,
-        RenderContext context) {
+        RenderContext context,
+        @Nullable RenderTracker tracker) {
       this.template = checkNotNull(template);
       this.frame = checkNotNull(frame);
       this.params = checkNotNull(params);
       this.output = checkNotNull(output);
       this.context = checkNotNull(context);
+      this.tracker = tracker;
     }
 
     void doContinue() {
@@ -462,14 +570,15 @@ public final class SoySauceImpl implements SoySauce {
         StackFrame frame,
         ParamStore params,
         OutputAppendable output,
-        RenderContext context) {
-      super(template, frame, params, output, context);
+        RenderContext context,
+        @Nullable RenderTracker tracker) {
+      super(template, frame, params, output, context, tracker);
     }
 
     @Override
     public WriteContinuation continueRender() throws IOException {
       doContinue();
-      return doRender(template, frame, params, output, context);
+      return doRender(template, frame, params, output, context, tracker);
     }
   }
 
@@ -477,12 +586,14 @@ public final class SoySauceImpl implements SoySauce {
       Continuation<T> doRenderToValue(
           ContentKind targetKind,
           StringBuilder underlying,
+          @Nullable RenderBufferPool bufferPool,
           CompiledTemplate template,
           @Nullable StackFrame frame,
           ParamStore params,
           OutputAppendable output,
-          RenderContext context) {
-
+          RenderContext context,
+          @Nullable RenderTracker tracker) {
+    long sliceStart = tracker == null ? 0 : System.nanoTime();
     try {
       frame = template.render(frame, params, output, context);
     } catch (IOException t) {
@@ -490,11 +601,23 @@ public final class SoySauceImpl implements SoySauce {
     } catch (Throwable t) {
       context.suppressDeferredErrorsOnto(t);
       rewriteStackTrace(t);
+      if (tracker != null) {
+        tracker.failSlice(sliceStart, t);
+      }
+      if (bufferPool != null) {
+        bufferPool.release(underlying);
+      }
       throw t;
     }
+    if (tracker != null) {
+      tracker.endSlice(sliceStart, frame == null ? null : frame.asRenderResult());
+    }
     if (frame == null) {
       context.logDeferredErrors();
       String content = underlying.toString();
+      if (bufferPool != null) {
+        bufferPool.release(underlying);
+      }
       if (targetKind == ContentKind.TEXT) {
         // these casts are lame, the way to resolve is simply to fork this method
         // based on String vs SanitizedContent
@@ -509,7 +632,7 @@ public final class SoySauceImpl implements SoySauce {
       return c;
     }
     return new ValueContinuationImpl<T>(
-        targetKind, underlying, template, frame, params, output, context);
+        targetKind, underlying, bufferPool, template, frame, params, output, context, tracker);
   }
 
   private static final class ValueContinuationImpl<
@@ -520,17 +643,22 @@ public final class SoySauceImpl implements SoySauce {
 
     final StringBuilder underlying;
 
+    @Nullable final RenderBufferPool bufferPool;
+
     ValueContinuationImpl(
         ContentKind targetKind,
         StringBuilder underlying,
+        @Nullable RenderBufferPool bufferPool,
         CompiledTemplate template,
         StackFrame frame,
         ParamStore params,
         OutputAppendable output,
-        RenderContext context) {
-      super(template, frame, params, output, context);
+        RenderContext context,
+        @Nullable RenderTracker tracker) {
+      super(template, frame, params, output, context, tracker);
       this.targetKind = checkNotNull(targetKind);
       this.underlying = checkNotNull(underlying);
+      this.bufferPool = bufferPool;
     }
 
     @Override
@@ -541,7 +669,8 @@ public final class SoySauceImpl implements SoySauce {
     @Override
     public Continuation<T> continueRender() {
       doContinue();
-      return doRenderToValue(targetKind, underlying, template, frame, params, output, context);
+      return doRenderToValue(
+          targetKind, underlying, bufferPool, template, frame, params, output, context, tracker);
     }
   }
 }
@@ -0,0 +1,221 @@
+/*
+ * Copyright 2024 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.jbcsrc.api;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.util.Comparator.comparingLong;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableList;
+import com.google.template.soy.jbcsrc.shared.TemplateProbeListener;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Aggregates, per template, the time spent and output written by renders of templates that were
+ * compiled with profiling probes.
+ *
+ * <p>Probes are enabled at compile time, with {@code SoyFileSet.Builder.setTemplateProfiler} or the
+ * {@code --profileTemplates} flag of the jbcsrc compiler, and the profiler receives the probes of
+ * every render of the {@link SoySauce} it is installed in. Templates compiled without probes are
+ * not profiled, they are accounted to their closest profiled caller.
+ *
+ * <p>A profiler may be read or {@linkplain #reset() reset} at any time while renders are running.
+ */
+public final class TemplateProfiler {
+
+  /** Creates an empty profiler. */
+  public static TemplateProfiler create() {
+    return new TemplateProfiler();
+  }
+
+  private final Map<String, Counters> counters = new ConcurrentHashMap<>();
+
+  private TemplateProfiler() {}
+
+  /** Returns the statistics for every template rendered so far, by decreasing exclusive time. */
+  public ImmutableList<TemplateStats> snapshot() {
+    return counters.entrySet().stream()
+        .map(e -> e.getValue().toStats(e.getKey()))
+        .sorted(
+            comparingLong(TemplateStats::exclusiveNanos)
+                .reversed()
+                .thenComparing(TemplateStats::templateName))
+        .collect(toImmutableList());
+  }
+
+  /** Discards all statistics gathered so far. */
+  public void reset() {
+    counters.clear();
+  }
+
+  /** Returns the current {@link #snapshot()} formatted as a table, one template per line. */
+  public String dump() {
+    StringBuilder sb = new StringBuilder();
+    sb.append(
+        String.format(
+            "%12s %12s %12s %12s %12s  %s%n",
+            "calls", "excl_us", "incl_us", "excl_chars", "incl_chars", "template"));
+    for (TemplateStats stats : snapshot()) {
+      sb.append(
+          String.format(
+              "%12d %12d %12d %12d %12d  %s%n",
+              stats.calls(),
+              TimeUnit.NANOSECONDS.toMicros(stats.exclusiveNanos()),
+              TimeUnit.NANOSECONDS.toMicros(stats.inclusiveNanos()),
+              stats.exclusiveChars(),
+              stats.inclusiveChars(),
+              stats.templateName()));
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Returns a listener that records a single render.
+   *
+   * @param charsWritten Returns the number of chars written to the output of the render so far.
+   */
+  TemplateProbeListener newRecorder(LongSupplier charsWritten) {
+    return new Recorder(charsWritten);
+  }
+
+  /**
+   * The statistics for a single template.
+   *
+   * <p>Inclusive figures include the templates it called, exclusive figures do not. Time spent
+   * paused waiting for futures or for the output to drain is not counted. The inclusive figures of
+   * recursive templates count the recursive calls more than once.
+   */
+  @AutoValue
+  public abstract static class TemplateStats {
+    static TemplateStats create(
+        String templateName,
+        long calls,
+        long inclusiveNanos,
+        long exclusiveNanos,
+        long inclusiveChars,
+        long exclusiveChars) {
+      return new AutoValue_TemplateProfiler_TemplateStats(
+          templateName, calls, inclusiveNanos, exclusiveNanos, inclusiveChars, exclusiveChars);
+    }
+
+    /** The fully qualified name of the template. */
+    public abstract String templateName();
+
+    /** The number of times the template was called. */
+    public abstract long calls();
+
+    /** The wall time spent rendering the template and its callees. */
+    public abstract long inclusiveNanos();
+
+    /** The wall time spent rendering the template itself. */
+    public abstract long exclusiveNanos();
+
+    /**
+     * The number of chars written to the output of the render while the template was rendering.
+     * Content that is buffered, such as {@code let} blocks and params, is attributed to the
+     * template that prints it.
+     */
+    public abstract long inclusiveChars();
+
+    /** The part of {@link #inclusiveChars()} that was not written by callees. */
+    public abstract long exclusiveChars();
+  }
+
+  private static final class Counters {
+    final LongAdder calls = new LongAdder();
+    final LongAdder inclusiveNanos = new LongAdder();
+    final LongAdder exclusiveNanos = new LongAdder();
+    final LongAdder inclusiveChars = new LongAdder();
+    final LongAdder exclusiveChars = new LongAdder();
+
+    TemplateStats toStats(String templateName) {
+      return TemplateStats.create(
+          templateName,
+          calls.sum(),
+          inclusiveNanos.sum(),
+          exclusiveNanos.sum(),
+          inclusiveChars.sum(),
+          exclusiveChars.sum());
+    }
+  }
+
+  private Counters counters(String templateName) {
+    return counters.computeIfAbsent(templateName, k -> new Counters());
+  }
+
+  /**
+   * Tracks the stack of templates of a single render. Renders are only advanced by one thread at a
+   * time, so this needs no synchronization.
+   */
+  private final class Recorder implements TemplateProbeListener {
+    final LongSupplier charsWritten;
+    String[] names = new String[16];
+    long[] startNanos = new long[16];
+    long[] childNanos = new long[16];
+    long[] startChars = new long[16];
+    long[] childChars = new long[16];
+    int depth;
+
+    Recorder(LongSupplier charsWritten) {
+      this.charsWritten = charsWritten;
+    }
+
+    @Override
+    public void enter(String templateName, boolean resumed) {
+      if (depth == names.length) {
+        int newLength = depth * 2;
+        names = Arrays.copyOf(names, newLength);
+        startNanos = Arrays.copyOf(startNanos, newLength);
+        childNanos = Arrays.copyOf(childNanos, newLength);
+        startChars = Arrays.copyOf(startChars, newLength);
+        childChars = Arrays.copyOf(childChars, newLength);
+      }
+      if (!resumed) {
+        counters(templateName).calls.increment();
+      }
+      names[depth] = templateName;
+      childNanos[depth] = 0;
+      childChars[depth] = 0;
+      startChars[depth] = charsWritten.getAsLong();
+      startNanos[depth] = System.nanoTime();
+      depth++;
+    }
+
+    @Override
+    public void exit() {
+      long now = System.nanoTime();
+      depth--;
+      long nanos = now - startNanos[depth];
+      long chars = charsWritten.getAsLong() - startChars[depth];
+      Counters template = counters(names[depth]);
+      template.inclusiveNanos.add(nanos);
+      template.exclusiveNanos.add(nanos - childNanos[depth]);
+      template.inclusiveChars.add(chars);
+      template.exclusiveChars.add(chars - childChars[depth]);
+      names[depth] = null;
+      if (depth > 0) {
+        childNanos[depth - 1] += nanos;
+        childChars[depth - 1] += chars;
+      }
+    }
+  }
+}
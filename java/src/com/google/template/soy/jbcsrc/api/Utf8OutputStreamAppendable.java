@@ -0,0 +1,163 @@
+/*
+ * Copyright 2024 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.jbcsrc.api;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * An {@link AdvisingAppendable} that encodes everything appended to it as UTF-8 straight into a
+ * reused byte buffer, which is written to an {@link OutputStream} whenever it fills up.
+ *
+ * <p>Appended strings are encoded in place, so the only copy between the template and the stream
+ * is the one made by {@link OutputStream#write(byte[], int, int)}. This avoids the intermediate
+ * char buffers of an {@link java.io.OutputStreamWriter}. The raw text of templates is not encoded
+ * at all, its {@linkplain PreEncodedText pre-encoded bytes} are copied.
+ *
+ * <p>Bytes are buffered until the buffer fills up, {@link #flush()} or {@link #close()} is called,
+ * so callers must call one of them once rendering is complete. Writes block, so this never reports
+ * a soft limit. Instances are not thread safe.
+ */
+public final class Utf8OutputStreamAppendable implements AdvisingAppendable, Flushable, Closeable {
+  private static final int DEFAULT_BUFFER_SIZE = 8 * 1024;
+
+  /** Returns an appendable writing to {@code out} through a buffer of the default size. */
+  public static Utf8OutputStreamAppendable create(OutputStream out) {
+    return create(out, DEFAULT_BUFFER_SIZE);
+  }
+
+  /** Returns an appendable writing to {@code out} through a buffer of {@code bufferSize} bytes. */
+  public static Utf8OutputStreamAppendable create(OutputStream out, int bufferSize) {
+    checkArgument(bufferSize >= 4, "bufferSize must fit any UTF-8 sequence: %s", bufferSize);
+    return new Utf8OutputStreamAppendable(checkNotNull(out), bufferSize);
+  }
+
+  private final OutputStream out;
+  private final ByteBuffer bytes;
+  private final CharsetEncoder encoder =
+      UTF_8
+          .newEncoder()
+          .onMalformedInput(CodingErrorAction.REPLACE)
+          .onUnmappableCharacter(CodingErrorAction.REPLACE);
+  // Holds a high surrogate that ended an append, until the append that holds its low surrogate.
+  private final CharBuffer pending = CharBuffer.allocate(2);
+
+  private Utf8OutputStreamAppendable(OutputStream out, int bufferSize) {
+    this.out = out;
+    this.bytes = ByteBuffer.allocate(bufferSize);
+  }
+
+  @CanIgnoreReturnValue
+  @Override
+  public Utf8OutputStreamAppendable append(CharSequence csq) throws IOException {
+    return append(csq, 0, csq.length());
+  }
+
+  @CanIgnoreReturnValue
+  @Override
+  public Utf8OutputStreamAppendable append(CharSequence csq, int start, int end)
+      throws IOException {
+    while (pending.position() > 0 && start < end) {
+      append(csq.charAt(start++));
+    }
+    if (start < end) {
+      encode(CharBuffer.wrap(csq, start, end), /* endOfInput= */ false);
+    }
+    return this;
+  }
+
+  @CanIgnoreReturnValue
+  @Override
+  public Utf8OutputStreamAppendable append(char c) throws IOException {
+    pending.put(c);
+    pending.flip();
+    encode(pending, /* endOfInput= */ false);
+    pending.compact();
+    return this;
+  }
+
+  @CanIgnoreReturnValue
+  @Override
+  public Utf8OutputStreamAppendable appendPreEncoded(PreEncodedText text) throws IOException {
+    if (pending.position() > 0) {
+      return append(text.toString());
+    }
+    if (text.utf8Length() <= bytes.remaining()) {
+      bytes.put(text.asUtf8Buffer());
+    } else {
+      drain();
+      text.writeUtf8To(out);
+    }
+    return this;
+  }
+
+  @Override
+  public boolean softLimitReached() {
+    return false;
+  }
+
+  /**
+   * Writes the buffered bytes and flushes the stream. A trailing unpaired high surrogate is kept
+   * until the next append, since its low surrogate may still follow.
+   */
+  @Override
+  public void flush() throws IOException {
+    drain();
+    out.flush();
+  }
+
+  /** Encodes any trailing unpaired surrogate, writes the buffered bytes and closes the stream. */
+  @Override
+  public void close() throws IOException {
+    pending.flip();
+    encode(pending, /* endOfInput= */ true);
+    pending.clear();
+    while (encoder.flush(bytes).isOverflow()) {
+      drain();
+    }
+    drain();
+    out.close();
+  }
+
+  private void encode(CharBuffer chars, boolean endOfInput) throws IOException {
+    while (encoder.encode(chars, bytes, endOfInput).isOverflow()) {
+      drain();
+    }
+    if (chars.hasRemaining() && chars != pending) {
+      // The encoder leaves a trailing high surrogate in the input until it sees what follows it.
+      pending.put(chars);
+    }
+  }
+
+  private void drain() throws IOException {
+    if (bytes.position() > 0) {
+      out.write(bytes.array(), bytes.arrayOffset(), bytes.position());
+      bytes.clear();
+    }
+  }
+}
@@ -32,6 +32,8 @@ public abstract class AbstractMemoryClassLoader extends ClassLoader
   private static final ProtectionDomain DEFAULT_PROTECTION_DOMAIN;
 
   static {
+    // Subclasses can only be parallel capable if we are too.
+    ClassLoader.registerAsParallelCapable();
     DEFAULT_PROTECTION_DOMAIN =
         AccessController.doPrivileged(
             (PrivilegedAction<ProtectionDomain>) MemoryClassLoader.class::getProtectionDomain);
@@ -66,6 +66,7 @@ import com.google.template.soy.data.restricted.PrimitiveData;
 import com.google.template.soy.data.restricted.StringData;
 import com.google.template.soy.data.restricted.UndefinedData;
 import com.google.template.soy.internal.proto.JavaQualifiedNames;
+import com.google.template.soy.jbcsrc.api.PreEncodedText;
 import com.google.template.soy.jbcsrc.api.RenderResult;
 import com.google.template.soy.jbcsrc.restricted.Expression.Feature;
 import com.google.template.soy.jbcsrc.restricted.Expression.Features;
@@ -74,6 +75,7 @@ import com.google.template.soy.jbcsrc.shared.CompiledTemplate;
 import com.google.template.soy.jbcsrc.shared.ExtraConstantBootstraps;
 import com.google.template.soy.jbcsrc.shared.LargeStringConstantFactory;
 import com.google.template.soy.jbcsrc.shared.Names;
+import com.google.template.soy.jbcsrc.shared.RenamingMemo;
 import com.google.template.soy.jbcsrc.shared.RenderContext;
 import com.google.template.soy.jbcsrc.shared.StackFrame;
 import com.google.template.soy.logging.LoggableElementMetadata;
@@ -189,6 +191,8 @@ public final class BytecodeUtils {
   public static final Type SAFE_HTML_TYPE = Type.getType(SafeHtml.class);
   public static final Type TRUSTED_RESOURCE_URL_TYPE = Type.getType(TrustedResourceUrl.class);
   public static final Type RECORD_SYMBOL_TYPE = Type.getType(RecordProperty.class);
+  public static final Type PRE_ENCODED_TEXT_TYPE = Type.getType(PreEncodedText.class);
+  private static final Type RENAMING_ID_TYPE = Type.getType(RenamingMemo.Id.class);
 
   public static final Method CLASS_INIT = Method.getMethod("void <clinit>()");
   public static final Method NULLARY_INIT = Method.getMethod("void <init>()");
@@ -258,6 +262,26 @@ public final class BytecodeUtils {
               Class.class)
           .asHandle();
 
+  private static final Handle PRE_ENCODED_TEXT_HANDLE =
+      MethodRef.createPure(
+              ExtraConstantBootstraps.class,
+              "preEncodedText",
+              MethodHandles.Lookup.class,
+              String.class,
+              Class.class,
+              String[].class)
+          .asHandle();
+
+  private static final Handle RENAMING_ID_HANDLE =
+      MethodRef.createPure(
+              ExtraConstantBootstraps.class,
+              "renamingId",
+              MethodHandles.Lookup.class,
+              String.class,
+              Class.class,
+              String.class)
+          .asHandle();
+
   private static final Handle CONSTANT_PARAM_STORE =
       MethodRef.createPure(
               ExtraConstantBootstraps.class,
@@ -510,6 +534,58 @@ public final class BytecodeUtils {
 
   /** Returns an {@link Expression} that can load the given String constant. */
   public static Expression constant(String value) {
+    List<String> stringConstants = splitStringConstant(value);
+    if (stringConstants.size() == 1) {
+      String basicString = stringConstants.get(0);
+      return new Expression(
+          STRING_TYPE,
+          Expression.ConstantValue.raw(basicString, STRING_TYPE),
+          Features.of(Feature.CHEAP, Feature.NON_JAVA_NULLABLE)) {
+        @Override
+        protected void doGen(CodeBuilder mv) {
+          mv.visitLdcInsn(basicString);
+        }
+      };
+    }
+    return constant(
+        STRING_TYPE,
+        new ConstantDynamic(
+            "largeString",
+            STRING_TYPE.getDescriptor(),
+            LARGE_STRING_CONSTANT_HANDLE,
+            stringConstants.toArray()),
+        Feature.NON_JAVA_NULLABLE.asFeatures());
+  }
+
+  /**
+   * Returns an {@link Expression} that loads a {@link PreEncodedText} for the given text. The
+   * constant is created on first use and shared by all the uses of the same text in a class.
+   */
+  public static Expression constantPreEncodedText(String value) {
+    return constant(
+        PRE_ENCODED_TEXT_TYPE,
+        new ConstantDynamic(
+            "preEncoded",
+            PRE_ENCODED_TEXT_TYPE.getDescriptor(),
+            PRE_ENCODED_TEXT_HANDLE,
+            splitStringConstant(value).toArray()),
+        Features.of(Feature.CHEAP, Feature.NON_JAVA_NULLABLE));
+  }
+
+  /**
+   * Returns an {@link Expression} that evaluates to the id that {@link
+   * ExtraConstantBootstraps#renamingId} assigns to the given {@code css()} or {@code xid()} name.
+   */
+  public static Expression constantRenamingId(String name) {
+    return constant(
+        RENAMING_ID_TYPE,
+        new ConstantDynamic(
+            "renamingId", RENAMING_ID_TYPE.getDescriptor(), RENAMING_ID_HANDLE, name),
+        Features.of(Feature.CHEAP, Feature.NON_JAVA_NULLABLE));
+  }
+
+  /** Splits the given string into parts that each fit in a class file string constant. */
+  private static List<String> splitStringConstant(String value) {
     // string constants use a "modified UTF8" encoding
     // https://en.wikipedia.org/wiki/UTF-8#Modified_UTF-8
     // and are limited by the classfile format to contain no more than 65535 bytes
@@ -543,26 +619,7 @@ public final class BytecodeUtils {
       index++;
     }
     stringConstants.add(value.substring(previousStart));
-    if (stringConstants.size() == 1) {
-      String basicString = stringConstants.get(0);
-      return new Expression(
-          STRING_TYPE,
-          Expression.ConstantValue.raw(basicString, STRING_TYPE),
-          Features.of(Feature.CHEAP, Feature.NON_JAVA_NULLABLE)) {
-        @Override
-        protected void doGen(CodeBuilder mv) {
-          mv.visitLdcInsn(basicString);
-        }
-      };
-    }
-    return constant(
-        STRING_TYPE,
-        new ConstantDynamic(
-            "largeString",
-            STRING_TYPE.getDescriptor(),
-            LARGE_STRING_CONSTANT_HANDLE,
-            stringConstants.toArray()),
-        Feature.NON_JAVA_NULLABLE.asFeatures());
+    return stringConstants;
   }
 
   /** Returns an {@link Expression} that evaluates to the given ContentKind, or null. */
@@ -378,6 +378,13 @@ public final class MethodRefs {
   public static final MethodRef PARAM_STORE_GET_PARAMETER_DEFAULT =
       createPure(ParamStore.class, "getParameter", RecordProperty.class, SoyValue.class);
 
+  public static final MethodRef PARAM_STORE_GET_PARAMETER_SLOT =
+      createPure(ParamStore.class, "getParameter", RecordProperty.class, int.class);
+
+  public static final MethodRef PARAM_STORE_GET_PARAMETER_SLOT_DEFAULT =
+      createPure(
+          ParamStore.class, "getParameter", RecordProperty.class, int.class, SoyValue.class);
+
   public static final MethodRef RUNTIME_PARAM_OR_DEFAULT =
       createPure(JbcSrcRuntime.class, "paramOrDefault", SoyValueProvider.class, SoyValue.class)
           .asCheap();
@@ -124,4 +124,29 @@ public interface SoyJbcSrcPrintDirective extends SoyPrintDirective {
     AppendableAndOptions applyForJbcSrcStreaming(
         JbcSrcPluginContext context, Expression delegateAppendable, List<SoyExpression> args);
   }
+
+  /**
+   * A print directive that can append its result straight to a {@link LoggingAdvisingAppendable}.
+   *
+   * <p>The compiler uses this when a print node ends with this directive but cannot be streamed,
+   * for example because its value is computed rather than read from a parameter. Implementations
+   * should write the result as they compute it rather than building a string and appending that.
+   */
+  interface AppendsDirectly extends SoyJbcSrcPrintDirective {
+    /**
+     * Applies the directive to the value and appends the result to the appendable.
+     *
+     * @param context The rendering context object.
+     * @param value The value to apply the directive on. This value may not yet have been coerced to
+     *     a string.
+     * @param appendable The appendable to append the result to.
+     * @param args The print directive arguments.
+     * @return An expression that performs the append and evaluates to {@code appendable}.
+     */
+    Expression applyForJbcSrcAndAppend(
+        JbcSrcPluginContext context,
+        SoyExpression value,
+        Expression appendable,
+        List<SoyExpression> args);
+  }
 }
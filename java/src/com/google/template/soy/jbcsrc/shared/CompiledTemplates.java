@@ -156,6 +156,14 @@ public class CompiledTemplates {
     return getTemplateData(name).positionalRenderMethod(arity);
   }
 
+  /**
+   * Loads the given template and every template it may call, including all possible targets of
+   * calls to modifiable templates. For lazily compiled templates this generates their classes.
+   */
+  public void loadTransitively(String templateName) {
+    collectTransitiveCallees(getTemplateData(templateName), new HashSet<>());
+  }
+
   /**
    * Returns the transitive closure of all the injected params that might be used by this template.
    */
@@ -27,6 +27,7 @@ import com.google.template.soy.data.SoyValueConverter;
 import com.google.template.soy.data.internal.ParamStore;
 import com.google.template.soy.data.internal.SoyMapImpl;
 import com.google.template.soy.data.internal.SoyRecordImpl;
+import com.google.template.soy.jbcsrc.api.PreEncodedText;
 import java.lang.invoke.MethodHandles;
 
 /** Extra constant bootstrap methods. */
@@ -104,6 +105,29 @@ public final class ExtraConstantBootstraps {
     return params.freeze();
   }
 
+  /**
+   * Returns the raw text made of the given parts, which are split like those of {@link
+   * LargeStringConstantFactory}.
+   */
+  @Keep
+  public static PreEncodedText preEncodedText(
+      MethodHandles.Lookup lookup, String name, Class<?> type, String... parts) {
+    return PreEncodedText.of(
+        parts.length == 1
+            ? parts[0]
+            : LargeStringConstantFactory.bootstrapLargeStringConstant(lookup, name, type, parts));
+  }
+
+  /**
+   * Returns the dense id of a name passed to {@code css()} or {@code xid()}, which indexes {@link
+   * RenamingMemo memoized} renamings.
+   */
+  @Keep
+  public static RenamingMemo.Id renamingId(
+      MethodHandles.Lookup lookup, String name, Class<?> type, String renamedName) {
+    return RenamingMemo.idOf(lookup.lookupClass().getClassLoader(), renamedName);
+  }
+
   @Keep
   public static RecordProperty symbol(MethodHandles.Lookup lookup, String name, Class<?> type) {
     return RecordProperty.get(name);
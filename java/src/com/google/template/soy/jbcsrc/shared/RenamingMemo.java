@@ -0,0 +1,134 @@
+/*
+ * Copyright 2024 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.jbcsrc.shared;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nullable;
+
+/**
+ * Memoizes the renamings of one css or xid renaming map.
+ *
+ * <p>Every name passed to {@code css()} or {@code xid()} in a template is interned to a dense
+ * {@link Id} when the template is loaded, see {@link ExtraConstantBootstraps#renamingId}. Ids are
+ * assigned per class loader, so there are only as many as the names in the templates it defines,
+ * and they go away with it. The memo is an array indexed by the id, so looking up a memoized
+ * renaming neither hashes nor allocates.
+ *
+ * <p>Memos may be shared by any number of renders. Races only ever cause a renaming to be computed
+ * more than once, so the renaming map must be a pure function.
+ */
+public final class RenamingMemo {
+  // Only used when constants are resolved. Tables don't reference their class loader, so they
+  // don't keep it alive.
+  private static final Map<ClassLoader, IdTable> tables = new WeakHashMap<>();
+
+  /** Returns the id of the given name in the templates defined by the given class loader. */
+  static Id idOf(ClassLoader loader, String name) {
+    IdTable table;
+    synchronized (tables) {
+      table = tables.computeIfAbsent(loader, k -> new IdTable());
+    }
+    return table.ids.computeIfAbsent(name, k -> new Id(table, table.size.getAndIncrement()));
+  }
+
+  /** The ids of the names in the templates defined by one class loader. */
+  private static final class IdTable {
+    final ConcurrentHashMap<String, Id> ids = new ConcurrentHashMap<>();
+    final AtomicInteger size = new AtomicInteger();
+  }
+
+  /** The id of a name passed to {@code css()} or {@code xid()}. */
+  public static final class Id {
+    private final IdTable table;
+    private final int index;
+
+    private Id(IdTable table, int index) {
+      this.table = table;
+      this.index = index;
+    }
+  }
+
+  /** The renamings of the names in one id table, indexed by id. */
+  private static final class Renamings {
+    final IdTable table;
+    final String[] values;
+
+    Renamings(IdTable table, String[] values) {
+      this.table = table;
+      this.values = values;
+    }
+  }
+
+  // Templates are usually all defined by one class loader, but may be split between a few, e.g.
+  // when some are defined by a parent loader. Beyond that, the oldest tables are dropped, since
+  // they most likely belong to templates that were reloaded.
+  private static final int MAX_TABLES = 4;
+
+  public static RenamingMemo create() {
+    return new RenamingMemo();
+  }
+
+  // One entry per id table. Replaced under the lock, elements of the arrays are written racily.
+  // Strings are immutable, so readers either see a complete renaming or a miss.
+  private volatile Renamings[] renamings = new Renamings[0];
+
+  private RenamingMemo() {}
+
+  @Nullable
+  String get(Id id) {
+    Renamings[] current = renamings;
+    int i = indexOf(current, id.table);
+    return i >= 0 && id.index < current[i].values.length ? current[i].values[id.index] : null;
+  }
+
+  void put(Id id, String renaming) {
+    Renamings[] current = renamings;
+    int i = indexOf(current, id.table);
+    if (i < 0 || id.index >= current[i].values.length) {
+      synchronized (this) {
+        current = renamings;
+        i = indexOf(current, id.table);
+        int length = Math.max(id.index + 1, id.table.size.get());
+        if (i < 0) {
+          int kept = Math.min(current.length, MAX_TABLES - 1);
+          current = Arrays.copyOfRange(current, current.length - kept, current.length + 1);
+          i = kept;
+          current[i] = new Renamings(id.table, new String[length]);
+          renamings = current;
+        } else if (id.index >= current[i].values.length) {
+          current = current.clone();
+          current[i] = new Renamings(id.table, Arrays.copyOf(current[i].values, length));
+          renamings = current;
+        }
+      }
+    }
+    current[i].values[id.index] = renaming;
+  }
+
+  private static int indexOf(Renamings[] renamings, IdTable table) {
+    for (int i = 0; i < renamings.length; i++) {
+      if (renamings[i].table == table) {
+        return i;
+      }
+    }
+    return -1;
+  }
+}
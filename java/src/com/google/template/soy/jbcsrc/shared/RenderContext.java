@@ -72,6 +72,8 @@ public final class RenderContext {
   private final CompiledTemplates templates;
   private final SoyCssRenamingMap cssRenamingMap;
   private final SoyIdRenamingMap xidRenamingMap;
+  @Nullable private final RenamingMemo cssRenamingMemo;
+  @Nullable private final RenamingMemo xidRenamingMemo;
   private final PluginInstances pluginInstances;
   private final ImmutableMap<String, SoyJavaPrintDirective> soyJavaDirectivesMap;
   private final SoyInjector ijData;
@@ -91,6 +93,7 @@ public final class RenderContext {
 
   private final boolean debugSoyTemplateInfo;
   private final SoyLogger logger;
+  @Nullable private final TemplateProbeListener probeListener;
 
   private List<ThrowingSoyValueProvider> deferredErrors;
 
@@ -105,7 +108,44 @@ public final class RenderContext {
       @Nullable SoyMsgBundle msgBundle,
       boolean debugSoyTemplateInfo,
       @Nullable SoyLogger logger,
-      @Nullable SoyCssTracker cssTracker) {
+      @Nullable SoyCssTracker cssTracker,
+      @Nullable TemplateProbeListener probeListener) {
+    this(
+        templates,
+        soyJavaDirectivesMap,
+        pluginInstances,
+        ijData,
+        activeModSelector,
+        cssRenamingMap,
+        /* cssRenamingMemo= */ null,
+        xidRenamingMap,
+        /* xidRenamingMemo= */ null,
+        msgBundle,
+        debugSoyTemplateInfo,
+        logger,
+        cssTracker,
+        probeListener);
+  }
+
+  /**
+   * Like the other constructor, but memoizes the renamings of {@code css()} and {@code xid()} in
+   * the given memos, which must only ever be used with the same renaming map.
+   */
+  public RenderContext(
+      CompiledTemplates templates,
+      ImmutableMap<String, SoyJavaPrintDirective> soyJavaDirectivesMap,
+      PluginInstances pluginInstances,
+      SoyInjector ijData,
+      @Nullable Predicate<String> activeModSelector,
+      @Nullable SoyCssRenamingMap cssRenamingMap,
+      @Nullable RenamingMemo cssRenamingMemo,
+      @Nullable SoyIdRenamingMap xidRenamingMap,
+      @Nullable RenamingMemo xidRenamingMemo,
+      @Nullable SoyMsgBundle msgBundle,
+      boolean debugSoyTemplateInfo,
+      @Nullable SoyLogger logger,
+      @Nullable SoyCssTracker cssTracker,
+      @Nullable TemplateProbeListener probeListener) {
     this.templates = templates;
     this.soyJavaDirectivesMap = soyJavaDirectivesMap;
     this.pluginInstances = pluginInstances;
@@ -113,10 +153,13 @@ public final class RenderContext {
     this.activeModSelector = activeModSelector != null ? activeModSelector : mod -> false;
     this.cssRenamingMap = cssRenamingMap == null ? SoyCssRenamingMap.EMPTY : cssRenamingMap;
     this.xidRenamingMap = xidRenamingMap == null ? SoyCssRenamingMap.EMPTY : xidRenamingMap;
+    this.cssRenamingMemo = cssRenamingMap == null ? null : cssRenamingMemo;
+    this.xidRenamingMemo = xidRenamingMap == null ? null : xidRenamingMemo;
     this.msgBundle = msgBundle == null ? SoyMsgBundle.EMPTY : msgBundle;
     this.debugSoyTemplateInfo = debugSoyTemplateInfo;
     this.logger = logger == null ? SoyLogger.NO_OP : logger;
     this.cssTracker = cssTracker;
+    this.probeListener = probeListener;
   }
 
   @Nullable
@@ -150,10 +193,34 @@ public final class RenderContext {
 
   @Nonnull
   public String renameCssSelector(String selector) {
+    return trackCssSelector(doRenameCssSelector(selector));
+  }
+
+  /**
+   * Renames the given selector, which has the given {@link ExtraConstantBootstraps#renamingId id}.
+   */
+  @Nonnull
+  public String renameCssSelector(String selector, RenamingMemo.Id selectorId) {
+    if (cssRenamingMemo == null) {
+      return renameCssSelector(selector);
+    }
+    String string = cssRenamingMemo.get(selectorId);
+    if (string == null) {
+      string = doRenameCssSelector(selector);
+      cssRenamingMemo.put(selectorId, string);
+    }
+    return trackCssSelector(string);
+  }
+
+  private String doRenameCssSelector(String selector) {
     String string = cssRenamingMap.get(selector);
     if (string == null) {
       string = Preconditions.checkNotNull(selector);
     }
+    return string;
+  }
+
+  private String trackCssSelector(String string) {
     if (cssTracker != null) {
       cssTracker.trackRequiredCssSelector(string);
     }
@@ -170,6 +237,20 @@ public final class RenderContext {
     return string == null ? id + "_" : string;
   }
 
+  /** Renames the given xid, which has the given {@link ExtraConstantBootstraps#renamingId id}. */
+  @Nonnull
+  public String renameXid(String id, RenamingMemo.Id xidId) {
+    if (xidRenamingMemo == null) {
+      return renameXid(id);
+    }
+    String string = xidRenamingMemo.get(xidId);
+    if (string == null) {
+      string = renameXid(id);
+      xidRenamingMemo.put(xidId, string);
+    }
+    return string;
+  }
+
   public Object getPluginInstance(String name) {
     Supplier<Object> instanceSupplier = pluginInstances.get(name);
     if (instanceSupplier == null) {
@@ -223,6 +304,20 @@ public final class RenderContext {
     return logger;
   }
 
+  /** Called by templates compiled with profiling enabled when they start rendering. */
+  public void enterTemplate(String templateName, @Nullable StackFrame frame) {
+    if (probeListener != null) {
+      probeListener.enter(templateName, frame != null);
+    }
+  }
+
+  /** Called by templates compiled with profiling enabled when they stop rendering. */
+  public void exitTemplate() {
+    if (probeListener != null) {
+      probeListener.exit();
+    }
+  }
+
   public CompiledTemplate getTemplate(String calleeName) {
     return templates.getTemplate(calleeName);
   }
@@ -518,6 +613,7 @@ public final class RenderContext {
     private SoyLogger logger;
     private SoyCssTracker cssTracker;
     private SoyInjector ijData;
+    private TemplateProbeListener probeListener;
 
     public Builder(
         CompiledTemplates templates,
@@ -582,6 +678,12 @@ public final class RenderContext {
       return this;
     }
 
+    @CanIgnoreReturnValue
+    public Builder withProbeListener(TemplateProbeListener probeListener) {
+      this.probeListener = checkNotNull(probeListener);
+      return this;
+    }
+
     public RenderContext build() {
       return new RenderContext(
           templates,
@@ -594,7 +696,8 @@ public final class RenderContext {
           msgBundle,
           debugSoyTemplateInfo,
           logger,
-          cssTracker);
+          cssTracker,
+          probeListener);
     }
   }
 }
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2024 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.jbcsrc.shared;
+
+/**
+ * Receives the probes that templates compiled with profiling enabled run around their render
+ * methods.
+ *
+ * <p>Calls are strictly nested: every {@link #enter} is followed by exactly one {@link #exit}, even
+ * if the template throws. A single listener only ever observes a single render.
+ */
+public interface TemplateProbeListener {
+  /**
+   * Called when a template starts rendering.
+   *
+   * @param templateName The fully qualified name of the template.
+   * @param resumed Whether the template is continuing a render that previously detached, rather
+   *     than being called.
+   */
+  void enter(String templateName, boolean resumed);
+
+  /** Called when the most recently entered template returns, detaches or throws. */
+  void exit();
+}
@@ -68,8 +68,9 @@ import javax.annotation.Nullable;
  *
  * <p>The reason things have been divided in this way is partially to create consistency and also to
  * enable other compiler features. For example, for in process (server side) compilation we can
- * cache the results of the single file passes to speed up edit-refresh flows. Also, theoretically,
- * we could run the single file passes for each file in parallel.
+ * cache the results of the single file passes to speed up edit-refresh flows. Also, the parse
+ * passes can be run for each file in parallel (see {@link
+ * #runParsePasses(SoyFileNode, IdGenerator, ErrorReporter)}).
  *
  * <p>A note on ordering. There is no real structure to the ordering of the passes beyond what is
  * documented in comments. Many passes do rely on running before/after a different pass (e.g. {@link
@@ -105,20 +106,30 @@ public final class PassManager {
 
   @VisibleForTesting final ImmutableList<CompilerFilePass> parsePasses;
   @VisibleForTesting final ImmutableList<CompilerFileSetPass> passes;
+  private final ErrorReporter errorReporter;
   private final AccumulatedState accumulatedState;
 
   private PassManager(
       ImmutableList<CompilerFilePass> parsePasses,
       ImmutableList<CompilerFileSetPass> passes,
+      ErrorReporter errorReporter,
       AccumulatedState accumulatedState) {
     this.parsePasses = parsePasses;
     this.passes = passes;
+    this.errorReporter = errorReporter;
     this.accumulatedState = accumulatedState;
     checkOrdering();
   }
 
-  public void runParsePasses(SoyFileNode file, IdGenerator nodeIdGen) {
-    for (CompilerFilePass pass : parsePasses) {
+  /**
+   * Runs the parse passes, reporting errors to the given reporter.
+   *
+   * <p>The parse passes don't depend on any configuration or shared state so this may be called
+   * concurrently for different files, as long as each uses its own reporter.
+   */
+  public void runParsePasses(SoyFileNode file, IdGenerator nodeIdGen, ErrorReporter reporter) {
+    for (CompilerFilePass pass :
+        reporter == errorReporter ? parsePasses : createParsePasses(reporter)) {
       pass.run(file, nodeIdGen);
     }
   }
@@ -747,7 +758,8 @@ public final class PassManager {
         throw new IllegalStateException(
             "The following continuation rules don't match any pass: " + passContinuationRegistry);
       }
-      return new PassManager(createParsePasses(errorReporter), passes.build(), accumulatedState);
+      return new PassManager(
+          createParsePasses(errorReporter), passes.build(), errorReporter, accumulatedState);
     }
 
     /** Adds the pass as a file set pass. */
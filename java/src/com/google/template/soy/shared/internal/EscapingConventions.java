@@ -254,6 +254,27 @@ public final class EscapingConventions {
       return sb != null ? sb.toString() : string;
     }
 
+    /**
+     * Appends the escaped form of the given string to {@code out}.
+     *
+     * <p>Runs of code units that need no escaping are appended as ranges of {@code s}, and a string
+     * that needs no escaping at all is appended as is, so no intermediate string is built.
+     */
+    public final void escapeOnto(String s, Appendable out) throws IOException {
+      int end = s.length();
+      if (indexOfFirstEscape(s, 0, end) == end) {
+        out.append(s);
+      } else {
+        maybeEscapeOnto(s, out, 0, end);
+      }
+    }
+
+    /** Appends the escaped form of the given range of the given sequence to {@code out}. */
+    public final void escapeOnto(CharSequence s, int start, int end, Appendable out)
+        throws IOException {
+      maybeEscapeOnto(s, out, start, end);
+    }
+
     /**
      * Escapes all the bytes written to the returned appendable with this strategy.
      *
@@ -330,7 +351,8 @@ public final class EscapingConventions {
     private Appendable maybeEscapeOnto(CharSequence s, @Nullable Appendable out, int start, int end)
         throws IOException {
       int pos = start;
-      for (int i = start; i < end; ++i) {
+      // Everything before the first code unit that needs escaping is copied in one go below.
+      for (int i = indexOfFirstEscape(s, start, end); i < end; ++i) {
         char c = s.charAt(i);
         if (c < escapesByCodeUnit.length) { // Use the dense map.
           String esc = escapesByCodeUnit[c];
@@ -367,6 +389,27 @@ public final class EscapingConventions {
       return out;
     }
 
+    /**
+     * Returns the index of the first code unit in the given range that needs escaping, or {@code
+     * end} if there is none. This is the hot loop for the common case of text with few or no
+     * escapes, so it only consults the dense map for ASCII code units.
+     */
+    private int indexOfFirstEscape(CharSequence s, int start, int end) {
+      String[] dense = escapesByCodeUnit;
+      for (int i = start; i < end; ++i) {
+        char c = s.charAt(i);
+        if (c < dense.length) {
+          if (dense[c] != null) {
+            return i;
+          }
+        } else if (c >= 0x80
+            && (nonAsciiPrefix != null || Arrays.binarySearch(nonAsciiCodeUnits, c) >= 0)) {
+          return i;
+        }
+      }
+      return end;
+    }
+
     /**
      * Appends a hex representation of the given code unit to out preceded by the {@link
      * #nonAsciiPrefix}.
@@ -1435,14 +1478,6 @@ public final class EscapingConventions {
           // terminated by a right angle bracket.
           "<" + HTML_TAG_FIRST_TOKEN_STR + "(?:[^>'\"]|\"[^\"]*\"|'[^']*')*>");
 
-  /**
-   * Used by custom loops in Java and JS. Matches the beginning of an HTML comment or element,
-   * assuming that the previous character is a '<'. e.g. matches "!--" (comment), "b" (open tag),
-   * "/b" (close tag). Must be used with {@link java.util.regex.Matcher#region}.
-   */
-  public static final Pattern HTML_TAG_FIRST_TOKEN =
-      Pattern.compile("^" + HTML_TAG_FIRST_TOKEN_STR);
-
   /**
    * Convert an ASCII string to full-width. Full-width characters are in Unicode page U+FFxx and are
    * used to allow ASCII characters to be embedded in written Chinese without breaking alignment --
@@ -0,0 +1,293 @@
+/*
+ * Copyright 2024 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.shared.internal;
+
+import com.google.common.base.Ascii;
+import com.google.template.soy.shared.internal.EscapingConventions.CrossLanguageStringXform;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.Nullable;
+
+/**
+ * The tokenizer behind {@link Sanitizers#stripHtmlTags} and {@code |cleanHtml}.
+ *
+ * <p>This is a hand written, single pass state machine over the input that writes its output
+ * directly to an {@link Appendable}. Text between tags is normalized as ranges of the input, and
+ * tags are only copied when they are in the whitelist, so the common case allocates nothing beyond
+ * the output.
+ */
+final class HtmlTagStripper {
+
+  /**
+   * Writes a snippet of HTML with the same text content as {@code s} but only whitelisted tags to
+   * {@code out}. See {@link Sanitizers#stripHtmlTags} for the meaning of the parameters.
+   */
+  static void strip(
+      CharSequence s,
+      @Nullable TagWhitelist safeTags,
+      boolean rawSpacesAllowed,
+      Appendable out)
+      throws IOException {
+    new HtmlTagStripper(s, safeTags, rawSpacesAllowed, out).run();
+  }
+
+  private final CharSequence s;
+  @Nullable private final TagWhitelist safeTags;
+  private final CrossLanguageStringXform normalizer;
+  private final Appendable out;
+
+  // We do some very simple tag balancing by dropping any close tags for unopened tags and at the
+  // end emitting close tags for any still open tags.
+  // This is sufficient (in HTML) to prevent embedded content with safe tags from breaking layout
+  // when, for example, stripHtmlTags("</table>") is embedded in a page that uses tables for
+  // formatting.
+  @Nullable private List<String> openTags;
+  private int openListTagCount;
+  private boolean wroteAnything;
+
+  private HtmlTagStripper(
+      CharSequence s, @Nullable TagWhitelist safeTags, boolean rawSpacesAllowed, Appendable out) {
+    this.s = s;
+    this.safeTags = safeTags;
+    this.normalizer =
+        rawSpacesAllowed
+            ? EscapingConventions.NormalizeHtml.INSTANCE
+            : EscapingConventions.NormalizeHtmlNospace.INSTANCE;
+    this.out = out;
+  }
+
+  private void run() throws IOException {
+    int length = s.length();
+    int i = 0;
+    while (i < length) {
+      int lt = indexOf('<', i, length);
+      if (lt < 0) {
+        // When nothing has been written yet, e.g. because all the tags so far were dropped, the
+        // whole input is normalized rather than just the rest of it, as this always has.
+        appendText(wroteAnything ? i : 0, length, /* isLast= */ true);
+        break;
+      }
+      appendText(i, lt, /* isLast= */ false);
+      int nameStart = -1;
+      int nameEnd = -1;
+      int j = lt + 1;
+      if (j < length && s.charAt(j) == '!') {
+        j++;
+      } else {
+        if (j < length && s.charAt(j) == '/') {
+          j++;
+        }
+        if (j < length && isAsciiLetter(s.charAt(j))) {
+          nameStart = j;
+          nameEnd = endOfName(j + 1, length);
+          j = nameEnd;
+        } else {
+          j = -1;
+        }
+      }
+      int tagEnd = j < 0 ? -1 : endOfTag(j, length);
+      if (tagEnd < 0) {
+        // Not a tag, or a tag that is never completed, e.g. "<b'<b>". Push the < and carry on
+        // after it, since we may have skipped over fully formed tags.
+        appendText(lt, lt + 1, /* isLast= */ false);
+        i = lt + 1;
+      } else {
+        appendTag(lt, nameStart, nameEnd, tagEnd);
+        i = tagEnd;
+      }
+    }
+    // Emit close tags, so that safeTags("<table>") can't break the layout of embedding HTML that
+    // uses tables for layout.
+    if (openTags != null) {
+      closeTags(openTags);
+    }
+  }
+
+  /** Normalizes the text in the given range onto the output. */
+  private void appendText(int start, int end, boolean isLast) throws IOException {
+    if (start == end) {
+      return;
+    }
+    // More aggressively normalize ampersands at the end of a chunk so that
+    //   "&<b>amp;</b>" -> "&amp;amp;" instead of "&amp;".
+    // The normalizers never escape ampersands, so this is the same as checking the output.
+    if (!isLast && s.charAt(end - 1) == '&') {
+      normalizer.escapeOnto(s, start, end - 1, out);
+      out.append("&amp;");
+    } else {
+      normalizer.escapeOnto(s, start, end, out);
+    }
+    wroteAnything = true;
+  }
+
+  /**
+   * Handles the tag {@code s[start, end)}, whose name is {@code s[nameStart, nameEnd)}, or which
+   * has no name when {@code nameStart} is negative.
+   */
+  private void appendTag(int start, int nameStart, int nameEnd, int end) throws IOException {
+    if (safeTags == null || nameStart < 0) {
+      return;
+    }
+    String tagName = Ascii.toLowerCase(s.subSequence(nameStart, nameEnd));
+    if (!safeTags.isSafeTag(tagName)) {
+      return;
+    }
+    if (s.charAt(start + 1) == '/') {
+      if (openTags != null) {
+        int lastIdx = openTags.lastIndexOf(tagName);
+        if (lastIdx >= 0) {
+          // Close contained tags as well. If we didn't, then we would convert
+          // "<ul><li></ul>" to "<ul><li></ul></li>" which could lead to broken layout for
+          // embedding HTML that uses lists for formatting. This leads to observably
+          // different behavior for adoption-agency dependent tag combinations like
+          // "<b><i>Foo</b> Bar</b>" but fails safe.
+          // http://www.whatwg.org/specs/web-apps/current-work/multipage/the-end.html#misnested-tags:-b-i-/b-/i
+          List<String> tagsToClose = openTags.subList(lastIdx, openTags.size());
+          for (String tagToClose : tagsToClose) {
+            if (isListTag(tagToClose)) {
+              openListTagCount--;
+            }
+          }
+          closeTags(tagsToClose);
+          wroteAnything = true;
+        }
+      }
+      return;
+    }
+    // Only allow whitelisted <li> through if it is nested in a parent <ol> or <ul>.
+    if (openListTagCount == 0 && "li".equals(tagName)) {
+      return;
+    }
+    if (isListTag(tagName)) {
+      openListTagCount++;
+    }
+    out.append('<').append(tagName);
+    appendDirAttribute(start, end);
+    out.append('>');
+    wroteAnything = true;
+    // Keep track of tags that need closing.
+    if (!Sanitizers.HTML5_VOID_ELEMENTS.contains(tagName)) {
+      if (openTags == null) {
+        openTags = new ArrayList<>();
+      }
+      openTags.add(tagName);
+    }
+  }
+
+  /**
+   * Most attributes are dropped, but the dir attribute is preserved if it exists.
+   *
+   * <p>This finds the same attributes as {@link Sanitizers#HTML_ATTRIBUTE_PATTERN}, i.e. a name
+   * followed by an optionally spaced {@code =} and a quoted value, anywhere in {@code s[start,
+   * end)}.
+   */
+  private void appendDirAttribute(int start, int end) throws IOException {
+    int p = start;
+    while (p < end) {
+      if (!isAsciiLetter(s.charAt(p))) {
+        p++;
+        continue;
+      }
+      int nameEnd = endOfName(p + 1, end);
+      int q = skipSpaces(nameEnd, end);
+      if (q < end && s.charAt(q) == '=') {
+        q = skipSpaces(q + 1, end);
+        if (q < end && (s.charAt(q) == '"' || s.charAt(q) == '\'')) {
+          int closeQuote = indexOf(s.charAt(q), q + 1, end);
+          if (closeQuote >= 0) {
+            if (nameEnd - p == 3 && Ascii.equalsIgnoreCase(s.subSequence(p, nameEnd), "dir")) {
+              String dir = Ascii.toLowerCase(s.subSequence(q + 1, closeQuote));
+              if ("ltr".equals(dir) || "rtl".equals(dir) || "auto".equals(dir)) {
+                out.append(" dir=\"").append(dir).append('"');
+              }
+              return;
+            }
+            p = closeQuote + 1;
+            continue;
+          }
+        }
+      }
+      // No attribute can start within this name either, since it would end at the same place.
+      p = nameEnd;
+    }
+  }
+
+  private void closeTags(List<String> tags) throws IOException {
+    for (int i = tags.size(); --i >= 0; ) {
+      out.append("</").append(tags.get(i)).append('>');
+    }
+    tags.clear();
+  }
+
+  /** Returns the index after the {@code >} that ends a tag whose name ends before {@code i}. */
+  private int endOfTag(int i, int end) {
+    while (i < end) {
+      char c = s.charAt(i++);
+      if (c == '>') {
+        return i;
+      }
+      if (c == '"' || c == '\'') {
+        int closeQuote = indexOf(c, i, end);
+        if (closeQuote < 0) {
+          return -1;
+        }
+        i = closeQuote + 1;
+      }
+    }
+    return -1;
+  }
+
+  private int endOfName(int i, int end) {
+    while (i < end && isNameChar(s.charAt(i))) {
+      i++;
+    }
+    return i;
+  }
+
+  private int skipSpaces(int i, int end) {
+    while (i < end) {
+      char c = s.charAt(i);
+      if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+        break;
+      }
+      i++;
+    }
+    return i;
+  }
+
+  private int indexOf(char c, int start, int end) {
+    for (int i = start; i < end; i++) {
+      if (s.charAt(i) == c) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static boolean isAsciiLetter(char c) {
+    return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+  }
+
+  private static boolean isNameChar(char c) {
+    return isAsciiLetter(c) || (c >= '0' && c <= '9') || c == ':' || c == '-';
+  }
+
+  private static boolean isListTag(String tagName) {
+    return "ol".equals(tagName) || "ul".equals(tagName);
+  }
+}
@@ -17,17 +17,14 @@
 package com.google.template.soy.shared.internal;
 
 import static com.google.common.flogger.StackSize.MEDIUM;
-import static com.google.template.soy.shared.internal.EscapingConventions.HTML_TAG_FIRST_TOKEN;
 import static java.lang.Math.min;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Ascii;
 import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
-import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Lists;
 import com.google.common.escape.Escaper;
 import com.google.common.flogger.GoogleLogger;
 import com.google.common.net.PercentEscaper;
@@ -47,12 +44,7 @@ import com.google.template.soy.data.restricted.NumberData;
 import com.google.template.soy.shared.internal.TagWhitelist.OptionalSafeTag;
 import java.io.IOException;
 import java.util.Collection;
-import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicReference;
-import java.util.function.BiFunction;
 import java.util.function.Function;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -166,13 +158,13 @@ public final class Sanitizers {
   }
 
   private static final class CleanHtmlAppendable extends AbstractStreamingHtmlEscaper {
-    private final Collection<? extends OptionalSafeTag> optionalSafeTags;
+    private final TagWhitelist safeTags;
 
     CleanHtmlAppendable(
         LoggingAdvisingAppendable delegate,
         Collection<? extends OptionalSafeTag> optionalSafeTags) {
       super(delegate, new StringBuilder());
-      this.optionalSafeTags = optionalSafeTags;
+      this.safeTags = TagWhitelist.FORMATTING.withOptionalSafeTags(optionalSafeTags);
     }
 
     @Override
@@ -226,8 +218,13 @@ public final class Sanitizers {
       if (!isInHtml()) {
         StringBuilder buffer = (StringBuilder) activeAppendable;
         if (buffer.length() > 0) {
-          cleanHtml(buffer.toString(), getSanitizedContentDirectionality(), optionalSafeTags)
-              .render(delegate);
+          // Strip the buffered content straight onto the delegate rather than via a string.
+          HtmlTagStripper.strip(
+              buffer,
+              safeTags,
+              /* rawSpacesAllowed= */ true,
+              delegate.setKindAndDirectionality(
+                  ContentKind.HTML, getSanitizedContentDirectionality()));
           buffer.setLength(0);
         }
       }
@@ -255,6 +252,26 @@ public final class Sanitizers {
     return escapeHtml(value);
   }
 
+  /** Appends {@code |escapeHtmlRcdata} of the value to {@code out}, escaping as it writes. */
+  @CanIgnoreReturnValue
+  public static LoggingAdvisingAppendable escapeHtmlRcdata(
+      LoggingAdvisingAppendable out, SoyValue value) throws IOException {
+    value = normalizeNull(value);
+    if (isSanitizedContentOfKind(value, SanitizedContent.ContentKind.HTML)) {
+      EscapingConventions.NormalizeHtml.INSTANCE.escapeOnto(value.coerceToString(), out);
+      return out;
+    }
+    return escapeHtmlRcdata(out, value.coerceToString());
+  }
+
+  /** Appends {@code |escapeHtmlRcdata} of the value to {@code out}, escaping as it writes. */
+  @CanIgnoreReturnValue
+  public static LoggingAdvisingAppendable escapeHtmlRcdata(
+      LoggingAdvisingAppendable out, String value) throws IOException {
+    EscapingConventions.EscapeHtml.INSTANCE.escapeOnto(value, out);
+    return out;
+  }
+
   /** Streaming version of {@code |escapeHtmlRcData}. */
   @Nonnull
   public static LoggingAdvisingAppendable escapeHtmlRcdataStreaming(
@@ -358,6 +375,25 @@ public final class Sanitizers {
     return EscapingConventions.EscapeHtml.INSTANCE.escape(value);
   }
 
+  /** Appends {@code |escapeHtmlAttribute} of the value to {@code out}, escaping as it writes. */
+  @CanIgnoreReturnValue
+  public static LoggingAdvisingAppendable escapeHtmlAttribute(
+      LoggingAdvisingAppendable out, SoyValue value) throws IOException {
+    value = normalizeNull(value);
+    if (isSanitizedContentOfKind(value, SanitizedContent.ContentKind.HTML)) {
+      return out.append(stripHtmlTags(value.coerceToString(), null, true));
+    }
+    return escapeHtmlAttribute(out, value.coerceToString());
+  }
+
+  /** Appends {@code |escapeHtmlAttribute} of the value to {@code out}, escaping as it writes. */
+  @CanIgnoreReturnValue
+  public static LoggingAdvisingAppendable escapeHtmlAttribute(
+      LoggingAdvisingAppendable out, String value) throws IOException {
+    EscapingConventions.EscapeHtml.INSTANCE.escapeOnto(value, out);
+    return out;
+  }
+
   @Nonnull
   public static LoggingAdvisingAppendable escapeHtmlAttributeStreaming(
       LoggingAdvisingAppendable appendable) {
@@ -405,6 +441,29 @@ public final class Sanitizers {
     return EscapingConventions.EscapeHtmlNospace.INSTANCE.escape(value);
   }
 
+  /**
+   * Appends {@code |escapeHtmlAttributeNospace} of the value to {@code out}, escaping as it writes.
+   */
+  @CanIgnoreReturnValue
+  public static LoggingAdvisingAppendable escapeHtmlAttributeNospace(
+      LoggingAdvisingAppendable out, SoyValue value) throws IOException {
+    value = normalizeNull(value);
+    if (isSanitizedContentOfKind(value, SanitizedContent.ContentKind.HTML)) {
+      return out.append(stripHtmlTags(value.coerceToString(), null, false));
+    }
+    return escapeHtmlAttributeNospace(out, value.coerceToString());
+  }
+
+  /**
+   * Appends {@code |escapeHtmlAttributeNospace} of the value to {@code out}, escaping as it writes.
+   */
+  @CanIgnoreReturnValue
+  public static LoggingAdvisingAppendable escapeHtmlAttributeNospace(
+      LoggingAdvisingAppendable out, String value) throws IOException {
+    EscapingConventions.EscapeHtmlNospace.INSTANCE.escapeOnto(value, out);
+    return out;
+  }
+
   @Nonnull
   public static LoggingAdvisingAppendable escapeHtmlAttributeNospaceStreaming(
       LoggingAdvisingAppendable appendable) {
@@ -636,6 +695,30 @@ public final class Sanitizers {
     return EscapingConventions.FilterNormalizeUri.INSTANCE.getInnocuousOutput();
   }
 
+  /** Appends {@code |filterNormalizeUri} of the value to {@code out}, escaping as it writes. */
+  @CanIgnoreReturnValue
+  public static LoggingAdvisingAppendable filterNormalizeUri(
+      LoggingAdvisingAppendable out, SoyValue value) throws IOException {
+    value = normalizeNull(value);
+    if (isSanitizedContentOfKind(value, SanitizedContent.ContentKind.URI)
+        || isSanitizedContentOfKind(value, SanitizedContent.ContentKind.TRUSTED_RESOURCE_URI)) {
+      EscapingConventions.NormalizeUri.INSTANCE.escapeOnto(value.coerceToString(), out);
+      return out;
+    }
+    return filterNormalizeUri(out, value.coerceToString());
+  }
+
+  /** Appends {@code |filterNormalizeUri} of the value to {@code out}, escaping as it writes. */
+  @CanIgnoreReturnValue
+  public static LoggingAdvisingAppendable filterNormalizeUri(
+      LoggingAdvisingAppendable out, String value) throws IOException {
+    if (EscapingConventions.FilterNormalizeUri.INSTANCE.getValueFilter().matcher(value).find()) {
+      EscapingConventions.FilterNormalizeUri.INSTANCE.escapeOnto(value, out);
+      return out;
+    }
+    return out.append(filterNormalizeUri(value));
+  }
+
   /**
    * Checks that a URI is safe to be an image source.
    *
@@ -1144,240 +1227,23 @@ public final class Sanitizers {
   @Nonnull
   public static String stripHtmlTags(
       String value, TagWhitelist safeTags, boolean rawSpacesAllowed) {
-    EscapingConventions.CrossLanguageStringXform normalizer =
-        rawSpacesAllowed
-            ? EscapingConventions.NormalizeHtml.INSTANCE
-            : EscapingConventions.NormalizeHtmlNospace.INSTANCE;
-
-    // We do some very simple tag balancing by dropping any close tags for unopened tags and at the
-    // end emitting close tags for any still open tags.
-    // This is sufficient (in HTML) to prevent embedded content with safe tags from breaking layout
-    // when, for example, stripHtmlTags("</table>") is embedded in a page that uses tables for
-    // formatting.
-    AtomicReference<List<String>> openTags = new AtomicReference<>(null);
-    AtomicInteger openListTagCount = new AtomicInteger(0);
-
-    CharSequence replaced =
-        replaceHtmlTags(
-            value,
-            (tag, tagName, startIndex, endIndex) -> {
-              if (safeTags == null || tagName == null) {
-                return "";
-              }
-              tagName = Ascii.toLowerCase(tagName);
-              if (!safeTags.isSafeTag(tagName)) {
-                return "";
-              }
-
-              StringBuilder out = new StringBuilder();
-              // Use locale so that <I> works when the default locale is Turkish
-              boolean isClose = tag.charAt(1) == '/';
-              if (isClose) {
-                if (openTags.get() != null) {
-                  int lastIdx = openTags.get().lastIndexOf(tagName);
-                  if (lastIdx >= 0) {
-                    // Close contained tags as well. If we didn't, then we would convert
-                    // "<ul><li></ul>" to "<ul><li></ul></li>" which could lead to broken layout for
-                    // embedding HTML that uses lists for formatting. This leads to observably
-                    // different behavior for adoption-agency dependent tag combinations like
-                    // "<b><i>Foo</b> Bar</b>" but fails safe.
-                    // http://www.whatwg.org/specs/web-apps/current-work/multipage/the-end.html#misnested-tags:-b-i-/b-/i
-                    List<String> tagsToClose =
-                        openTags.get().subList(lastIdx, openTags.get().size());
-                    for (String tagToClose : tagsToClose) {
-                      if (isListTag(tagToClose)) {
-                        openListTagCount.decrementAndGet();
-                      }
-                    }
-                    out.append(closeTags(tagsToClose));
-                  }
-                }
-              } else {
-                // Only allow whitelisted <li> through if it is nested in a parent <ol> or
-                // <ul>.
-                if (openListTagCount.get() > 0 || !"li".equals(tagName)) {
-                  if (isListTag(tagName)) {
-                    openListTagCount.incrementAndGet();
-                  }
-
-                  // Emit beginning of the opening tag and tag name on the un-normalized
-                  // channel.
-                  out.append('<').append(tagName);
-
-                  // Most attributes are dropped, but the dir attribute is preserved if it exists.
-                  // The attribute matching could be made more generic if more attributes need
-                  // to be whitelisted in the future. There are also probably other utilities in
-                  // common to do such parsing of HTML, but this seemed simple enough and keeps with
-                  // the current spirit of this function of doing custom parsing.
-                  Matcher attributeMatcher = HTML_ATTRIBUTE_PATTERN.matcher(tag);
-                  while (attributeMatcher.find()) {
-                    String attributeName = attributeMatcher.group(1);
-                    if (!Strings.isNullOrEmpty(attributeName)
-                        && Ascii.equalsIgnoreCase(attributeName, "dir")) {
-                      String dir = attributeMatcher.group(2);
-                      if (!Strings.isNullOrEmpty(dir)) {
-                        // Strip quotes if the attribute value was quoted.
-                        if (dir.charAt(0) == '\'' || dir.charAt(0) == '"') {
-                          dir = dir.substring(1, dir.length() - 1);
-                        }
-                        dir = Ascii.toLowerCase(dir);
-                        if ("ltr".equals(dir) || "rtl".equals(dir) || "auto".equals(dir)) {
-                          out.append(" dir=\"").append(dir).append("\"");
-                        }
-                      }
-                      break;
-                    }
-                  }
-
-                  // Emit the end of the opening tag
-                  out.append('>');
-
-                  // Keep track of tags that need closing.
-                  if (!HTML5_VOID_ELEMENTS.contains(tagName)) {
-                    if (openTags.get() == null) {
-                      openTags.set(Lists.newArrayList());
-                    }
-                    openTags.get().add(tagName);
-                  }
-                }
-              }
-              return out.toString();
-            },
-            (token, isLast) -> {
-              // More aggressively normalize ampersands at the end of a chunk so that
-              //   "&<b>amp;</b>" -> "&amp;amp;" instead of "&amp;".
-              token = normalizer.escape(token);
-              if (!isLast && token.endsWith("&")) {
-                token = token.substring(0, token.length() - 1) + "&amp;";
-              }
-              return token;
-            });
-
-    // Emit close tags, so that safeTags("<table>") can't break the layout of embedding HTML that
-    // uses tables for layout.
-    if (openTags.get() != null) {
-      replaced += closeTags(openTags.get());
-    }
-    return replaced.toString();
-  }
-
-  private enum State {
-    DEFAULT,
-    TAG;
-  }
-
-  /** Signature for callback passed to replaceHtmlTags() */
-  @FunctionalInterface
-  public interface ReplaceHtmlTagCallback {
-    String apply(String tag, String tagName, int startIndex, int endIndex);
-  }
-
-  public static CharSequence replaceHtmlTags(
-      String s, ReplaceHtmlTagCallback callback, BiFunction<String, Boolean, String> escaper) {
-    StringBuilder buffer = new StringBuilder();
-    int l = s.length();
-
-    State state = State.DEFAULT;
-    StringBuilder tagBuffer = null;
-    String tagName = null;
-    int tagStartIdx = -1;
-
-    int i = 0;
-    while (i < l) {
-      switch (state) {
-        case DEFAULT:
-          int nextLt = s.indexOf('<', i);
-          if (nextLt < 0) {
-            // No more < found, push remaining string on buffer and exit.
-            if (buffer.length() == 0) {
-              return escaper.apply(s, true);
-            }
-            buffer.append(escaper.apply(s.substring(i), true));
-            i = l;
-          } else {
-            // Push up to < onto buffer.
-            buffer.append(escaper.apply(s.substring(i, nextLt), false));
-            tagStartIdx = nextLt;
-            i = nextLt + 1;
-            // Search for required token after <
-            Matcher m = HTML_TAG_FIRST_TOKEN.matcher(s).region(i, s.length());
-            if (m.find()) {
-              tagBuffer = new StringBuilder().append('<').append(m.group(0));
-              tagName = m.group(1);
-              state = State.TAG;
-              i = m.end();
-            } else {
-              // Otherwise push < to the buffer and continue.
-              buffer.append(escaper.apply("<", false));
-            }
-          }
-          break;
-
-        case TAG:
-          char c = s.charAt(i++);
-          switch (c) {
-            case '\'':
-            case '"':
-              // Find the corresponding closing quote.
-              int nextQuote = s.indexOf(c, i);
-              if (nextQuote < 0) {
-                // If non closing we will have to backtrack.
-                i = l;
-              } else {
-                // Push full quote token onto tag buffer.
-                tagBuffer.append(c).append(s.substring(i, nextQuote + 1));
-                i = nextQuote + 1;
-              }
-              break;
-
-            case '>':
-              // We found the end of the tag!
-              tagBuffer.append(c);
-              buffer.append(callback.apply(tagBuffer.toString(), tagName, tagStartIdx, i));
-              state = State.DEFAULT;
-              tagBuffer = new StringBuilder();
-              tagName = null;
-              tagStartIdx = -1;
-              break;
-
-            default:
-              tagBuffer.append(c);
-          }
-          break;
-      }
-
-      // Check if we exhausted the input without completing the tag. In this case
-      // we need to backtrack because we may have skipped over fully formed tags
-      // while we thought we were in a tag. e.g.: <b'<b>
-      if (state == State.TAG && i >= l) {
-        // Push the < that started the incomplete tag and backtrack to the next
-        // character.
-        i = tagStartIdx + 1;
-        buffer.append(escaper.apply("<", false));
-        state = State.DEFAULT;
-        tagBuffer = new StringBuilder();
-        tagName = null;
-        tagStartIdx = -1;
-      }
+    if (value.indexOf('<') < 0) {
+      // There are no tags to strip, so this only needs normalizing.
+      return (rawSpacesAllowed
+              ? EscapingConventions.NormalizeHtml.INSTANCE
+              : EscapingConventions.NormalizeHtmlNospace.INSTANCE)
+          .escape(value);
     }
-
-    return buffer;
-  }
-
-
-  private static String closeTags(List<String> openTags) {
-    StringBuilder out = new StringBuilder();
-    for (int i = openTags.size(); --i >= 0; ) {
-      out.append("</").append(openTags.get(i)).append('>');
+    StringBuilder out = new StringBuilder(value.length() + 16);
+    try {
+      HtmlTagStripper.strip(value, safeTags, rawSpacesAllowed, out);
+    } catch (IOException e) {
+      // StringBuilders should not throw IOExceptions.
+      throw new AssertionError(e);
     }
-    openTags.clear();
     return out.toString();
   }
 
-  private static boolean isListTag(String tagName) {
-    return "ol".equals(tagName) || "ul".equals(tagName);
-  }
-
   /** From http://www.w3.org/TR/html-markup/syntax.html#syntax-elements */
   public static final ImmutableSet<String> HTML5_VOID_ELEMENTS =
       ImmutableSet.of(
@@ -20,6 +20,7 @@ import static com.google.template.soy.exprtree.ExprNodes.isNullishLiteral;
 
 import com.google.common.collect.ImmutableList;
 import com.google.template.soy.base.internal.Identifier;
+import com.google.template.soy.basetree.CopyState;
 import com.google.template.soy.data.SoyDataException;
 import com.google.template.soy.data.SoyValue;
 import com.google.template.soy.data.internalutils.InternalValueUtils;
@@ -63,11 +64,14 @@ import com.google.template.soy.exprtree.ProtoEnumValueNode;
 import com.google.template.soy.exprtree.RecordLiteralNode;
 import com.google.template.soy.exprtree.StringNode;
 import com.google.template.soy.exprtree.UndefinedNode;
+import com.google.template.soy.exprtree.VarRefNode;
 import com.google.template.soy.logging.LoggingFunction;
 import com.google.template.soy.shared.internal.BuiltinFunction;
 import com.google.template.soy.shared.internal.BuiltinMethod;
 import com.google.template.soy.sharedpasses.render.Environment;
 import com.google.template.soy.sharedpasses.render.RenderException;
+import com.google.template.soy.soytree.ConstNode;
+import com.google.template.soy.soytree.defn.ConstVar;
 import com.google.template.soy.types.AnyType;
 import com.google.template.soy.types.BoolType;
 import com.google.template.soy.types.SoyType;
@@ -517,6 +521,21 @@ final class SimplifyExprVisitor extends AbstractExprNodeVisitor<Void> {
     }
   }
 
+  @Override
+  protected void visitVarRefNode(VarRefNode node) {
+    // Inline file-level constants with primitive values, so that the expressions and print nodes
+    // that reference them can be evaluated at compile time as well.
+    if (node.getDefnDecl() instanceof ConstVar) {
+      ConstVar constVar = (ConstVar) node.getDefnDecl();
+      if (constVar.declaringNode() instanceof ConstNode) {
+        ExprNode value = ((ConstNode) constVar.declaringNode()).getExpr().getRoot();
+        if (isConstant(value)) {
+          node.getParent().replaceChild(node, value.copy(new CopyState()));
+        }
+      }
+    }
+  }
+
   // -----------------------------------------------------------------------------------------------
   // Fallback implementation.
 
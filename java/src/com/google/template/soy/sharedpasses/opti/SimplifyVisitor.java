@@ -59,6 +59,7 @@ import com.google.template.soy.soytree.AbstractSoyNodeVisitor;
 import com.google.template.soy.soytree.CallBasicNode;
 import com.google.template.soy.soytree.CallParamContentNode;
 import com.google.template.soy.soytree.CallParamValueNode;
+import com.google.template.soy.soytree.ConstNode;
 import com.google.template.soy.soytree.ForNode;
 import com.google.template.soy.soytree.ForNonemptyNode;
 import com.google.template.soy.soytree.HtmlAttributeNode;
@@ -133,6 +134,10 @@ public final class SimplifyVisitor {
 
   /** Simplifies the given file set. */
   public void simplify(SoyFileNode file) {
+    // Simplify the constants first, so that references to them can be inlined.
+    for (ConstNode constNode : file.getConstants()) {
+      simplifyExprVisitor.exec(constNode.getExpr());
+    }
     impl.exec(file);
   }
 
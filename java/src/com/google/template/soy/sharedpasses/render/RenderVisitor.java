@@ -624,7 +624,7 @@ public class RenderVisitor extends AbstractSoyNodeVisitor<Void> {
       // data record to make sure any default parameters are set to the default in the data record.
       for (TemplateParam param : params) {
         var paramSymbol = RecordProperty.get(param.name());
-        if (param.hasDefault() && !data.containsKey(paramSymbol)) {
+        if (param.hasDefault() && !data.hasField(paramSymbol)) {
           if (dataWithDefaults == null) {
             dataWithDefaults = new ParamStore(data, params.size());
           }
@@ -60,6 +60,7 @@ import com.google.template.soy.types.SoyTypeRegistry;
 import com.google.template.soy.types.SoyTypeRegistryBuilder;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Executor;
 import javax.annotation.Nullable;
 
 /** Fluent builder for configuring {@link com.google.template.soy.SoyFileSetParser}s in tests. */
@@ -68,6 +69,7 @@ public final class SoyFileSetParserBuilder {
   private final ImmutableMap<SourceLogicalPath, SoyFileSupplier> soyFileSuppliers;
   private SoyTypeRegistry typeRegistry = SoyTypeRegistryBuilder.create();
   @Nullable private SoyAstCache astCache = null;
+  @Nullable private Executor executor = null;
   private ErrorReporter errorReporter = ErrorReporter.exploding(); // See #parse for discussion.
   private boolean allowUnboundGlobals;
   private boolean allowUnknownJsGlobals;
@@ -197,6 +199,13 @@ public final class SoyFileSetParserBuilder {
     return this;
   }
 
+  /** Parses files in parallel on the given executor. Returns this object, for chaining. */
+  @CanIgnoreReturnValue
+  public SoyFileSetParserBuilder executor(Executor executor) {
+    this.executor = checkNotNull(executor);
+    return this;
+  }
+
   @CanIgnoreReturnValue
   public SoyFileSetParserBuilder errorReporter(ErrorReporter errorReporter) {
     this.errorReporter = errorReporter;
@@ -440,6 +449,7 @@ public final class SoyFileSetParserBuilder {
     }
     return SoyFileSetParser.newBuilder()
         .setCache(astCache)
+        .setExecutor(executor)
         .setSoyFileSuppliers(soyFileSuppliers)
         .setCompilationUnits(compilationUnits)
         .setTypeRegistry(typeRegistry)
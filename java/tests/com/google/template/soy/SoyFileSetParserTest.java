@@ -0,0 +1,117 @@
+/*
+ * Copyright 2024 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.template.soy.SoyFileSetParser.ParseResult;
+import com.google.template.soy.error.ErrorReporter;
+import com.google.template.soy.error.SoyError;
+import com.google.template.soy.soytree.SoyFileNode;
+import com.google.template.soy.soytree.SoyFileSetNode;
+import com.google.template.soy.soytree.SoyNode;
+import com.google.template.soy.soytree.SoyTreeUtils;
+import com.google.template.soy.testing.SoyFileSetParserBuilder;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link SoyFileSetParser}. */
+@RunWith(JUnit4.class)
+public final class SoyFileSetParserTest {
+  private static final int NUM_FILES = 32;
+
+  private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void testParallelParse_assignsSameIdsAsSequentialParse() {
+    String[] files = new String[NUM_FILES];
+    for (int i = 0; i < NUM_FILES; i++) {
+      files[i] =
+          "{namespace ns"
+              + i
+              + "}\n"
+              + "{template foo}\n"
+              + "  {@param p: string}\n"
+              + "  <div>{msg desc=\"...\"}Hello {$p}{/msg}</div>\n"
+              + "{/template}\n";
+    }
+
+    ParseResult sequential = SoyFileSetParserBuilder.forFileContents(files).parse();
+    ParseResult parallel =
+        SoyFileSetParserBuilder.forFileContents(files).executor(executor).parse();
+
+    assertThat(nodeIds(parallel.fileSet())).isEqualTo(nodeIds(sequential.fileSet()));
+    assertThat(sources(parallel.fileSet())).isEqualTo(sources(sequential.fileSet()));
+  }
+
+  @Test
+  public void testParallelParse_reportsErrorsInInputOrder() {
+    String[] files = new String[NUM_FILES];
+    for (int i = 0; i < NUM_FILES; i++) {
+      files[i] =
+          "{namespace ns"
+              + i
+              + "}\n"
+              + "{template foo}\n"
+              // A parse pass error, followed by a parse error on every other file.
+              + "  <div class=\"a\" class=\"b\"></div>\n"
+              + (i % 2 == 0 ? "  {if}\n" : "")
+              + "{/template}\n";
+    }
+
+    ErrorReporter sequentialErrors = ErrorReporter.create();
+    SoyFileSetParserBuilder.forFileContents(files).errorReporter(sequentialErrors).parse();
+    ErrorReporter parallelErrors = ErrorReporter.create();
+    ParseResult parallel =
+        SoyFileSetParserBuilder.forFileContents(files)
+            .errorReporter(parallelErrors)
+            .executor(executor)
+            .parse();
+
+    assertThat(parallel.hasRegistry()).isFalse();
+    assertThat(parallelErrors.getErrors()).hasSize(sequentialErrors.getErrors().size());
+    assertThat(errorStrings(parallelErrors)).isEqualTo(errorStrings(sequentialErrors));
+  }
+
+  private static ImmutableList<Integer> nodeIds(SoyFileSetNode fileSet) {
+    return SoyTreeUtils.allNodes(fileSet)
+        .filter(SoyNode.class::isInstance)
+        .map(n -> ((SoyNode) n).getId())
+        .collect(toImmutableList());
+  }
+
+  private static ImmutableList<String> sources(SoyFileSetNode fileSet) {
+    return fileSet.getChildren().stream()
+        .map(SoyFileNode::toSourceString)
+        .collect(toImmutableList());
+  }
+
+  private static ImmutableList<String> errorStrings(ErrorReporter reporter) {
+    return reporter.getReports().stream().map(SoyError::toString).collect(toImmutableList());
+  }
+}
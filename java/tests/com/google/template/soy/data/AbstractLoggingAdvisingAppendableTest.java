@@ -18,10 +18,14 @@ package com.google.template.soy.data;
 import static com.google.common.truth.Truth.assertThat;
 
 import com.google.common.base.Functions;
+import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.template.soy.data.LoggingAdvisingAppendable.BufferingAppendable;
+import com.google.template.soy.data.SanitizedContent.ContentKind;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
@@ -110,4 +114,40 @@ public final class AbstractLoggingAdvisingAppendableTest {
         ImmutableList.of(Functions.forMap(ImmutableMap.of("placeholder", "replacement"))));
     assertThat(buffering.toString()).isEqualTo("replacement");
   }
+
+  @Test
+  public void testBuffering_sharesLongStrings() throws IOException {
+    String inner = Strings.repeat("<b>x</b>", 100);
+    BufferingAppendable nested = LoggingAdvisingAppendable.buffering(ContentKind.HTML);
+    nested.append("<p>").append(inner).append("</p>");
+    SanitizedContent content = nested.getAsSanitizedContent();
+    BufferingAppendable outer = LoggingAdvisingAppendable.buffering(ContentKind.HTML);
+    content.render(outer);
+    List<CharSequence> appended = new ArrayList<>();
+    outer
+        .getAsSanitizedContent()
+        .render(
+            LoggingAdvisingAppendable.delegating(
+                new Appendable() {
+                  @Override
+                  public Appendable append(CharSequence csq) {
+                    appended.add(csq);
+                    return this;
+                  }
+
+                  @Override
+                  public Appendable append(CharSequence csq, int start, int end) {
+                    return append(csq.subSequence(start, end));
+                  }
+
+                  @Override
+                  public Appendable append(char c) {
+                    return append(String.valueOf(c));
+                  }
+                }));
+
+    assertThat(content.getContent()).isEqualTo("<p>" + inner + "</p>");
+    assertThat(appended).hasSize(3);
+    assertThat(appended.get(1)).isSameInstanceAs(inner);
+  }
 }
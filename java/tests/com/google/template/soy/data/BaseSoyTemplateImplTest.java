@@ -0,0 +1,124 @@
+/*
+ * Copyright 2024 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.data;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import com.google.template.soy.data.BaseSoyTemplateImpl.AbstractBuilder;
+import com.google.template.soy.data.restricted.NullData;
+import com.google.template.soy.data.restricted.StringData;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for the conversion helpers of {@link BaseSoyTemplateImpl.AbstractBuilder}. */
+@RunWith(JUnit4.class)
+public final class BaseSoyTemplateImplTest {
+
+  /** Converts strings and counts how many times it was called. */
+  private static final class CountingConverter implements Function<String, SoyValueProvider> {
+    int calls;
+
+    @Override
+    public SoyValueProvider apply(String value) {
+      calls++;
+      return StringData.forValue(value);
+    }
+  }
+
+  @Test
+  public void testAsLazyList() {
+    CountingConverter converter = new CountingConverter();
+    List<String> values = new ArrayList<>(Arrays.asList("a", "b"));
+    SoyList list = AbstractBuilder.asLazyList(values, converter);
+    // Changes made by the caller after the setter returns are not visible.
+    values.add("c");
+    values.set(0, "z");
+
+    assertThat(converter.calls).isEqualTo(0);
+    assertThat(list.length()).isEqualTo(2);
+    assertThat(list.get(1)).isEqualTo(StringData.forValue("b"));
+    assertThat(list.get(1)).isEqualTo(StringData.forValue("b"));
+    assertThat(converter.calls).isEqualTo(1);
+    assertThat(list.get(0)).isEqualTo(StringData.forValue("a"));
+    assertThat(converter.calls).isEqualTo(2);
+  }
+
+  @Test
+  public void testAsLazyList_nullElement() {
+    assertThrows(
+        NullPointerException.class,
+        () -> AbstractBuilder.asLazyList(Arrays.asList("a", null), new CountingConverter()));
+  }
+
+  @Test
+  public void testAsNullableLazyList() {
+    CountingConverter converter = new CountingConverter();
+    assertThat(AbstractBuilder.asNullableLazyList(null, converter)).isEqualTo(NullData.INSTANCE);
+    SoyValue list = AbstractBuilder.asNullableLazyList(Arrays.asList("a"), converter);
+    assertThat(converter.calls).isEqualTo(0);
+    assertThat(((SoyList) list).get(0)).isEqualTo(StringData.forValue("a"));
+  }
+
+  @Test
+  public void testAsLazyLegacyObjectMap() {
+    CountingConverter converter = new CountingConverter();
+    Map<String, String> values = new HashMap<>();
+    values.put("a", "1");
+    values.put("b", "2");
+    SoyLegacyObjectMap map = AbstractBuilder.asLazyLegacyObjectMap(values, converter);
+    // Changes made by the caller after the setter returns are not visible.
+    values.put("c", "3");
+    values.put("a", "changed");
+
+    assertThat(converter.calls).isEqualTo(0);
+    assertThat(map.getItemCnt()).isEqualTo(2);
+    assertThat(map.hasItem(StringData.forValue("c"))).isFalse();
+    assertThat(map.getItem(StringData.forValue("a"))).isEqualTo(StringData.forValue("1"));
+    assertThat(map.getItem(StringData.forValue("a"))).isEqualTo(StringData.forValue("1"));
+    assertThat(converter.calls).isEqualTo(1);
+  }
+
+  @Test
+  public void testAsLazyLegacyObjectMap_nullValue() {
+    Map<String, String> values = new HashMap<>();
+    values.put("a", null);
+    assertThrows(
+        NullPointerException.class,
+        () -> AbstractBuilder.asLazyLegacyObjectMap(values, new CountingConverter()));
+  }
+
+  @Test
+  public void testAsNullableLazyLegacyObjectMap() {
+    CountingConverter converter = new CountingConverter();
+    assertThat(AbstractBuilder.asNullableLazyLegacyObjectMap(null, converter))
+        .isEqualTo(NullData.INSTANCE);
+    Map<String, String> values = new HashMap<>();
+    values.put("a", "1");
+    SoyValue map = AbstractBuilder.asNullableLazyLegacyObjectMap(values, converter);
+    assertThat(converter.calls).isEqualTo(0);
+    assertThat(((SoyLegacyObjectMap) map).getItem(StringData.forValue("a")))
+        .isEqualTo(StringData.forValue("1"));
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2024 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.data;
+
+import com.google.template.soy.testing.ExampleExtendable;
+import com.google.template.soy.testing.SomeEmbeddedMessage;
+import com.google.template.soy.testing.SomeEnum;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for {@link SoyProtoValue#getProtoField}, which is how Tofu and dynamic accesses in
+ * jbcsrc read proto fields.
+ *
+ * <pre>
+ *   mvn -Pbenchmarks clean test -DskipTests -Djmh.args="SoyProtoValueBenchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SoyProtoValueBenchmark {
+
+  @Param({
+    "intField",
+    "longField",
+    "boolField",
+    "stringField",
+    "someEnum",
+    "someEmbeddedMessage",
+    "repeatedEmbeddedMessageList"
+  })
+  String field;
+
+  private SoyProtoValue value;
+
+  @Setup
+  public void setUp() {
+    SomeEmbeddedMessage embedded =
+        SomeEmbeddedMessage.newBuilder().setSomeEmbeddedNum(1).setSomeEmbeddedString("a").build();
+    value =
+        SoyProtoValue.create(
+            ExampleExtendable.newBuilder()
+                .setIntField(1)
+                .setLongField(2)
+                .setBoolField(true)
+                .setStringField("string")
+                .setSomeEnum(SomeEnum.SECOND)
+                .setSomeEmbeddedMessage(embedded)
+                .addRepeatedEmbeddedMessage(embedded)
+                .addRepeatedEmbeddedMessage(embedded)
+                .build());
+  }
+
+  @Benchmark
+  public SoyValue getProtoField() {
+    return value.getProtoField(field);
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2024 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.data;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.DynamicMessage;
+import com.google.template.soy.data.restricted.UndefinedData;
+import com.google.template.soy.testing.ExampleExtendable;
+import com.google.template.soy.testing.SomeEmbeddedMessage;
+import com.google.template.soy.testing.SomeEnum;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for SoyProtoValue. */
+@RunWith(JUnit4.class)
+public class SoyProtoValueTest {
+
+  private static final SomeEmbeddedMessage EMBEDDED =
+      SomeEmbeddedMessage.newBuilder().setSomeEmbeddedNum(1).build();
+
+  private static final ExampleExtendable PROTO =
+      ExampleExtendable.newBuilder()
+          .setIntField(1)
+          .setLongField(2)
+          .setBoolField(true)
+          .setFloatField(1.5f)
+          .setStringField("string")
+          .setByteField(ByteString.copyFromUtf8("bytes"))
+          .setSomeEnum(SomeEnum.SECOND)
+          .setSomeEmbeddedMessage(EMBEDDED)
+          .addRepeatedEmbeddedMessage(EMBEDDED)
+          .addRepeatedLongWithInt52JsType(3)
+          .build();
+
+  @Test
+  public void testGeneratedAndDynamicMessagesAgree() {
+    // The generated message is read with its typed getters, the dynamic one with reflection.
+    SoyProtoValue generated = SoyProtoValue.create(PROTO);
+    SoyProtoValue dynamic = SoyProtoValue.create(DynamicMessage.newBuilder(PROTO).build());
+    for (String field :
+        new String[] {
+          "intField",
+          "longField",
+          "boolField",
+          "floatField",
+          "stringField",
+          "byteField",
+          "someEnum",
+          "someNumWithDefault",
+          "someNumNoDefault"
+        }) {
+      assertThat(generated.getProtoField(field)).isEqualTo(dynamic.getProtoField(field));
+      assertThat(generated.hasProtoField(field)).isEqualTo(dynamic.hasProtoField(field));
+    }
+    assertThat(generated.getProtoField("someNumWithDefault").integerValue()).isEqualTo(31337);
+    assertThat(generated.hasProtoField("someNumWithDefault")).isFalse();
+    assertThat(generated.getProtoFieldOrNull("someNumNoDefault"))
+        .isEqualTo(UndefinedData.INSTANCE);
+    assertThat(generated.getProtoField("someEnum").integerValue()).isEqualTo(2);
+    assertThat(generated.getProtoField("someEmbeddedMessage").getProto())
+        .isSameInstanceAs(EMBEDDED);
+    assertThat(dynamic.getProtoField("someEmbeddedMessage").getProto()).isEqualTo(EMBEDDED);
+    assertThat(
+            generated
+                .getProtoField("repeatedEmbeddedMessageList")
+                .asJavaList()
+                .get(0)
+                .resolve()
+                .getProto())
+        .isSameInstanceAs(EMBEDDED);
+    assertThat(
+            generated
+                .getProtoField("repeatedLongWithInt52JsTypeList", /* forceStringConversion= */ true)
+                .asJavaList()
+                .get(0)
+                .resolve()
+                .stringValue())
+        .isEqualTo("3");
+  }
+
+  @Test
+  public void testUnsetMessageField() {
+    SoyProtoValue value = SoyProtoValue.create(ExampleExtendable.getDefaultInstance());
+    assertThat(value.hasProtoField("someEmbeddedMessage")).isFalse();
+    assertThat(value.getProtoField("someEmbeddedMessage")).isEqualTo(UndefinedData.INSTANCE);
+    assertThat(value.getProtoField("repeatedEmbeddedMessageList").asJavaList()).isEmpty();
+  }
+}
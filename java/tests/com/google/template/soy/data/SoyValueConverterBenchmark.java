@@ -0,0 +1,106 @@
+/*
+ * Copyright 2024 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.data;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.html.types.SafeHtmls;
+import com.google.template.soy.testing.SomeEmbeddedMessage;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks for {@link SoyValueConverter#convert}, the per-value cost of passing Java data to a
+ * template.
+ *
+ * <p>Each benchmark converts {@value #SIZE} values of one kind, or of a mix of kinds for {@code
+ * mixed}, and reports the throughput per converted value.
+ *
+ * <pre>
+ *   mvn -Pbenchmarks clean test -DskipTests -Djmh.args="SoyValueConverterBenchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SoyValueConverterBenchmark {
+  private static final int SIZE = 1000;
+
+  @Param({"strings", "longs", "booleans", "protos", "mixed"})
+  String values;
+
+  private Object[] inputs;
+
+  @Setup
+  public void setUp() {
+    inputs = new Object[SIZE];
+    for (int i = 0; i < SIZE; i++) {
+      String kind = values.equals("mixed") ? MIXED_KINDS[i % MIXED_KINDS.length] : values;
+      inputs[i] = createValue(kind, i);
+    }
+  }
+
+  private static final String[] MIXED_KINDS = {
+    "strings", "longs", "booleans", "protos", "doubles", "html", "lists", "maps"
+  };
+
+  private static Object createValue(String kind, int i) {
+    switch (kind) {
+      case "strings":
+        return "value " + i;
+      case "longs":
+        return (long) i;
+      case "booleans":
+        return i % 2 == 0;
+      case "protos":
+        return SomeEmbeddedMessage.newBuilder().setSomeEmbeddedNum(i).build();
+      case "doubles":
+        return i / 2.0;
+      case "html":
+        return SafeHtmls.htmlEscape("<b>" + i);
+      case "lists":
+        return ImmutableList.of(i);
+      case "maps":
+        return ImmutableMap.of("i", i);
+      default:
+        throw new IllegalArgumentException("unknown values: " + kind);
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(SIZE)
+  public void convert(Blackhole blackhole) {
+    for (Object input : inputs) {
+      blackhole.consume(SoyValueConverter.INSTANCE.convert(input));
+    }
+  }
+}
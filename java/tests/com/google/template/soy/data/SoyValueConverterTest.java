@@ -61,6 +61,12 @@ public class SoyValueConverterTest {
     assertThat(dict4.getField(RecordProperty.get("too")).booleanValue()).isTrue();
   }
 
+  @Test
+  public void testDictCreation_immutableMapWithNonStringKey() {
+    assertThrows(
+        ClassCastException.class, () -> CONVERTER.newDictFromMap(ImmutableMap.of(1, "one")));
+  }
+
   @Test
   public void testListCreation() {
     SoyList list2 = SoyValueConverterUtility.newList(3.14, true);
@@ -72,6 +78,28 @@ public class SoyValueConverterTest {
     assertThat(list4.get(1).booleanValue()).isTrue();
   }
 
+  @Test
+  public void testImmutableCollectionsAreConvertedOnAccess() {
+    Object unconvertible = new Object();
+    SoyList list =
+        (SoyList) CONVERTER.convert(ImmutableList.of("a", ImmutableMap.of("b", 1), unconvertible));
+    assertThat(list.length()).isEqualTo(3);
+    assertThat(list.get(0).stringValue()).isEqualTo("a");
+    assertThat(list.getProvider(1)).isSameInstanceAs(list.getProvider(1));
+    assertThrows(SoyDataException.class, () -> list.get(2));
+
+    SoyDict dict =
+        (SoyDict) CONVERTER.convert(ImmutableMap.of("a", ImmutableList.of(1), "b", unconvertible));
+    assertThat(dict.getItemCnt()).isEqualTo(2);
+    assertThat(dict.hasField(RecordProperty.get("b"))).isTrue();
+    assertThat(dict.hasField(RecordProperty.get("c"))).isFalse();
+    assertThat(dict.getField(RecordProperty.get("c"))).isNull();
+    SoyList a = (SoyList) dict.getField(RecordProperty.get("a"));
+    assertThat(a.get(0).integerValue()).isEqualTo(1);
+    assertThat(dict.getField(RecordProperty.get("a"))).isSameInstanceAs(a);
+    assertThrows(SoyDataException.class, () -> dict.getField(RecordProperty.get("b")));
+  }
+
   @Test
   public void testConvertBasic() {
     assertThat(CONVERTER.convert(null)).isEqualTo(NullData.INSTANCE);
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2024 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.data.internal;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.template.soy.data.RecordProperty;
+import com.google.template.soy.data.restricted.IntegerData;
+import com.google.template.soy.data.restricted.StringData;
+import com.google.template.soy.data.restricted.UndefinedData;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for ParamStore. */
+@RunWith(JUnit4.class)
+public class ParamStoreTest {
+
+  private static final RecordProperty A = RecordProperty.get("a");
+  private static final RecordProperty B = RecordProperty.get("b");
+  private static final RecordProperty C = RecordProperty.get("c");
+
+  @Test
+  public void testSlots() {
+    ParamStore store = new ParamStore(ImmutableList.of(A, B));
+    assertThat(store.size()).isEqualTo(0);
+    assertThat(store.hasField(A)).isFalse();
+    assertThat(store.getParameter(A, 0)).isEqualTo(UndefinedData.INSTANCE);
+
+    store.setField(B, StringData.forValue("b")).setField(C, StringData.forValue("c")).freeze();
+    assertThat(store.size()).isEqualTo(2);
+    assertThat(store.getParameter(B, 1)).isEqualTo(StringData.forValue("b"));
+    // A slot that doesn't match the param falls back to searching the store.
+    assertThat(store.getParameter(C, 0)).isEqualTo(StringData.forValue("c"));
+    assertThat(store.getParameter(C, 7)).isEqualTo(StringData.forValue("c"));
+    assertThat(store.getParameter(A, 0, IntegerData.forValue(1)).resolve())
+        .isEqualTo(IntegerData.forValue(1));
+    assertThat(store.asStringMap().keySet()).containsExactly("b", "c").inOrder();
+  }
+
+  @Test
+  public void testManyParams() {
+    List<RecordProperty> names = new ArrayList<>();
+    ParamStore store = new ParamStore();
+    for (int i = 0; i < 100; i++) {
+      RecordProperty name = RecordProperty.get("p" + i);
+      names.add(name);
+      store.setField(name, IntegerData.forValue(i));
+    }
+    store.setField(names.get(42), IntegerData.forValue(-1));
+    assertThat(store.size()).isEqualTo(100);
+    for (int i = 0; i < 100; i++) {
+      assertThat(store.getFieldProvider(names.get(i)))
+          .isEqualTo(IntegerData.forValue(i == 42 ? -1 : i));
+    }
+    assertThat(store.getFieldProvider(A)).isNull();
+
+    ParamStore copy = new ParamStore(store.freeze(), 1).setField(A, StringData.forValue("a"));
+    assertThat(copy.size()).isEqualTo(101);
+    assertThat(copy.getFieldProvider(names.get(99))).isEqualTo(IntegerData.forValue(99));
+    assertThat(copy.getFieldProvider(A)).isEqualTo(StringData.forValue("a"));
+    assertThat(store.hasField(A)).isFalse();
+  }
+
+  @Test
+  public void testEquals() {
+    ParamStore store1 =
+        new ParamStore(ImmutableList.of(A, B)).setField(B, IntegerData.forValue(2)).freeze();
+    ParamStore store2 = new ParamStore().setField(B, IntegerData.forValue(2)).freeze();
+    assertThat(store1).isEqualTo(store2);
+    assertThat(store1.hashCode()).isEqualTo(store2.hashCode());
+    assertThat(ParamStore.merge(store1, new ParamStore().setField(A, IntegerData.forValue(1))))
+        .isNotEqualTo(store2);
+  }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2024 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.javagencode;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
+import com.google.protobuf.Descriptors.GenericDescriptor;
+import com.google.template.soy.SoyFileSetParser.ParseResult;
+import com.google.template.soy.base.internal.KytheMode;
+import com.google.template.soy.error.ErrorReporter;
+import com.google.template.soy.shared.internal.gencode.GeneratedFile;
+import com.google.template.soy.soytree.TemplateMetadata;
+import com.google.template.soy.soytree.TemplateNode;
+import com.google.template.soy.testing.Foo;
+import com.google.template.soy.testing.SharedTestUtils;
+import com.google.template.soy.testing.SomeEnum;
+import com.google.template.soy.testing.SoyFileSetParserBuilder;
+import com.google.template.soy.testing3.Proto3Message;
+import com.google.template.soy.types.TemplateType;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Unit tests for GenerateBuildersVisitor.
+ *
+ * <p>These check the generated source, the behavior of the helpers it calls is tested in {@code
+ * BaseSoyTemplateImplTest}.
+ */
+@RunWith(JUnit4.class)
+public final class GenerateBuildersVisitorTest {
+
+  private static final Pattern PARAM_SLOTS = Pattern.compile("paramSlots\\(([^)]*)\\)");
+  private static final Pattern QUOTED = Pattern.compile("\"([^\"]*)\"");
+
+  @Test
+  public void testParamSlotsMatchActualParameters() {
+    ParseResult result =
+        parse(
+            ImmutableList.of(),
+            "{@param b: string}",
+            "{@param? c: bool}",
+            "{@param a: int}",
+            "{@param? d: string|null}",
+            "{$b}{$c}{$a}{$d}");
+    TemplateNode template = result.fileSet().getChild(0).getTemplates().get(0);
+    ImmutableList<String> expected =
+        TemplateMetadata.fromTemplate(template).getTemplateType().getActualParameters().stream()
+            .map(TemplateType.Parameter::getName)
+            .collect(toImmutableList());
+
+    Matcher slots = PARAM_SLOTS.matcher(generateBuilders(result));
+    assertThat(slots.find()).isTrue();
+    ImmutableList.Builder<String> names = ImmutableList.builder();
+    for (Matcher name = QUOTED.matcher(slots.group(1)); name.find(); ) {
+      names.add(name.group(1));
+    }
+    assertThat(names.build()).containsExactlyElementsIn(expected).inOrder();
+  }
+
+  @Test
+  public void testLazyConversionOnlyForLazilyConvertibleElements() {
+    String builders =
+        generateBuilders(
+            parse(
+                ImmutableList.of(Foo.getDescriptor()),
+                "{@param strings: list<string>}",
+                "{@param ints: list<int>}",
+                "{@param protos: list<Foo>}",
+                "{@param nested: list<list<string>>}",
+                "{@param htmls: list<html>}",
+                "{@param? nullableStrings: list<string>|null}",
+                "{@param intMap: legacy_object_map<string, int>}",
+                "{@param htmlMap: legacy_object_map<string, html>}",
+                "{$strings}{$ints}{$protos}{$nested}{$htmls}{$nullableStrings}",
+                "{$intMap}{$htmlMap}"));
+
+    assertThat(builders).contains("asLazyList(value, AbstractBuilder::asString)");
+    assertThat(builders).contains("asLazyList(value, AbstractBuilder::asBoxedInt)");
+    assertThat(builders).contains("asLazyList(value, AbstractBuilder::asProto)");
+    // The outer list holds lists, which aren't lazily convertible, so only the inner one is lazy.
+    assertThat(builders).contains("asList(value, v -> asLazyList(v, AbstractBuilder::asString))");
+    assertThat(builders).contains("asList(value, AbstractBuilder::asHtml)");
+    assertThat(builders).contains("asNullableLazyList(value, AbstractBuilder::asString)");
+    assertThat(builders).contains("asLazyLegacyObjectMap(value, AbstractBuilder::asBoxedInt)");
+    assertThat(builders).doesNotContain("asLazyLegacyObjectMap(value, AbstractBuilder::asHtml)");
+  }
+
+  @Test
+  public void testLazyConversionOnlyForClosedEnums() {
+    String builders =
+        generateBuilders(
+            parse(
+                ImmutableList.of(SomeEnum.getDescriptor(), Proto3Message.getDescriptor()),
+                "{@param closed: list<SomeEnum>}",
+                "{@param open: list<Proto3Message.AnEnum>}",
+                "{$closed}{$open}"));
+
+    assertThat(builders).contains("asLazyList(value, AbstractBuilder::asProtoEnum)");
+    // An UNRECOGNIZED value of an open enum fails to convert, which must happen in the setter.
+    assertThat(builders).contains("asList(value, AbstractBuilder::asProtoEnum)");
+  }
+
+  private static ParseResult parse(
+      ImmutableList<GenericDescriptor> protos, String... templateLines) {
+    return SoyFileSetParserBuilder.forTemplateAndImports(
+            SharedTestUtils.buildTestTemplateContent(
+                /* strictHtml= */ true, Joiner.on('\n').join(templateLines)),
+            protos.toArray(new GenericDescriptor[0]))
+        .typeRegistry(SharedTestUtils.importing(protos))
+        .parse();
+  }
+
+  private static String generateBuilders(ParseResult result) {
+    ImmutableList<GeneratedFile> files =
+        new GenerateBuildersVisitor(
+                ErrorReporter.exploding(),
+                "com.google.gbvtest",
+                KytheMode.DISABLED,
+                result.registry())
+            .exec(result.fileSet());
+    assertThat(files).hasSize(1);
+    return files.get(0).contents();
+  }
+}
@@ -34,6 +34,8 @@ import com.google.common.collect.HashMultiset;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.io.ByteSink;
+import com.google.common.io.ByteStreams;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.template.soy.SoyFileSetParser;
 import com.google.template.soy.SoyFileSetParser.ParseResult;
@@ -81,13 +83,22 @@ import com.google.template.soy.shared.restricted.SoyJavaFunction;
 import com.google.template.soy.soytree.Metadata.CompilationUnitAndKind;
 import com.google.template.soy.soytree.TemplateMetadataSerializer;
 import com.google.template.soy.testing.SoyFileSetParserBuilder;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.Predicate;
+import java.util.jar.JarEntry;
+import java.util.jar.JarInputStream;
 import javax.annotation.Nullable;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -267,6 +278,61 @@ public class BytecodeCompilerTest {
         .isEqualTo("foo");
   }
 
+  @Test
+  public void testCompileToJar_parallelOutputMatchesSequential() throws IOException {
+    String[] files = new String[16];
+    for (int i = 0; i < files.length; i++) {
+      files[i] =
+          Joiner.on("\n")
+              .join(
+                  "{namespace ns" + i + "}",
+                  "",
+                  "{template foo}",
+                  "  {@param p: string}",
+                  "  <div>{$p}</div>",
+                  "  {call bar /}",
+                  "{/template}",
+                  "",
+                  "{template bar}",
+                  "  bar" + i,
+                  "{/template}");
+    }
+    SoyFileSetParser parser = SoyFileSetParserBuilder.forFileContents(files).build();
+    ParseResult parseResult = parser.parse();
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      assertThat(compileToJar(parser, parseResult, executor))
+          .isEqualTo(compileToJar(parser, parseResult, null));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static ImmutableList<String> compileToJar(
+      SoyFileSetParser parser, ParseResult parseResult, @Nullable Executor executor)
+      throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    BytecodeCompiler.compileToJar(
+        parseResult.fileSet(),
+        ErrorReporter.exploding(),
+        parser.typeRegistry(),
+        new ByteSink() {
+          @Override
+          public OutputStream openStream() {
+            return out;
+          }
+        },
+        parseResult.registry(),
+        executor);
+    ImmutableList.Builder<String> entries = ImmutableList.builder();
+    try (JarInputStream jar = new JarInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+      for (JarEntry entry = jar.getNextJarEntry(); entry != null; entry = jar.getNextJarEntry()) {
+        entries.add(entry.getName() + ":" + Arrays.hashCode(ByteStreams.toByteArray(jar)));
+      }
+    }
+    return entries.build();
+  }
+
   private static String renderWithContext(CompiledTemplate template, RenderContext context)
       throws IOException {
     BufferingAppendable builder = LoggingAdvisingAppendable.buffering();
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2024 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.jbcsrc;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.template.soy.SoyFileSet;
+import com.google.template.soy.SoyFileSetParser;
+import com.google.template.soy.SoyFileSetParser.ParseResult;
+import com.google.template.soy.base.SourceFilePath;
+import com.google.template.soy.base.internal.SoyFileSupplier;
+import com.google.template.soy.error.ErrorReporter;
+import com.google.template.soy.jbcsrc.api.SoySauce;
+import com.google.template.soy.jbcsrc.internal.ClassData;
+import com.google.template.soy.soytree.SoyFileNode;
+import com.google.template.soy.testing.SoyFileSetParserBuilder;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.stream.Stream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link CompiledClassCache}. */
+@RunWith(JUnit4.class)
+public final class CompiledClassCacheTest {
+  private static final String CALLEE =
+      "{namespace callee}\n"
+          + "{template foo}\n"
+          + "  {@param p: string}\n"
+          + "  callee {$p}\n"
+          + "{/template}\n";
+
+  private static final String CALLER =
+      "{namespace caller}\n"
+          + "import {foo} from 'callee.soy';\n"
+          + "{template bar}\n"
+          + "  {call foo}{param p: 'x' /}{/call}\n"
+          + "{/template}\n";
+
+  @Rule public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+  @Test
+  public void testKey_stableAcrossCompiles() {
+    assertThat(keys(CALLEE, CALLER)).isEqualTo(keys(CALLEE, CALLER));
+  }
+
+  @Test
+  public void testKey_bodyChangeOnlyInvalidatesOwnFile() {
+    ImmutableList<String> before = keys(CALLEE, CALLER);
+    ImmutableList<String> after = keys(CALLEE.replace("callee {$p}", "changed {$p}"), CALLER);
+
+    assertThat(after.get(0)).isNotEqualTo(before.get(0));
+    assertThat(after.get(1)).isEqualTo(before.get(1));
+  }
+
+  @Test
+  public void testKey_signatureChangeInvalidatesImporters() {
+    ImmutableList<String> before = keys(CALLEE, CALLER);
+    ImmutableList<String> after =
+        keys(CALLEE.replace("{@param p: string}", "{@param p: string|int}"), CALLER);
+
+    assertThat(after.get(0)).isNotEqualTo(before.get(0));
+    assertThat(after.get(1)).isNotEqualTo(before.get(1));
+  }
+
+  @Test
+  public void testKey_includesCompilerFingerprint() {
+    assertThat(keys(CALLEE, CALLER, "a")).isNotEqualTo(keys(CALLEE, CALLER, "b"));
+  }
+
+  @Test
+  public void testReadWrite() throws IOException {
+    CompiledClassCache cache = CompiledClassCache.create(tempFolder.getRoot().toPath(), "");
+    assertThat(cache.read("missing")).isNull();
+
+    SoyFileSetParser parser = SoyFileSetParserBuilder.forFileContents(CALLEE).build();
+    ParseResult parseResult = parser.parse();
+    ImmutableList<ClassData> classes =
+        new SoyFileCompiler(
+                parseResult.fileSet().getChild(0),
+                new JavaSourceFunctionCompiler(parser.typeRegistry(), ErrorReporter.exploding()),
+                parseResult.registry())
+            .compile();
+    cache.write("key", classes);
+
+    ImmutableList<ClassData> read = cache.read("key");
+    assertThat(read).hasSize(classes.size());
+    for (int i = 0; i < classes.size(); i++) {
+      assertThat(read.get(i).type().className()).isEqualTo(classes.get(i).type().className());
+      assertThat(read.get(i).data()).isEqualTo(classes.get(i).data());
+      assertThat(read.get(i).numberOfFields()).isEqualTo(classes.get(i).numberOfFields());
+    }
+
+    // Corrupt entries are treated as misses.
+    Files.write(tempFolder.getRoot().toPath().resolve("key.classes"), new byte[] {0, 0, 0, 1, 2});
+    assertThat(cache.read("key")).isNull();
+  }
+
+  @Test
+  public void testSoyFileSet_reusesCachedClasses() throws IOException {
+    Path cacheDir = tempFolder.newFolder("cache").toPath();
+
+    assertThat(render(cacheDir, CALLEE)).isEqualTo("callee x");
+    ImmutableList<Path> entries = entries(cacheDir);
+    assertThat(entries).hasSize(2);
+
+    // A second compile is served entirely from the cache.
+    assertThat(render(cacheDir, CALLEE)).isEqualTo("callee x");
+    assertThat(entries(cacheDir)).isEqualTo(entries);
+
+    // Editing one file adds a single new entry.
+    assertThat(render(cacheDir, CALLEE.replace("callee {$p}", "edited {$p}")))
+        .isEqualTo("edited x");
+    assertThat(entries(cacheDir)).hasSize(3);
+  }
+
+  private static String render(Path cacheDir, String callee) {
+    SoySauce sauce =
+        SoyFileSet.builder()
+            .add(callee, "callee.soy")
+            .add(CALLER, "caller.soy")
+            .setClassCacheDirectory(cacheDir)
+            .build()
+            .compileTemplates();
+    return sauce.renderTemplate("caller.bar").renderHtml().get().toString().trim();
+  }
+
+  private static ImmutableList<Path> entries(Path dir) throws IOException {
+    try (Stream<Path> files = Files.list(dir)) {
+      return files.sorted().collect(ImmutableList.toImmutableList());
+    }
+  }
+
+  @Test
+  public void testFingerprintLocation() throws IOException {
+    Path jar = tempFolder.newFile("soy.jar").toPath();
+    Files.write(jar, new byte[] {1, 2, 3});
+    String before = CompiledClassCache.fingerprintLocation(jar);
+    assertThat(CompiledClassCache.fingerprintLocation(jar)).isEqualTo(before);
+
+    Files.write(jar, new byte[] {1, 2, 4});
+    assertThat(CompiledClassCache.fingerprintLocation(jar)).isNotEqualTo(before);
+
+    Path classes = tempFolder.newFolder("classes").toPath();
+    Files.write(classes.resolve("A.class"), new byte[] {1});
+    before = CompiledClassCache.fingerprintLocation(classes);
+    Files.write(classes.resolve("B.class"), new byte[] {1});
+    assertThat(CompiledClassCache.fingerprintLocation(classes)).isNotEqualTo(before);
+  }
+
+  private static ImmutableList<String> keys(String... files) {
+    return keys(files[0], files[1], "");
+  }
+
+  private static ImmutableList<String> keys(String callee, String caller, String fingerprint) {
+    ImmutableMap<String, String> contents =
+        ImmutableMap.of("callee.soy", callee, "caller.soy", caller);
+    SoyFileSetParser parser =
+        SoyFileSetParserBuilder.forSuppliers(
+                contents.entrySet().stream()
+                    .map(
+                        e ->
+                            SoyFileSupplier.Factory.create(
+                                e.getValue(), SourceFilePath.forTest(e.getKey())))
+                    .collect(ImmutableList.toImmutableList()))
+            .build();
+    ParseResult parseResult = parser.parse();
+    CompiledClassCache cache = CompiledClassCache.create(Paths.get("unused"), fingerprint);
+    ImmutableList.Builder<String> keys = ImmutableList.builder();
+    for (SoyFileNode file : parseResult.fileSet().getChildren()) {
+      keys.add(
+          cache.key(
+              file,
+              parser.soyFileSuppliers().get(file.getFilePath().asLogicalPath()),
+              parseResult.registry()));
+    }
+    return keys.build();
+  }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2024 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.jbcsrc;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import com.google.template.soy.SoyFileSetParser;
+import com.google.template.soy.SoyFileSetParser.ParseResult;
+import com.google.template.soy.jbcsrc.shared.Names;
+import com.google.template.soy.testing.SoyFileSetParserBuilder;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link CompilingClassLoader}. */
+@RunWith(JUnit4.class)
+public final class CompilingClassLoaderTest {
+  private static final int NUM_THREADS = 8;
+
+  private static CompilingClassLoader createLoader(String... files) {
+    SoyFileSetParser parser = SoyFileSetParserBuilder.forFileContents(files).build();
+    ParseResult parseResult = parser.parse();
+    return new CompilingClassLoader(
+        parseResult.fileSet(),
+        parser.soyFileSuppliers(),
+        parser.typeRegistry(),
+        parseResult.registry());
+  }
+
+  @Test
+  public void testConcurrentFirstLoads() throws Exception {
+    List<String> files = new ArrayList<>();
+    for (int i = 0; i < NUM_THREADS; i++) {
+      files.add("{namespace ns" + i + "}\n{template foo}\n  foo{sp}" + i + "\n{/template}\n");
+    }
+    CompilingClassLoader loader = createLoader(files.toArray(new String[0]));
+
+    ExecutorService executor = Executors.newFixedThreadPool(NUM_THREADS);
+    try {
+      CountDownLatch start = new CountDownLatch(1);
+      List<Future<Class<?>>> loads = new ArrayList<>();
+      // Each file is requested by several threads at once, and the files are compiled concurrently.
+      for (int i = 0; i < NUM_THREADS * 4; i++) {
+        String className = Names.javaClassNameFromSoyNamespace("ns" + (i % NUM_THREADS));
+        loads.add(
+            executor.submit(
+                () -> {
+                  start.await();
+                  return Class.forName(className, /* initialize= */ true, loader);
+                }));
+      }
+      start.countDown();
+      Set<Class<?>> classes = new HashSet<>();
+      for (Future<Class<?>> load : loads) {
+        Class<?> clazz = load.get();
+        assertThat(clazz.getClassLoader()).isSameInstanceAs(loader);
+        classes.add(clazz);
+      }
+      assertThat(classes).hasSize(NUM_THREADS);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testUnknownClass() {
+    CompilingClassLoader loader = createLoader("{namespace ns}\n{template foo}{/template}\n");
+
+    assertThrows(
+        ClassNotFoundException.class,
+        () -> loader.loadClass(Names.javaClassNameFromSoyNamespace("other")));
+    assertThat(loader.getDebugInfoForClass(Names.javaClassNameFromSoyNamespace("other"))).isNull();
+    assertThat(loader.getDebugInfoForClass(Names.javaClassNameFromSoyNamespace("ns")))
+        .contains("Class Data:");
+  }
+}
@@ -315,6 +315,28 @@ public final class StreamingPrintDirectivesTest {
         .isEqualTo("hello(c1)(c2)(c3)");
   }
 
+  @Test
+  public void testEscapersAppendComputedValues() throws IOException {
+    // Computed values can't be streamed through the escapers, so they are escaped straight onto the
+    // output instead.
+    CompiledTemplates templates =
+        compileFile(
+            "{namespace ns}",
+            "",
+            "{template foo}",
+            "  {@param a : string}",
+            "  {@param b : string}",
+            "  <a title=\"{$a + $b}\" href=\"{$a + $b}\">{$a + $b}</a>",
+            "{/template}",
+            "");
+    RenderContext context = getDefaultContext(templates);
+    assertThat(
+            renderToString("ns.foo", ImmutableMap.of("a", "<x>", "b", "\"y"), templates, context))
+        .isEqualTo("<a title=\"&lt;x&gt;&quot;y\" href=\"%3Cx%3E%22y\">&lt;x&gt;&quot;y</a>");
+    assertThat(renderToString("ns.foo", ImmutableMap.of("a", "x", "b", "y"), templates, context))
+        .isEqualTo("<a title=\"xy\" href=\"xy\">xy</a>");
+  }
+
   private static String renderToString(
       String name,
       ImmutableMap<String, Object> params,
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2024 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.jbcsrc.api;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import com.google.template.soy.SoyFileSet;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link PreEncodedText}. */
+@RunWith(JUnit4.class)
+public final class PreEncodedTextTest {
+
+  @Test
+  public void testUtf8() {
+    PreEncodedText text = PreEncodedText.of("wörld ✓");
+    ByteBuffer utf8 = text.asUtf8Buffer();
+
+    assertThat(utf8.isReadOnly()).isTrue();
+    assertThat(text.utf8Length()).isEqualTo("wörld ✓".getBytes(UTF_8).length);
+    assertThat(UTF_8.decode(utf8).toString()).isEqualTo("wörld ✓");
+  }
+
+  @Test
+  public void testRawTextIsPreEncoded() throws Exception {
+    SoySauce sauce =
+        SoyFileSet.builder()
+            .add(
+                "{namespace ns}\n"
+                    + "{template t}\n"
+                    + "  {@param p: string}\n"
+                    + "  <p>{$p} ✓</p>\n"
+                    + "{/template}\n",
+                "test.soy")
+            .build()
+            .compileTemplates();
+
+    RecordingAppendable first = new RecordingAppendable();
+    sauce.renderTemplate("ns.t").setData(ImmutableMap.of("p", "a")).renderHtml(first).assertDone();
+    RecordingAppendable second = new RecordingAppendable();
+    sauce.renderTemplate("ns.t").setData(ImmutableMap.of("p", "b")).renderHtml(second).assertDone();
+
+    assertThat(first.output.toString()).isEqualTo("<p>a ✓</p>");
+    // The lone ">" is appended as a char.
+    assertThat(first.preEncoded.stream().map(PreEncodedText::toString))
+        .containsExactly("<p", " ✓</p>")
+        .inOrder();
+    // The constants are shared by all renders.
+    assertThat(second.preEncoded).containsExactlyElementsIn(first.preEncoded).inOrder();
+    assertThat(second.preEncoded.get(0)).isSameInstanceAs(first.preEncoded.get(0));
+  }
+
+  private static final class RecordingAppendable implements AdvisingAppendable {
+    final StringBuilder output = new StringBuilder();
+    final List<PreEncodedText> preEncoded = new ArrayList<>();
+
+    @CanIgnoreReturnValue
+    @Override
+    public AdvisingAppendable append(CharSequence csq) {
+      output.append(csq);
+      return this;
+    }
+
+    @CanIgnoreReturnValue
+    @Override
+    public AdvisingAppendable append(CharSequence csq, int start, int end) {
+      output.append(csq, start, end);
+      return this;
+    }
+
+    @CanIgnoreReturnValue
+    @Override
+    public AdvisingAppendable append(char c) {
+      output.append(c);
+      return this;
+    }
+
+    @CanIgnoreReturnValue
+    @Override
+    public AdvisingAppendable appendPreEncoded(PreEncodedText text) {
+      preEncoded.add(text);
+      output.append(text);
+      return this;
+    }
+
+    @Override
+    public boolean softLimitReached() {
+      return false;
+    }
+  }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2024 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.jbcsrc.api;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.template.soy.SoyFileSetParser;
+import com.google.template.soy.SoyFileSetParser.ParseResult;
+import com.google.template.soy.error.ErrorReporter;
+import com.google.template.soy.jbcsrc.BytecodeCompiler;
+import com.google.template.soy.jbcsrc.shared.CompiledTemplates;
+import com.google.template.soy.plugin.java.PluginInstances;
+import com.google.template.soy.testing.SoyFileSetParserBuilder;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link RenderBufferPool}. */
+@RunWith(JUnit4.class)
+public final class RenderBufferPoolTest {
+
+  @Test
+  public void testReusesReleasedBuffers() {
+    RenderBufferPool pool = RenderBufferPool.create();
+    StringBuilder small = pool.acquire();
+    small.append("abc");
+    pool.release(small);
+
+    StringBuilder reused = pool.acquire();
+    assertThat(reused).isSameInstanceAs(small);
+    assertThat(reused.length()).isEqualTo(0);
+    assertThat(pool.acquire()).isNotSameInstanceAs(small);
+  }
+
+  @Test
+  public void testPrefersLargerBuffers() {
+    RenderBufferPool pool = RenderBufferPool.create();
+    StringBuilder small = pool.acquire();
+    StringBuilder large = pool.acquire();
+    large.append(Strings.repeat("x", 100_000));
+    pool.release(small);
+    pool.release(large);
+
+    assertThat(pool.acquire()).isSameInstanceAs(large);
+    assertThat(pool.acquire()).isSameInstanceAs(small);
+  }
+
+  @Test
+  public void testDropsOversizedBuffers() {
+    RenderBufferPool pool = RenderBufferPool.create(4096);
+    StringBuilder buffer = pool.acquire();
+    buffer.append(Strings.repeat("x", 5000));
+    pool.release(buffer);
+
+    assertThat(pool.acquire()).isNotSameInstanceAs(buffer);
+  }
+
+  @Test
+  public void testRenderToValue() {
+    SoyFileSetParser parser =
+        SoyFileSetParserBuilder.forFileContents(
+                "{namespace ns}\n"
+                    + "{template hello}\n"
+                    + "  {@param p: string}\n"
+                    + "  Hello, {$p}\n"
+                    + "{/template}\n")
+            .build();
+    ParseResult parseResult = parser.parse();
+    CompiledTemplates templates =
+        BytecodeCompiler.compile(
+                parseResult.registry(),
+                parseResult.fileSet(),
+                ErrorReporter.exploding(),
+                parser.soyFileSuppliers(),
+                parser.typeRegistry())
+            .get();
+    RenderBufferPool pool = RenderBufferPool.create();
+    SoySauce sauce =
+        new SoySauceImpl(
+            templates,
+            ImmutableList.of(),
+            ImmutableList.of(),
+            PluginInstances.empty(),
+            /* renderMetricsListener= */ null,
+            /* templateProfiler= */ null,
+            pool);
+
+    assertThat(render(sauce, "world")).isEqualTo("Hello, world");
+    StringBuilder released = pool.acquire();
+    pool.release(released);
+    assertThat(render(sauce, "again")).isEqualTo("Hello, again");
+    assertThat(pool.acquire()).isSameInstanceAs(released);
+  }
+
+  private static String render(SoySauce sauce, String p) {
+    return sauce.renderTemplate("ns.hello").setData(ImmutableMap.of("p", p)).renderText().get();
+  }
+}
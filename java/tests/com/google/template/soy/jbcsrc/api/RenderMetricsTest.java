@@ -0,0 +1,167 @@
+/*
+ * Copyright 2024 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.jbcsrc.api;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import com.google.template.soy.SoyFileSetParser;
+import com.google.template.soy.SoyFileSetParser.ParseResult;
+import com.google.template.soy.error.ErrorReporter;
+import com.google.template.soy.jbcsrc.BytecodeCompiler;
+import com.google.template.soy.jbcsrc.api.SoySauce.Continuation;
+import com.google.template.soy.jbcsrc.api.SoySauce.WriteContinuation;
+import com.google.template.soy.plugin.java.PluginInstances;
+import com.google.template.soy.testing.SoyFileSetParserBuilder;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link RenderMetrics} reporting. */
+@RunWith(JUnit4.class)
+public final class RenderMetricsTest {
+  private final List<RenderMetrics> reported = new ArrayList<>();
+  private SoySauce sauce;
+
+  @Before
+  public void setUp() {
+    SoyFileSetParser parser =
+        SoyFileSetParserBuilder.forFileContents(
+                "{namespace ns}\n"
+                    + "{template withParam}\n"
+                    + "  {@param p: string}\n"
+                    + "  Hello, {$p}\n"
+                    + "{/template}\n"
+                    + "{template fails}\n"
+                    + "  {@param? p: string}\n"
+                    + "  {checkNotNull($p)}\n"
+                    + "{/template}\n")
+            .build();
+    ParseResult parseResult = parser.parse();
+    sauce =
+        new SoySauceImpl(
+            BytecodeCompiler.compile(
+                    parseResult.registry(),
+                    parseResult.fileSet(),
+                    ErrorReporter.exploding(),
+                    parser.soyFileSuppliers(),
+                    parser.typeRegistry())
+                .get(),
+            ImmutableList.of(),
+            ImmutableList.of(),
+            PluginInstances.empty(),
+            reported::add,
+            /* templateProfiler= */ null,
+            /* bufferPool= */ null);
+  }
+
+  @Test
+  public void testRenderToValue() {
+    Continuation<String> continuation =
+        sauce.renderTemplate("ns.withParam").setData(ImmutableMap.of("p", "world")).renderText();
+
+    assertThat(continuation.get()).isEqualTo("Hello, world");
+    RenderMetrics metrics = reported.get(0);
+    assertThat(reported).hasSize(1);
+    assertThat(metrics.templateName()).isEqualTo("ns.withParam");
+    assertThat(metrics.charsWritten()).isEqualTo("Hello, world".length());
+    assertThat(metrics.limitedCount()).isEqualTo(0);
+    assertThat(metrics.detachCount()).isEqualTo(0);
+    assertThat(metrics.failure()).isNull();
+    assertThat(metrics.elapsedNanos()).isAtLeast(metrics.renderingNanos());
+  }
+
+  @Test
+  public void testRenderToAppendable_countsPauses() throws IOException {
+    TestAppendable out = new TestAppendable();
+    out.softLimitReached = true;
+    SettableFuture<String> p = SettableFuture.create();
+
+    WriteContinuation continuation =
+        sauce.renderTemplate("ns.withParam").setData(ImmutableMap.of("p", p)).renderText(out);
+    assertThat(continuation.result().type()).isEqualTo(RenderResult.Type.LIMITED);
+    out.softLimitReached = false;
+    continuation = continuation.continueRender();
+    assertThat(continuation.result().type()).isEqualTo(RenderResult.Type.DETACH);
+    assertThat(reported).isEmpty();
+    p.set("piglet");
+    continuation = continuation.continueRender();
+    assertThat(continuation.result()).isEqualTo(RenderResult.done());
+
+    RenderMetrics metrics = reported.get(0);
+    assertThat(reported).hasSize(1);
+    assertThat(metrics.limitedCount()).isEqualTo(1);
+    assertThat(metrics.detachCount()).isEqualTo(1);
+    assertThat(metrics.charsWritten()).isEqualTo(out.toString().length());
+    assertThat(out.toString()).isEqualTo("Hello, piglet");
+  }
+
+  @Test
+  public void testFailure() {
+    RuntimeException e =
+        assertThrows(
+            RuntimeException.class,
+            () -> sauce.renderTemplate("ns.fails").renderHtml());
+
+    assertThat(reported).hasSize(1);
+    assertThat(reported.get(0).failure()).isSameInstanceAs(e);
+  }
+
+  private static final class TestAppendable implements AdvisingAppendable {
+    private final StringBuilder delegate = new StringBuilder();
+    boolean softLimitReached;
+
+    @CanIgnoreReturnValue
+    @Override
+    public TestAppendable append(CharSequence s) {
+      delegate.append(s);
+      return this;
+    }
+
+    @CanIgnoreReturnValue
+    @Override
+    public TestAppendable append(CharSequence s, int start, int end) {
+      delegate.append(s, start, end);
+      return this;
+    }
+
+    @CanIgnoreReturnValue
+    @Override
+    public TestAppendable append(char c) {
+      delegate.append(c);
+      return this;
+    }
+
+    @Override
+    public boolean softLimitReached() {
+      return softLimitReached;
+    }
+
+    @Override
+    public String toString() {
+      return delegate.toString();
+    }
+  }
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2024 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.jbcsrc.api;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Range;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.template.soy.SoyFileSet;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Flow;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link RenderPublisher}. */
+@RunWith(JUnit4.class)
+public final class RenderPublisherTest {
+  private static final SoySauce SAUCE =
+      SoyFileSet.builder()
+          .add(
+              "{namespace ns}\n"
+                  + "{template repeat}\n"
+                  + "  {@param p: string}\n"
+                  + "  {for $i in range(10)}héllo {$p} ✓😀{/for}\n"
+                  + "{/template}\n"
+                  + "{template fails}\n"
+                  + "  {@param? p: string}\n"
+                  + "  {checkNotNull($p)}\n"
+                  + "{/template}\n",
+              "test.soy")
+          .build()
+          .compileTemplates();
+
+  private static final String EXPECTED = Strings.repeat("héllo wörld ✓😀", 10);
+
+  @Test
+  public void testPublishesUtf8Chunks() {
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    RenderPublisher.create(render("wörld"), directExecutor(), 5).subscribe(subscriber);
+    subscriber.subscription.request(Long.MAX_VALUE);
+
+    assertThat(subscriber.completed).isTrue();
+    assertThat(subscriber.output()).isEqualTo(EXPECTED);
+    for (ByteBuffer chunk : subscriber.chunks) {
+      // Chunks are cut short by multi-byte sequences that don't fit.
+      assertThat(chunk.remaining()).isIn(Range.closed(1, 5));
+    }
+  }
+
+  @Test
+  public void testSurrogatePairsSplitAcrossAppends() {
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    RenderPublisher.create(
+            out -> {
+              out.append("xa\uD83D", 1, 3).append("\uDE00b").append('\uD83D').append('\uDE00');
+              out.append("\uD83D").append("x\uD83D");
+              return Continuations.done();
+            },
+            directExecutor(),
+            4)
+        .subscribe(subscriber);
+    subscriber.subscription.request(Long.MAX_VALUE);
+
+    assertThat(subscriber.completed).isTrue();
+    // Unpaired surrogates are replaced.
+    assertThat(subscriber.output()).isEqualTo("a😀b😀?x?");
+  }
+
+  @Test
+  public void testBackpressure() {
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    RenderPublisher.create(render("wörld"), directExecutor(), 8).subscribe(subscriber);
+    assertThat(subscriber.chunks).isEmpty();
+
+    subscriber.subscription.request(1);
+    assertThat(subscriber.chunks).hasSize(1);
+    subscriber.subscription.request(2);
+    assertThat(subscriber.chunks).hasSize(3);
+    assertThat(subscriber.completed).isFalse();
+
+    subscriber.subscription.request(Long.MAX_VALUE);
+    assertThat(subscriber.completed).isTrue();
+    assertThat(subscriber.output()).isEqualTo(EXPECTED);
+  }
+
+  @Test
+  public void testUnboundedRequestAfterBoundedOne() {
+    ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    RenderPublisher.create(render("wörld"), tasks::add, 8).subscribe(subscriber);
+    // Both requests are made before the first chunk is published, so demand must saturate rather
+    // than overflow.
+    subscriber.subscription.request(1);
+    subscriber.subscription.request(Long.MAX_VALUE);
+    while (!tasks.isEmpty()) {
+      tasks.poll().run();
+    }
+
+    assertThat(subscriber.completed).isTrue();
+    assertThat(subscriber.output()).isEqualTo(EXPECTED);
+  }
+
+  @Test
+  public void testDetach() {
+    SettableFuture<String> p = SettableFuture.create();
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    RenderPublisher.create(render(p), directExecutor()).subscribe(subscriber);
+    subscriber.subscription.request(Long.MAX_VALUE);
+    assertThat(subscriber.completed).isFalse();
+
+    p.set("wörld");
+    assertThat(subscriber.completed).isTrue();
+    assertThat(subscriber.output()).isEqualTo(EXPECTED);
+  }
+
+  @Test
+  public void testCancel() {
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    RenderPublisher.create(render("wörld"), directExecutor(), 8).subscribe(subscriber);
+    subscriber.subscription.request(1);
+    subscriber.subscription.cancel();
+    subscriber.subscription.request(Long.MAX_VALUE);
+
+    assertThat(subscriber.chunks).hasSize(1);
+    assertThat(subscriber.completed).isFalse();
+  }
+
+  @Test
+  public void testRenderFailure() {
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    RenderPublisher.create(
+            out -> SAUCE.renderTemplate("ns.fails").renderHtml(out), directExecutor())
+        .subscribe(subscriber);
+    subscriber.subscription.request(1);
+
+    assertThat(subscriber.error).isInstanceOf(NullPointerException.class);
+    assertThat(subscriber.completed).isFalse();
+  }
+
+  @Test
+  public void testSingleSubscriber() {
+    RenderPublisher publisher = RenderPublisher.create(render("wörld"), directExecutor());
+    publisher.subscribe(new RecordingSubscriber());
+    RecordingSubscriber second = new RecordingSubscriber();
+    publisher.subscribe(second);
+
+    assertThat(second.error).isInstanceOf(IllegalStateException.class);
+  }
+
+  private static RenderPublisher.Render render(Object p) {
+    return out ->
+        SAUCE.renderTemplate("ns.repeat").setData(ImmutableMap.of("p", p)).renderHtml(out);
+  }
+
+  private static final class RecordingSubscriber implements Flow.Subscriber<ByteBuffer> {
+    final List<ByteBuffer> chunks = new ArrayList<>();
+    Flow.Subscription subscription;
+    Throwable error;
+    boolean completed;
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      this.subscription = subscription;
+    }
+
+    @Override
+    public void onNext(ByteBuffer chunk) {
+      chunks.add(chunk);
+    }
+
+    @Override
+    public void onError(Throwable error) {
+      this.error = error;
+    }
+
+    @Override
+    public void onComplete() {
+      completed = true;
+    }
+
+    String output() {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      for (ByteBuffer chunk : chunks) {
+        ByteBuffer copy = chunk.duplicate();
+        while (copy.hasRemaining()) {
+          bytes.write(copy.get());
+        }
+      }
+      return new String(bytes.toByteArray(), UTF_8);
+    }
+  }
+}
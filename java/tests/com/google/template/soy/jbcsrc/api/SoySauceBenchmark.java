@@ -0,0 +1,151 @@
+/*
+ * Copyright 2024 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.jbcsrc.api;
+
+import static com.google.common.base.Preconditions.checkState;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.template.soy.SoyFileSet;
+import com.google.template.soy.data.SanitizedContent;
+import com.google.template.soy.jbcsrc.api.SoySauce.Continuation;
+import com.google.template.soy.jbcsrc.api.SoySauce.WriteContinuation;
+import com.google.template.soy.msgs.SoyMsgBundle;
+import com.google.template.soy.msgs.restricted.RenderOnlySoyMsgBundleImpl;
+import com.google.template.soy.testing.ExampleExtendable;
+import com.google.template.soy.testing.SomeEmbeddedMessage;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for the {@link SoySauce} rendering hot paths.
+ *
+ * <p>Each template in {@code benchmark.soy} stresses a different part of the runtime (call
+ * overhead, loops, msg bundle lookups, proto access and mod selection) and is rendered both to an
+ * {@link Appendable} and to a buffered {@link SanitizedContent} so the two output paths can be
+ * compared. The benchmarks run in throughput and sample time modes, the latter reports the p99
+ * latency. To also measure allocation per render, run with the gc profiler:
+ *
+ * <pre>
+ *   mvn -Pbenchmarks clean test -DskipTests -Djmh.args="SoySauceBenchmark -prof gc"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SoySauceBenchmark {
+  private static final Predicate<String> ACTIVE_MODS = "BenchmarkMod"::equals;
+
+  @Param({"deepCalls", "bigLoop", "messages", "protos", "delegates"})
+  String template;
+
+  private SoySauce sauce;
+  private SoyMsgBundle msgBundle;
+  private Map<String, ?> data;
+
+  @Setup
+  public void setUp() {
+    sauce = newFileSet().compileTemplates();
+    msgBundle = new RenderOnlySoyMsgBundleImpl("en", newFileSet().extractMsgs());
+    data = createData(template);
+  }
+
+  private static SoyFileSet newFileSet() {
+    return SoyFileSet.builder()
+        .add(SoySauceBenchmark.class.getResource("benchmark.soy"), "benchmark.soy")
+        .add(SoySauceBenchmark.class.getResource("benchmark_mod.soy"), "benchmark_mod.soy")
+        .addProtoDescriptors(ExampleExtendable.getDescriptor())
+        .build();
+  }
+
+  private static Map<String, ?> createData(String template) {
+    switch (template) {
+      case "deepCalls":
+        return ImmutableMap.of("depth", 8);
+      case "bigLoop":
+        {
+          ImmutableList.Builder<Map<String, ?>> items = ImmutableList.builder();
+          for (int i = 0; i < 1000; i++) {
+            items.add(ImmutableMap.of("name", "item <" + i + ">", "count", i));
+          }
+          return ImmutableMap.of("items", items.build());
+        }
+      case "messages":
+        {
+          ImmutableList.Builder<Map<String, ?>> people = ImmutableList.builder();
+          for (int i = 0; i < 200; i++) {
+            people.add(ImmutableMap.of("name", "Person " + i, "unread", i % 3));
+          }
+          return ImmutableMap.of("people", people.build());
+        }
+      case "protos":
+        {
+          ExampleExtendable.Builder proto = ExampleExtendable.newBuilder().setSomeNumNoDefault(42);
+          for (int i = 0; i < 500; i++) {
+            proto.addRepeatedEmbeddedMessage(
+                SomeEmbeddedMessage.newBuilder()
+                    .setSomeEmbeddedNum(i)
+                    .setSomeEmbeddedString("embedded & " + i));
+          }
+          return ImmutableMap.of("proto", proto.build());
+        }
+      case "delegates":
+        return ImmutableMap.of("count", 500);
+      default:
+        throw new IllegalArgumentException("unknown template: " + template);
+    }
+  }
+
+  private SoySauce.Renderer newRenderer() {
+    return sauce
+        .renderTemplate("soy.benchmark." + template)
+        .setData(data)
+        .setMsgBundle(msgBundle)
+        .setActiveModSelector(ACTIVE_MODS);
+  }
+
+  @Benchmark
+  public StringBuilder renderToAppendable() throws IOException {
+    StringBuilder sb = new StringBuilder();
+    WriteContinuation continuation = newRenderer().renderHtml(sb);
+    checkState(continuation.result().isDone());
+    return sb;
+  }
+
+  @Benchmark
+  public SanitizedContent renderToSanitizedContent() {
+    Continuation<SanitizedContent> continuation = newRenderer().renderHtml();
+    checkState(continuation.result().isDone());
+    return continuation.get();
+  }
+}
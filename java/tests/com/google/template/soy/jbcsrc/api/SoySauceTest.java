@@ -18,6 +18,7 @@ package com.google.template.soy.jbcsrc.api;
 
 import static com.google.common.truth.Truth.assertThat;
 import static com.google.common.truth.Truth.assertWithMessage;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
 import static com.google.template.soy.data.UnsafeSanitizedContentOrdainer.ordainAsSafe;
 import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.fail;
@@ -25,11 +26,13 @@ import static org.junit.Assert.fail;
 import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.SettableFuture;
 import com.google.errorprone.annotations.CanIgnoreReturnValue;
 import com.google.template.soy.SoyFileSet;
 import com.google.template.soy.base.internal.SoyFileKind;
 import com.google.template.soy.data.SanitizedContent;
+import com.google.template.soy.data.SoyFutureException;
 import com.google.template.soy.data.SanitizedContent.ContentKind;
 import com.google.template.soy.data.restricted.IntegerData;
 import com.google.template.soy.data.restricted.NullData;
@@ -37,6 +40,14 @@ import com.google.template.soy.jbcsrc.api.SoySauce.Continuation;
 import com.google.template.soy.jbcsrc.api.SoySauce.WriteContinuation;
 import com.google.template.soy.testing.Foo;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -66,6 +77,89 @@ public class SoySauceTest {
     assertThat(sauce.hasTemplate("i.do.not.exist")).isFalse();
   }
 
+  /** Verifies SoySauce#prewarm(Iterable, Executor). */
+  @Test
+  public void testPrewarm() throws Exception {
+    sauce.prewarm(ImmutableList.of("strict_test.helloHtml"), directExecutor()).get();
+
+    ExecutionException e =
+        assertThrows(
+            ExecutionException.class,
+            () -> sauce.prewarm(ImmutableList.of("i.do.not.exist"), directExecutor()).get());
+    assertThat(e).hasCauseThat().isInstanceOf(IllegalArgumentException.class);
+  }
+
+  /** Verifies SoySauce.Renderer#setRenderProfile(RenderProfile). */
+  @Test
+  public void testRenderProfile() {
+    SoySauce renamingSauce =
+        SoyFileSet.builder()
+            .add(
+                "{namespace ns}\n"
+                    + "{template t kind=\"text\"}\n"
+                    + "  {css('foo')} {xid('bar')}\n"
+                    + "{/template}\n",
+                "test.soy")
+            .build()
+            .compileTemplates();
+    RenderProfile profile =
+        renamingSauce
+            .newRenderProfile()
+            .setCssRenamingMap(key -> "css-" + key)
+            .setXidRenamingMap(key -> "xid-" + key)
+            .build();
+
+    assertThat(renamingSauce.renderTemplate("ns.t").setRenderProfile(profile).renderText().get())
+        .isEqualTo("css-foo xid-bar");
+    assertThat(
+            renamingSauce
+                .renderTemplate("ns.t")
+                .setRenderProfile(profile)
+                .setXidRenamingMap(key -> "other-" + key)
+                .renderText()
+                .get())
+        .isEqualTo("css-foo other-bar");
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> sauce.renderTemplate("strict_test.helloHtml").setRenderProfile(profile));
+  }
+
+  /** Verifies that the renaming maps of a RenderProfile are memoized. */
+  @Test
+  public void testRenderProfile_memoizesRenaming() {
+    SoySauce renamingSauce =
+        SoyFileSet.builder()
+            .add(
+                "{namespace ns}\n"
+                    + "{template t kind=\"text\"}\n"
+                    + "  {css('foo')} {css('foo')} {xid('bar')}\n"
+                    + "{/template}\n",
+                "test.soy")
+            .build()
+            .compileTemplates();
+    List<String> renamed = new ArrayList<>();
+    RenderProfile profile =
+        renamingSauce
+            .newRenderProfile()
+            .setCssRenamingMap(
+                key -> {
+                  renamed.add(key);
+                  return "css-" + key;
+                })
+            .setXidRenamingMap(
+                key -> {
+                  renamed.add(key);
+                  return null;
+                })
+            .build();
+
+    for (int i = 0; i < 2; i++) {
+      assertThat(renamingSauce.renderTemplate("ns.t").setRenderProfile(profile).renderText().get())
+          .isEqualTo("css-foo css-foo bar_");
+    }
+    assertThat(renamed).containsExactly("foo", "bar");
+  }
+
   /** Verifies SoySauce.Renderer#renderHtml(). */
   @Test
   public void testRenderHtml() {
@@ -304,6 +398,196 @@ public class SoySauceTest {
     assertThat(strictContinuation.get().getContent()).isEqualTo("Hello, pooh bear");
   }
 
+  @Test
+  public void testAwaitDone() throws Exception {
+    SettableFuture<String> p = SettableFuture.create();
+    Continuation<String> continuation =
+        sauce.renderTemplate("strict_test.withParam").setData(ImmutableMap.of("p", p)).renderText();
+    assertThat(continuation.result().type()).isEqualTo(RenderResult.Type.DETACH);
+
+    Thread setter = new Thread(() -> p.set("eeyore"));
+    setter.start();
+    assertThat(continuation.awaitDone()).isEqualTo("Hello, eeyore");
+    setter.join();
+  }
+
+  @Test
+  public void testAwaitDone_appendable() throws Exception {
+    TestAppendable builder = new TestAppendable();
+    SettableFuture<String> p = SettableFuture.create();
+    WriteContinuation continuation =
+        sauce
+            .renderTemplate("strict_test.withParam")
+            .setData(ImmutableMap.of("p", p))
+            .renderText(builder);
+
+    Thread setter = new Thread(() -> p.set("roo"));
+    setter.start();
+    continuation.awaitDone();
+    setter.join();
+    assertThat(builder.toString()).isEqualTo("Hello, roo");
+  }
+
+  @Test
+  public void testAwaitDone_limitedAppendable() throws Exception {
+    TestAppendable builder =
+        new TestAppendable() {
+          int checks;
+
+          @Override
+          public boolean softLimitReached() {
+            return ++checks < 20;
+          }
+        };
+    sauce
+        .renderTemplate("strict_test.withParam")
+        .setData(ImmutableMap.of("p", "roo"))
+        .renderText(builder)
+        .awaitDone();
+    assertThat(builder.toString()).isEqualTo("Hello, roo");
+  }
+
+  @Test
+  public void testAwaitDone_limitedAppendableInterrupted() throws Exception {
+    TestAppendable builder = new TestAppendable();
+    builder.softLimitReached = true;
+    WriteContinuation continuation =
+        sauce
+            .renderTemplate("strict_test.withParam")
+            .setData(ImmutableMap.of("p", "roo"))
+            .renderText(builder);
+
+    // A permanently limited render parks rather than spins, so it can be interrupted.
+    Thread.currentThread().interrupt();
+    assertThrows(InterruptedException.class, continuation::awaitDone);
+  }
+
+  @Test
+  public void testAwaitDone_drainSignal() throws Exception {
+    TestAppendable builder = new TestAppendable();
+    builder.softLimitReached = true;
+    AtomicInteger drains = new AtomicInteger();
+    sauce
+        .renderTemplate("strict_test.withParam")
+        .setData(ImmutableMap.of("p", "roo"))
+        .renderText(builder)
+        .awaitDone(
+            () -> {
+              drains.incrementAndGet();
+              builder.softLimitReached = false;
+              return Futures.immediateVoidFuture();
+            });
+    assertThat(drains.get()).isEqualTo(1);
+    assertThat(builder.toString()).isEqualTo("Hello, roo");
+  }
+
+  @Test
+  public void testAwaitDone_failedFuture() {
+    SettableFuture<String> p = SettableFuture.create();
+    Continuation<String> continuation =
+        sauce.renderTemplate("strict_test.withParam").setData(ImmutableMap.of("p", p)).renderText();
+    p.setException(new IllegalStateException("boom"));
+
+    SoyFutureException e = assertThrows(SoyFutureException.class, continuation::awaitDone);
+    assertThat(e).hasCauseThat().hasMessageThat().isEqualTo("boom");
+  }
+
+  @Test
+  public void testCompleteAsync() throws Exception {
+    SettableFuture<String> p = SettableFuture.create();
+    CompletableFuture<String> output =
+        sauce
+            .renderTemplate("strict_test.withParam")
+            .setData(ImmutableMap.of("p", p))
+            .renderText()
+            .completeAsync(directExecutor())
+            .toCompletableFuture();
+    assertThat(output.isDone()).isFalse();
+
+    p.set("tigger");
+    assertThat(output.get()).isEqualTo("Hello, tigger");
+  }
+
+  @Test
+  public void testCompleteAsync_appendable() throws Exception {
+    TestAppendable builder = new TestAppendable();
+    CompletableFuture<String> p = new CompletableFuture<>();
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      CompletionStage<Void> done =
+          sauce
+              .renderTemplate("strict_test.withParam")
+              .setData(ImmutableMap.of("p", p))
+              .renderText(builder)
+              .completeAsync(executor);
+      p.complete("kanga");
+
+      done.toCompletableFuture().get();
+    } finally {
+      executor.shutdownNow();
+    }
+    assertThat(builder.toString()).isEqualTo("Hello, kanga");
+  }
+
+  @Test
+  public void testCompleteAsync_limitedAppendable() throws Exception {
+    // Stays limited for far longer than a direct executor could recurse.
+    TestAppendable builder =
+        new TestAppendable() {
+          int checks;
+
+          @Override
+          public boolean softLimitReached() {
+            return ++checks < 100_000;
+          }
+        };
+    CompletionStage<Void> done =
+        sauce
+            .renderTemplate("strict_test.withParam")
+            .setData(ImmutableMap.of("p", "roo"))
+            .renderText(builder)
+            .completeAsync(directExecutor());
+
+    done.toCompletableFuture().get();
+    assertThat(builder.toString()).isEqualTo("Hello, roo");
+  }
+
+  @Test
+  public void testCompleteAsync_drainSignal() throws Exception {
+    TestAppendable builder = new TestAppendable();
+    builder.softLimitReached = true;
+    SettableFuture<Void> drained = SettableFuture.create();
+    CompletableFuture<Void> done =
+        sauce
+            .renderTemplate("strict_test.withParam")
+            .setData(ImmutableMap.of("p", "roo"))
+            .renderText(builder)
+            .completeAsync(directExecutor(), () -> drained)
+            .toCompletableFuture();
+    assertThat(done.isDone()).isFalse();
+
+    builder.softLimitReached = false;
+    drained.set(null);
+    done.get();
+    assertThat(builder.toString()).isEqualTo("Hello, roo");
+  }
+
+  @Test
+  public void testCompleteAsync_failedFuture() {
+    SettableFuture<String> p = SettableFuture.create();
+    CompletableFuture<String> output =
+        sauce
+            .renderTemplate("strict_test.withParam")
+            .setData(ImmutableMap.of("p", p))
+            .renderText()
+            .completeAsync(directExecutor())
+            .toCompletableFuture();
+    p.setException(new IllegalStateException("boom"));
+
+    ExecutionException e = assertThrows(ExecutionException.class, output::get);
+    assertThat(e).hasCauseThat().isInstanceOf(SoyFutureException.class);
+  }
+
   @Test
   public void testDetaching_appendable() throws IOException {
     SoySauce.Renderer tmpl = sauce.renderTemplate("strict_test.withParam");
@@ -444,7 +728,7 @@ public class SoySauceTest {
     assertThat(continuation.get().getContent()).isEqualTo("it works!");
   }
 
-  private static final class TestAppendable implements AdvisingAppendable {
+  private static class TestAppendable implements AdvisingAppendable {
     private final StringBuilder delegate = new StringBuilder();
     boolean softLimitReached;
 
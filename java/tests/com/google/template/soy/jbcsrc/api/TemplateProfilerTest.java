@@ -0,0 +1,98 @@
+/*
+ * Copyright 2024 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.jbcsrc.api;
+
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.template.soy.SoyFileSet;
+import com.google.template.soy.jbcsrc.api.SoySauce.Continuation;
+import com.google.template.soy.jbcsrc.api.TemplateProfiler.TemplateStats;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link TemplateProfiler}. */
+@RunWith(JUnit4.class)
+public final class TemplateProfilerTest {
+  private static final String TEMPLATES =
+      "{namespace ns}\n"
+          + "{template outer}\n"
+          + "  {@param p: string}\n"
+          + "  <ul>{for $i in range(3)}{call inner}{param i: $i /}{/call}{/for}</ul>{$p}\n"
+          + "{/template}\n"
+          + "{template inner}\n"
+          + "  {@param i: int}\n"
+          + "  <li>{$i}</li>\n"
+          + "{/template}\n";
+
+  private final TemplateProfiler profiler = TemplateProfiler.create();
+
+  private SoySauce compile() {
+    return SoyFileSet.builder()
+        .add(TEMPLATES, "test.soy")
+        .setTemplateProfiler(profiler)
+        .build()
+        .compileTemplates();
+  }
+
+  @Test
+  public void testProfile() {
+    String output =
+        compile()
+            .renderTemplate("ns.outer")
+            .setData(ImmutableMap.of("p", "x"))
+            .renderHtml()
+            .get()
+            .toString();
+
+    ImmutableMap<String, TemplateStats> stats = statsByName();
+    TemplateStats outer = stats.get("ns.outer");
+    TemplateStats inner = stats.get("ns.inner");
+    assertThat(outer.calls()).isEqualTo(1);
+    assertThat(inner.calls()).isEqualTo(3);
+    assertThat(outer.inclusiveChars()).isEqualTo(output.length());
+    assertThat(inner.inclusiveChars()).isEqualTo("<li>0</li><li>1</li><li>2</li>".length());
+    assertThat(inner.exclusiveChars()).isEqualTo(inner.inclusiveChars());
+    assertThat(outer.exclusiveChars()).isEqualTo(output.length() - inner.inclusiveChars());
+    assertThat(outer.inclusiveNanos()).isAtLeast(outer.exclusiveNanos() + inner.inclusiveNanos());
+
+    profiler.reset();
+    assertThat(profiler.snapshot()).isEmpty();
+  }
+
+  @Test
+  public void testProfile_resumesAreNotCalls() {
+    SettableFuture<String> p = SettableFuture.create();
+    Continuation<?> continuation =
+        compile().renderTemplate("ns.outer").setData(ImmutableMap.of("p", p)).renderHtml();
+    assertThat(continuation.result().type()).isEqualTo(RenderResult.Type.DETACH);
+    p.set("x");
+    continuation = continuation.continueRender();
+    assertThat(continuation.result()).isEqualTo(RenderResult.done());
+
+    assertThat(statsByName().get("ns.outer").calls()).isEqualTo(1);
+    assertThat(profiler.dump()).contains("ns.outer");
+  }
+
+  private ImmutableMap<String, TemplateStats> statsByName() {
+    return profiler.snapshot().stream()
+        .collect(toImmutableMap(TemplateStats::templateName, s -> s));
+  }
+}
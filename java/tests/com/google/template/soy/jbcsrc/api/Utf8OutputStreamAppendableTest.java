@@ -0,0 +1,92 @@
+/*
+ * Copyright 2024 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.jbcsrc.api;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableMap;
+import com.google.template.soy.SoyFileSet;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link Utf8OutputStreamAppendable}. */
+@RunWith(JUnit4.class)
+public final class Utf8OutputStreamAppendableTest {
+  private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+  @Test
+  public void testEncodesAcrossBufferBoundaries() throws IOException {
+    Utf8OutputStreamAppendable out = Utf8OutputStreamAppendable.create(bytes, 5);
+    String text = Strings.repeat("aé✓😀", 20);
+    out.append(text).append('!');
+    assertThat(bytes.size()).isGreaterThan(0);
+    out.flush();
+
+    assertThat(bytes.toString(UTF_8.name())).isEqualTo(text + "!");
+  }
+
+  @Test
+  public void testSurrogatePairsSplitAcrossAppends() throws IOException {
+    Utf8OutputStreamAppendable out = Utf8OutputStreamAppendable.create(bytes);
+    String emoji = "😀";
+    out.append("a" + emoji.charAt(0)).append(emoji, 1, 2).append(emoji.charAt(0));
+    out.flush();
+    assertThat(bytes.toString(UTF_8.name())).isEqualTo("a" + emoji);
+
+    out.append(emoji.charAt(1));
+    out.close();
+    assertThat(bytes.toString(UTF_8.name())).isEqualTo("a" + emoji + emoji);
+  }
+
+  @Test
+  public void testUnpairedSurrogatesAreReplaced() throws IOException {
+    Utf8OutputStreamAppendable out = Utf8OutputStreamAppendable.create(bytes);
+    out.append("\uD83Dx").append('\uD83D');
+    out.close();
+
+    assertThat(bytes.toString(UTF_8.name())).isEqualTo("?x?");
+  }
+
+  @Test
+  public void testRender() throws IOException {
+    SoySauce sauce =
+        SoyFileSet.builder()
+            .add(
+                "{namespace ns}\n"
+                    + "{template t}\n"
+                    + "  {@param p: string}\n"
+                    + "  <p>{$p} ✓</p>\n"
+                    + "{/template}\n",
+                "test.soy")
+            .build()
+            .compileTemplates();
+    Utf8OutputStreamAppendable out = Utf8OutputStreamAppendable.create(bytes);
+    sauce
+        .renderTemplate("ns.t")
+        .setData(ImmutableMap.of("p", "wörld"))
+        .renderHtml(out)
+        .assertDone();
+    out.flush();
+
+    assertThat(bytes.toString(UTF_8.name())).isEqualTo("<p>wörld ✓</p>");
+  }
+}
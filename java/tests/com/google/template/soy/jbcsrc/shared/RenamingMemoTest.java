@@ -0,0 +1,87 @@
+/*
+ * Copyright 2024 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.jbcsrc.shared;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class RenamingMemoTest {
+
+  @Test
+  public void testIdsAreScopedToTheClassLoader() {
+    ClassLoader loader = new ClassLoader() {};
+    RenamingMemo.Id foo = RenamingMemo.idOf(loader, "foo");
+    assertThat(RenamingMemo.idOf(loader, "foo")).isSameInstanceAs(foo);
+    assertThat(RenamingMemo.idOf(loader, "bar")).isNotSameInstanceAs(foo);
+    assertThat(RenamingMemo.idOf(new ClassLoader() {}, "foo")).isNotSameInstanceAs(foo);
+  }
+
+  @Test
+  public void testMemo() {
+    ClassLoader loader = new ClassLoader() {};
+    RenamingMemo memo = RenamingMemo.create();
+    RenamingMemo.Id foo = RenamingMemo.idOf(loader, "foo");
+    RenamingMemo.Id bar = RenamingMemo.idOf(loader, "bar");
+    assertThat(memo.get(foo)).isNull();
+
+    memo.put(bar, "renamed-bar");
+    memo.put(foo, "renamed-foo");
+    assertThat(memo.get(foo)).isEqualTo("renamed-foo");
+    assertThat(memo.get(bar)).isEqualTo("renamed-bar");
+    // Grows to hold ids assigned after it was last written.
+    RenamingMemo.Id baz = RenamingMemo.idOf(loader, "baz");
+    assertThat(memo.get(baz)).isNull();
+    memo.put(baz, "renamed-baz");
+    assertThat(memo.get(baz)).isEqualTo("renamed-baz");
+    assertThat(memo.get(foo)).isEqualTo("renamed-foo");
+  }
+
+  @Test
+  public void testMemo_otherClassLoaders() {
+    RenamingMemo memo = RenamingMemo.create();
+    RenamingMemo.Id foo = RenamingMemo.idOf(new ClassLoader() {}, "foo");
+    // The first id of another class loader, which has the same index as foo.
+    RenamingMemo.Id bar = RenamingMemo.idOf(new ClassLoader() {}, "bar");
+    memo.put(foo, "renamed-foo");
+    assertThat(memo.get(bar)).isNull();
+
+    memo.put(bar, "renamed-bar");
+    assertThat(memo.get(bar)).isEqualTo("renamed-bar");
+    assertThat(memo.get(foo)).isEqualTo("renamed-foo");
+  }
+
+  @Test
+  public void testMemo_dropsOldestClassLoaders() {
+    RenamingMemo memo = RenamingMemo.create();
+    List<RenamingMemo.Id> ids = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      RenamingMemo.Id id = RenamingMemo.idOf(new ClassLoader() {}, "foo");
+      memo.put(id, "renamed-" + i);
+      ids.add(id);
+    }
+    assertThat(memo.get(ids.get(0))).isNull();
+    for (int i = 1; i < 5; i++) {
+      assertThat(memo.get(ids.get(i))).isEqualTo("renamed-" + i);
+    }
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2024 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.shared.internal;
+
+import com.google.common.base.Strings;
+import com.google.template.soy.shared.internal.EscapingConventions.CrossLanguageStringXform;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for {@link CrossLanguageStringXform#escapeOnto}, which is dominated by the scan for
+ * the first code unit that needs escaping.
+ *
+ * <pre>
+ *   mvn -Pbenchmarks clean test -DskipTests -Djmh.args="EscapingConventionsBenchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EscapingConventionsBenchmark {
+
+  @Param({"escapeHtml", "escapeJsString", "escapeUri"})
+  String escaper;
+
+  /** The text to escape: no escapes, an escape every 40 code units, or mostly non-ASCII. */
+  @Param({"plain", "sparse", "nonAscii"})
+  String text;
+
+  private CrossLanguageStringXform xform;
+  private String input;
+  private final StringBuilder out = new StringBuilder();
+
+  @Setup
+  public void setUp() {
+    switch (escaper) {
+      case "escapeHtml":
+        xform = EscapingConventions.EscapeHtml.INSTANCE;
+        break;
+      case "escapeJsString":
+        xform = EscapingConventions.EscapeJsString.INSTANCE;
+        break;
+      case "escapeUri":
+        xform = EscapingConventions.EscapeUri.INSTANCE;
+        break;
+      default:
+        throw new AssertionError(escaper);
+    }
+    switch (text) {
+      case "plain":
+        input = Strings.repeat("The quick brown fox jumps over the lazy dog ", 24);
+        break;
+      case "sparse":
+        input = Strings.repeat("The quick brown fox jumps over the <dog> ", 24);
+        break;
+      case "nonAscii":
+        input = Strings.repeat("Der schnelle braune Fuchs springt über den Hund ", 24);
+        break;
+      default:
+        throw new AssertionError(text);
+    }
+  }
+
+  @Benchmark
+  public int escapeOnto() throws IOException {
+    out.setLength(0);
+    xform.escapeOnto(input, out);
+    return out.length();
+  }
+}
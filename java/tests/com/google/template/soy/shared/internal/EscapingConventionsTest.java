@@ -17,7 +17,9 @@
 package com.google.template.soy.shared.internal;
 
 import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
 
+import com.google.common.base.Strings;
 import com.google.common.collect.Sets;
 import java.lang.reflect.Modifier;
 import java.net.URLEncoder;
@@ -90,6 +92,37 @@ public class EscapingConventionsTest {
         .append('\u0085')
         .append('\u1234');
     assertThat(sb.toString()).isEqualTo("Hi%0A%C2%85%E1%88%B4");
+
+    // And the escapeOnto version.
+    sb = new StringBuilder();
+    EscapingConventions.EscapeUri.INSTANCE.escapeOnto("Hello", sb);
+    EscapingConventions.EscapeUri.INSTANCE.escapeOnto("\nletters\u0085\u1234\u2028", sb);
+    assertThat(sb.toString()).isEqualTo("Hello%0Aletters%C2%85%E1%88%B4%E2%80%A8");
+  }
+
+  @Test
+  public void testEscapeOntoFindsEscapesAtAnyPosition() throws Exception {
+    // escapeOnto skips ahead to the first escape, so make sure it is found at every offset.
+    String codeUnits = "\0\t\n \"&'/<=>?\\`az\u007f\u0080\u0085\u00a0\u1234\u2028\ufeff";
+    for (EscapingConventions.CrossLanguageStringXform escaper :
+        EscapingConventions.getAllEscapers()) {
+      for (int i = 0; i < codeUnits.length(); i++) {
+        char c = codeUnits.charAt(i);
+        for (int pos = 0; pos < 9; pos++) {
+          String s = Strings.repeat("x", pos) + c + Strings.repeat("y", 8 - pos);
+          StringBuilder expected = new StringBuilder();
+          Appendable perCodeUnit = escaper.escape(expected);
+          for (int j = 0; j < s.length(); j++) {
+            perCodeUnit.append(s.charAt(j));
+          }
+          StringBuilder actual = new StringBuilder();
+          escaper.escapeOnto(s, actual);
+          assertWithMessage("%s of %s", escaper.getDirectiveName(), s)
+              .that(actual.toString())
+              .isEqualTo(expected.toString());
+        }
+      }
+    }
   }
 
   @Test
@@ -23,6 +23,8 @@ import static org.junit.Assert.assertEquals;
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableSet;
 import com.google.template.soy.data.Dir;
+import com.google.template.soy.data.LoggingAdvisingAppendable;
+import com.google.template.soy.data.LoggingAdvisingAppendable.BufferingAppendable;
 import com.google.template.soy.data.SanitizedContent;
 import com.google.template.soy.data.SanitizedContent.ContentKind;
 import com.google.template.soy.data.SoyValue;
@@ -33,6 +35,7 @@ import com.google.template.soy.data.restricted.IntegerData;
 import com.google.template.soy.data.restricted.NullData;
 import com.google.template.soy.data.restricted.StringData;
 import com.google.template.soy.shared.internal.TagWhitelist.OptionalSafeTag;
+import java.io.IOException;
 import java.util.EnumSet;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -786,6 +789,24 @@ public class SanitizersTest {
             UnsafeSanitizedContentOrdainer.ordainAsSafe("<span>foo</span>", ContentKind.HTML));
   }
 
+  @Test
+  public void testCleanHtmlStreaming() throws IOException {
+    BufferingAppendable out = LoggingAdvisingAppendable.buffering();
+    LoggingAdvisingAppendable cleaning =
+        Sanitizers.cleanHtmlStreaming(out, ImmutableSet.of(OptionalSafeTag.SPAN));
+    cleaning.append("<span dir='RTL' onclick=x>f<object>o");
+    cleaning.append("o</span><b");
+    assertThat(out.toString()).isEmpty();
+    cleaning.flushBuffers(0);
+    assertThat(out.getAndClearBuffer()).isEqualTo("<span dir=\"rtl\">foo</span>&lt;b");
+    assertThat(out.getSanitizedContentKind()).isEqualTo(ContentKind.HTML);
+
+    // Tags that are still open are closed at the end of each flushed chunk.
+    cleaning.append("a&<span>b");
+    cleaning.flushBuffers(0);
+    assertThat(out.getAndClearBuffer()).isEqualTo("a&amp;<span>b</span>");
+  }
+
   @Test
   public void testEmbedCssIntoHtml() {
     assertThat(Sanitizers.embedCssIntoHtml("")).isEmpty();
@@ -117,6 +117,35 @@ public class SimplifyVisitorTest {
         .isEqualTo("{@param boo: ?}\n{'0123456789' |insertWordBreaks:$boo}");
   }
 
+  @Test
+  public void testSimplifyPrintNode_constants() throws Exception {
+    SoyFileSetNode fileSet =
+        SoyFileSetParserBuilder.forFileContents(
+                join(
+                    "{namespace ns}",
+                    "{const GREETING = '<Hello>' /}",
+                    "{const SHOUT = GREETING + '!' /}",
+                    "{template t}",
+                    "  {@param name : string}",
+                    "  <div title=\"{SHOUT}\">{GREETING}, {$name}</div>",
+                    "{/template}"))
+            .runOptimizer(false)
+            .runAutoescaper(true)
+            .parse()
+            .fileSet();
+    SimplifyVisitor.create(
+            fileSet.getNodeIdGenerator(),
+            ImmutableList.copyOf(fileSet.getChildren()),
+            ErrorReporter.exploding())
+        .simplify(fileSet.getChild(0));
+
+    // The escaping directives are applied to the constants at compile time.
+    assertThat(toString(fileSet.getChild(0).getTemplates().get(0)))
+        .isEqualTo(
+            "{@param name: string}\n"
+                + "<div title=\"&lt;Hello&gt;!\">&lt;Hello&gt;, {$name |escapeHtml}</div>");
+  }
+
   @Test
   public void testSimplifyIfNode() throws Exception {
 